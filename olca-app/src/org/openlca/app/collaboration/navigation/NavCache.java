@@ -19,18 +19,33 @@ import static org.openlca.core.model.ModelType.SOURCE;
 import static org.openlca.core.model.ModelType.UNIT_GROUP;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.openlca.app.M;
 import org.openlca.app.collaboration.navigation.NavElement.ElementType;
 import org.openlca.app.db.Database;
 import org.openlca.app.db.Repository;
-import org.openlca.app.navigation.Navigator;
 import org.openlca.app.navigation.elements.INavigationElement;
+import org.openlca.app.navigation.elements.ModelElement;
+import org.openlca.core.database.Daos;
 import org.openlca.core.model.Category;
 import org.openlca.core.model.ModelType;
+import org.openlca.core.model.descriptors.RootDescriptor;
+import org.openlca.git.util.Path;
+import org.openlca.jsonld.LibraryLink;
 
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * The repository view on the navigation tree of the active database. The
+ * repository state of the elements (new, changed, deleted content) is
+ * calculated bottom-up once per refresh so that the navigation labels only
+ * need to read it. When a single data set was saved, only the states on the
+ * path from that data set to the root are updated.
+ */
 public class NavCache {
 
 	private static final ModelType[] UNGROUPED_TYPES = {
@@ -45,7 +60,8 @@ public class NavCache {
 
 	private static NavCache INSTANCE = new NavCache();
 	private final NavElement root = new NavElement(ElementType.DATABASE, null);
-	private Boolean changes;
+	private final EnumMap<ModelType, TLongObjectHashMap<NavElement>> models = new EnumMap<>(ModelType.class);
+	private Boolean librariesChanged;
 
 	private NavCache() {
 	}
@@ -69,17 +85,55 @@ public class NavCache {
 			Repository.CURRENT.descriptors.reload(type);
 		}
 		INSTANCE.build();
+		INSTANCE.calculateState(INSTANCE.root);
+	}
+
+	/**
+	 * Updates the repository state of the given data set after it was saved.
+	 * Only the states of the data set and its ancestors are recalculated. If
+	 * the data set is not part of the cache yet, the cache of its type is
+	 * rebuilt.
+	 */
+	public static void update(RootDescriptor descriptor) {
+		var database = Database.get();
+		if (descriptor == null || descriptor.type == null)
+			return;
+		if (database == null || !Repository.isConnected()) {
+			INSTANCE = new NavCache();
+			return;
+		}
+		var elem = INSTANCE.modelOf(descriptor);
+		var fresh = Daos.root(database, descriptor.type).getDescriptor(descriptor.id);
+		if (elem == null || fresh == null || !Objects.equals(fresh.category, descriptor.category)) {
+			refresh(descriptor.type);
+			return;
+		}
+		Repository.CURRENT.descriptors.reload(descriptor.type);
+		elem.content(fresh);
+		INSTANCE.calculateOwnState(elem);
+		INSTANCE.aggregateState(elem);
+		var parent = elem.parent();
+		while (parent != null) {
+			INSTANCE.aggregateState(parent);
+			parent = parent.parent();
+		}
 	}
 
 	static NavElement get(INavigationElement<?> elem) {
+		if (elem instanceof ModelElement e)
+			return INSTANCE.modelOf(e.getContent());
 		return new NavFinder(Repository.CURRENT).find(INSTANCE.root, elem);
 	}
 
+	private NavElement modelOf(RootDescriptor d) {
+		if (d == null || d.type == null)
+			return null;
+		var map = models.get(d.type);
+		return map != null ? map.get(d.id) : null;
+	}
+
 	public boolean hasChanges() {
-		if (changes == null) {
-			changes = RepositoryLabel.hasChanged(Navigator.findElement(Database.getActiveConfiguration()));
-		}
-		return changes;
+		return root.hasChanged();
 	}
 
 	private void build() {
@@ -93,10 +147,10 @@ public class NavCache {
 		if (group != null) {
 			var root = parent;
 			parent = new NavElement(ElementType.GROUP, group);
-			root.children().add(parent);
+			root.add(parent);
 		}
 		for (var type : types) {
-			parent.children().add(new NavElement(ElementType.MODEL_TYPE, type, false, buildChildren(type, null)));
+			parent.add(new NavElement(ElementType.MODEL_TYPE, type, false, buildChildren(type, null)));
 		}
 	}
 
@@ -113,9 +167,9 @@ public class NavCache {
 			return;
 		var libDir = new NavElement(ElementType.LIBRARY_DIR);
 		for (var lib : libs) {
-			libDir.children().add(new NavElement(ElementType.LIBRARY, lib));
+			libDir.add(new NavElement(ElementType.LIBRARY, lib));
 		}
-		root.children().add(libDir);
+		root.add(libDir);
 	}
 
 	private List<NavElement> buildCategories(ModelType type, Category category) {
@@ -143,9 +197,135 @@ public class NavCache {
 		var datasets = category != null
 				? Repository.CURRENT.descriptors.get(category)
 				: Repository.CURRENT.descriptors.get(type);
+		var map = models.computeIfAbsent(type, t -> new TLongObjectHashMap<>());
 		return datasets.stream()
-				.map(NavElement::new)
+				.map(d -> {
+					var elem = new NavElement(d);
+					map.put(d.id, elem);
+					return elem;
+				})
 				.collect(Collectors.toList());
 	}
 
+	private void calculateState(NavElement elem) {
+		for (var child : elem.children()) {
+			calculateState(child);
+		}
+		calculateOwnState(elem);
+		aggregateState(elem);
+	}
+
+	/**
+	 * Calculates the state flags of the element itself; the aggregated flags
+	 * are kept.
+	 */
+	private void calculateOwnState(NavElement elem) {
+		int state = elem.state() & (NavElement.DELETED | NavElement.CHANGED);
+		if (isNew(elem)) {
+			state |= NavElement.NEW;
+		}
+		if (isModified(elem)) {
+			state |= NavElement.MODIFIED;
+		}
+		if (hasDeletedChildren(elem)) {
+			state |= NavElement.OWN_DELETED;
+		}
+		elem.state(state);
+	}
+
+	/**
+	 * Aggregates the state of the element from its own state and the states
+	 * of its children.
+	 */
+	private void aggregateState(NavElement elem) {
+		int state = elem.state() & (NavElement.NEW | NavElement.MODIFIED | NavElement.OWN_DELETED);
+		boolean deleted = !elem.is(ElementType.MODEL) && elem.has(NavElement.OWN_DELETED);
+		boolean changed = elem.has(NavElement.MODIFIED);
+		for (var child : elem.children()) {
+			if (child.has(NavElement.DELETED)) {
+				deleted = true;
+			}
+			if (child.hasChanged() || (child.is(ElementType.MODEL, ElementType.CATEGORY) && child.isNew())) {
+				changed = true;
+			}
+		}
+		if (elem.isFromLibrary() || elem.is(ElementType.MODEL, ElementType.LIBRARY_DIR)) {
+			changed = elem.has(NavElement.MODIFIED) && !elem.isFromLibrary();
+		} else if (deleted) {
+			changed = true;
+		}
+		if (deleted) {
+			state |= NavElement.DELETED;
+		}
+		if (changed) {
+			state |= NavElement.CHANGED;
+		}
+		elem.state(state);
+	}
+
+	private boolean isNew(NavElement elem) {
+		if (elem.isFromLibrary())
+			return false;
+		if (elem.is(ElementType.LIBRARY))
+			return isNewLibrary((String) elem.content());
+		if (elem.is(ElementType.CATEGORY))
+			return !Repository.CURRENT.index.contains(getPath(elem.content()));
+		if (elem.is(ElementType.MODEL))
+			return Repository.CURRENT.index.getPath(elem.getTypedRefId()) == null;
+		return false;
+	}
+
+	private boolean isModified(NavElement elem) {
+		if (elem.isFromLibrary())
+			return false;
+		if (elem.is(ElementType.DATABASE, ElementType.LIBRARY_DIR))
+			return librariesChanged();
+		if (!elem.is(ElementType.MODEL) || isNew(elem))
+			return false;
+		var d = (RootDescriptor) elem.content();
+		return !Repository.CURRENT.index.isSameVersion(getPath(d), d);
+	}
+
+	private boolean hasDeletedChildren(NavElement elem) {
+		if (!elem.is(ElementType.MODEL_TYPE, ElementType.CATEGORY))
+			return false;
+		var path = getPath(elem.content());
+		var fromIndex = Repository.CURRENT.index.getSubPaths(path);
+		var fromNavigation = elem.children()
+				.stream().map(e -> getPath(e.content()))
+				.collect(Collectors.toSet());
+		for (var entry : fromIndex)
+			if (!fromNavigation.contains(entry))
+				return true;
+		return false;
+	}
+
+	private boolean librariesChanged() {
+		if (librariesChanged != null)
+			return librariesChanged;
+		var info = Repository.CURRENT.getInfo();
+		var libsBefore = info == null ? new ArrayList<LibraryLink>() : info.libraries();
+		var libsNow = LibraryLink.of(Database.get().getLibraries());
+		librariesChanged = libsBefore.size() != libsNow.size()
+				|| !libsNow.containsAll(libsBefore)
+				|| !libsBefore.containsAll(libsNow);
+		return librariesChanged;
+	}
+
+	private static boolean isNewLibrary(String lib) {
+		var info = Repository.CURRENT.getInfo();
+		var libsBefore = info == null ? new ArrayList<LibraryLink>() : info.libraries();
+		return !libsBefore.contains(new LibraryLink(lib, null));
+	}
+
+	private static String getPath(Object o) {
+		if (o instanceof ModelType t)
+			return Path.of(t);
+		if (o instanceof Category c)
+			return Path.of(c);
+		if (o instanceof RootDescriptor d)
+			return Path.of(Repository.CURRENT.descriptors.categoryPaths, d);
+		return null;
+	}
+
 }
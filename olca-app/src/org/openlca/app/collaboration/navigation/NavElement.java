@@ -1,13 +1,48 @@
 package org.openlca.app.collaboration.navigation;
-	
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.openlca.core.model.descriptors.Descriptor;
 import org.openlca.core.model.descriptors.RootDescriptor;
 import org.openlca.git.util.TypedRefId;
 
-record NavElement(ElementType type, Object content, boolean isFromLibrary, List<NavElement> children) {
+/**
+ * An element of the repository view on the navigation tree. Besides its
+ * content, an element stores its repository state (new, changed, contains
+ * deleted elements) which is aggregated bottom-up from its children by the
+ * {@link NavCache}, so that labels only need to read it.
+ */
+final class NavElement {
+
+	/** The element itself is not tracked in the repository yet. */
+	static final int NEW = 1;
+	/** The element itself was modified (or the libraries of a database). */
+	static final int MODIFIED = 1 << 1;
+	/** Elements under this element were deleted. */
+	static final int OWN_DELETED = 1 << 2;
+	/** This element or one of its descendants has deleted elements. */
+	static final int DELETED = 1 << 3;
+	/** This element or one of its descendants has changes. */
+	static final int CHANGED = 1 << 4;
+
+	private final ElementType type;
+	private final boolean isFromLibrary;
+	private final List<NavElement> children;
+	private NavElement parent;
+	private Object content;
+	private int state;
+
+	NavElement(ElementType type, Object content, boolean isFromLibrary, List<NavElement> children) {
+		this.type = type;
+		this.content = content;
+		this.isFromLibrary = isFromLibrary;
+		this.children = children;
+		for (var child : children) {
+			child.parent = this;
+		}
+	}
 
 	NavElement(ElementType type, Object content) {
 		this(type, content, false, new ArrayList<>());
@@ -21,6 +56,55 @@ record NavElement(ElementType type, Object content, boolean isFromLibrary, List<
 		this(ElementType.MODEL, d, d.isFromLibrary(), new ArrayList<>());
 	}
 
+	ElementType type() {
+		return type;
+	}
+
+	Object content() {
+		return content;
+	}
+
+	void content(Object content) {
+		this.content = content;
+	}
+
+	boolean isFromLibrary() {
+		return isFromLibrary;
+	}
+
+	List<NavElement> children() {
+		return Collections.unmodifiableList(children);
+	}
+
+	NavElement parent() {
+		return parent;
+	}
+
+	void add(NavElement child) {
+		children.add(child);
+		child.parent = this;
+	}
+
+	int state() {
+		return state;
+	}
+
+	void state(int state) {
+		this.state = state;
+	}
+
+	boolean has(int flag) {
+		return (state & flag) != 0;
+	}
+
+	boolean isNew() {
+		return has(NEW);
+	}
+
+	boolean hasChanged() {
+		return has(CHANGED);
+	}
+
 	boolean is(ElementType... types) {
 		if (types == null)
 			return false;
@@ -36,11 +120,11 @@ record NavElement(ElementType type, Object content, boolean isFromLibrary, List<
 		var d = (RootDescriptor) content();
 		return new TypedRefId(d.type, d.refId);
 	}
-	
+
 	enum ElementType {
 
 		DATABASE, LIBRARY_DIR, LIBRARY, GROUP, MODEL_TYPE, CATEGORY, MODEL;
 
 	}
 
-}
\ No newline at end of file
+}
@@ -1,30 +1,91 @@
 package org.openlca.app.collaboration.navigation.actions;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.openlca.app.db.Repository;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.database.NativeSql;
 import org.openlca.core.model.ModelType;
-import org.openlca.git.util.TypedRefIdMap;
 import org.openlca.git.util.TypedRefId;
+import org.openlca.git.util.TypedRefIdMap;
 import org.openlca.util.Strings;
-
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * The references between the models of a database. The references are stored
+ * in a file in the git directory of the repository of the database. When they
+ * are loaded, the version and last change of each root entity are compared
+ * with the stored values, and only the references of the changed models are
+ * scanned again. A full scan is done when there is no such file or when the
+ * file was written for another version of the database schema or file format.
+ * <p>
+ * The models are identified by keys that combine the ordinal of the model
+ * type and the ID, see {@link #keyOf}.
+ */
 class ModelReferences {
 
-	private IDatabase database;
-	private TypedRefIdMap<Long> refIdToId = new TypedRefIdMap<>();
-	private EnumMap<ModelType, Map<Long, String>> idToRefId = new EnumMap<>(ModelType.class);
-	private ReferenceMap references = new ReferenceMap();
-	private ReferenceMap usages = new ReferenceMap();
-	private Map<String, Long> nameToParameter = new HashMap<>();
+	/** The version of the file format; increment it when the format changes. */
+	private static final int FORMAT_VERSION = 1;
+	private static final String FILE_NAME = "model-references.bin";
+
+	/** The number of IDs per query when only changed models are scanned. */
+	private static final int BATCH_SIZE = 1000;
+
+	private static final int TYPE_SHIFT = 56;
+	private static final long ID_MASK = (1L << TYPE_SHIFT) - 1;
+	private static final ModelType[] TYPES = ModelType.values();
+
+	/** The root entity tables; the stamps of their rows are compared. */
+	private static final Map<ModelType, String> ROOT_TABLES = Map.ofEntries(
+			Map.entry(ModelType.LOCATION, "tbl_locations"),
+			Map.entry(ModelType.SOURCE, "tbl_sources"),
+			Map.entry(ModelType.ACTOR, "tbl_actors"),
+			Map.entry(ModelType.CURRENCY, "tbl_currencies"),
+			Map.entry(ModelType.UNIT_GROUP, "tbl_unit_groups"),
+			Map.entry(ModelType.FLOW_PROPERTY, "tbl_flow_properties"),
+			Map.entry(ModelType.DQ_SYSTEM, "tbl_dq_systems"),
+			Map.entry(ModelType.PARAMETER, "tbl_parameters"),
+			Map.entry(ModelType.SOCIAL_INDICATOR, "tbl_social_indicators"),
+			Map.entry(ModelType.IMPACT_CATEGORY, "tbl_impact_categories"),
+			Map.entry(ModelType.IMPACT_METHOD, "tbl_impact_methods"),
+			Map.entry(ModelType.RESULT, "tbl_results"),
+			Map.entry(ModelType.EPD, "tbl_epds"),
+			Map.entry(ModelType.FLOW, "tbl_flows"),
+			Map.entry(ModelType.PROCESS, "tbl_processes"),
+			Map.entry(ModelType.PRODUCT_SYSTEM, "tbl_product_systems"),
+			Map.entry(ModelType.PROJECT, "tbl_projects"));
+
+	private final IDatabase database;
+	private final TypedRefIdMap<Long> refIdToId = new TypedRefIdMap<>();
+	private final TLongObjectHashMap<String> idToRefId = new TLongObjectHashMap<>();
+	private final TLongObjectHashMap<TLongHashSet> references = new TLongObjectHashMap<>();
+	private final TLongObjectHashMap<TLongHashSet> usages = new TLongObjectHashMap<>();
+	private final Map<String, Long> nameToParameter = new HashMap<>();
+	private TLongLongHashMap stamps = new TLongLongHashMap();
+
+	/**
+	 * When only the changed models are scanned, this contains the keys of
+	 * these models; it is null for a full scan.
+	 */
+	private TLongHashSet filter;
 
 	private ModelReferences(IDatabase database) {
 		this.database = database;
@@ -33,7 +94,19 @@ class ModelReferences {
 	public static ModelReferences scan(IDatabase database) {
 		var refs = new ModelReferences(database);
 		refs.init();
-		refs.scan();
+		var current = refs.readStamps();
+		var file = fileOf(database);
+		boolean changed;
+		if (file != null && refs.read(file)) {
+			changed = refs.update(current);
+		} else {
+			refs.scan();
+			changed = true;
+		}
+		refs.stamps = current;
+		if (changed && file != null) {
+			refs.write(file);
+		}
 		return refs;
 	}
 
@@ -52,22 +125,21 @@ class ModelReferences {
 		return get(usages, pair);
 	}
 
-	private Set<ModelReference> get(ReferenceMap map, TypedRefId pair) {
+	private Set<ModelReference> get(TLongObjectHashMap<TLongHashSet> map, TypedRefId pair) {
 		var refs = new HashSet<ModelReference>();
-		var typeMap = map.get(pair.type);
-		if (typeMap == null)
-			return refs;
 		var id = refIdToId.get(pair);
-		var idMap = typeMap.get(id);
-		if (idMap == null)
+		if (id == null)
 			return refs;
-		idMap.keySet().forEach(targetType -> idMap.get(targetType)
-				.forEach(targetId -> {
-					var refId = idToRefId.get(targetType).get(targetId);
-					if (!Strings.nullOrEmpty(refId)) {
-						refs.add(new ModelReference(targetType, targetId, refId));
-					}
-				}));
+		var targets = map.get(keyOf(pair.type, id));
+		if (targets == null)
+			return refs;
+		targets.forEach(target -> {
+			var refId = idToRefId.get(target);
+			if (!Strings.nullOrEmpty(refId)) {
+				refs.add(new ModelReference(typeOf(target), idOf(target), refId));
+			}
+			return true;
+		});
 		return refs;
 	}
 
@@ -79,6 +151,106 @@ class ModelReferences {
 		});
 	}
 
+	/**
+	 * Reads the stamps of all root entities: a value that changes when the
+	 * version or last change of an entity changes.
+	 */
+	private TLongLongHashMap readStamps() {
+		var current = new TLongLongHashMap();
+		ROOT_TABLES.forEach((type, table) -> {
+			var query = "SELECT id, version, last_change FROM " + table
+					+ (type == ModelType.PARAMETER ? " WHERE scope = 'GLOBAL'" : "");
+			NativeSql.on(database).query(query, rs -> {
+				long stamp = rs.getLong(3) ^ (rs.getLong(2) * 0x9E3779B97F4A7C15L);
+				current.put(keyOf(type, rs.getLong(1)), stamp);
+				return true;
+			});
+		});
+		return current;
+	}
+
+	/**
+	 * Updates the loaded references for the models that were added, changed,
+	 * or deleted since they were stored. Returns true if there were such
+	 * models.
+	 */
+	private boolean update(TLongLongHashMap current) {
+		var changed = new TLongHashSet();
+		current.forEachEntry((key, stamp) -> {
+			if (!stamps.containsKey(key) || stamps.get(key) != stamp) {
+				changed.add(key);
+			}
+			return true;
+		});
+		var deleted = new TLongHashSet();
+		stamps.forEachKey(key -> {
+			if (!current.containsKey(key)) {
+				deleted.add(key);
+			}
+			return true;
+		});
+		if (changed.isEmpty() && deleted.isEmpty())
+			return false;
+
+		// parameter redefinitions are linked by name, so that a changed global
+		// parameter can affect the references of unchanged models
+		boolean parameterChanged = false;
+		for (var key : union(changed, deleted).toArray()) {
+			if (typeOf(key) == ModelType.PARAMETER) {
+				parameterChanged = true;
+				break;
+			}
+		}
+		if (parameterChanged) {
+			clear();
+			scan();
+			return true;
+		}
+
+		for (var key : union(changed, deleted).toArray()) {
+			removeReferencesOf(key);
+		}
+		deleted.forEach(key -> {
+			idToRefId.remove(key);
+			return true;
+		});
+		filter = changed;
+		try {
+			scan();
+		} finally {
+			filter = null;
+		}
+		return true;
+	}
+
+	private TLongHashSet union(TLongHashSet a, TLongHashSet b) {
+		var union = new TLongHashSet(a);
+		union.addAll(b);
+		return union;
+	}
+
+	private void clear() {
+		idToRefId.clear();
+		references.clear();
+		usages.clear();
+	}
+
+	private void removeReferencesOf(long source) {
+		var targets = references.remove(source);
+		if (targets == null)
+			return;
+		targets.forEach(target -> {
+			var sources = usages.get(target);
+			if (sources != null) {
+				sources.remove(source);
+				if (sources.isEmpty()) {
+					usages.remove(target);
+				}
+			}
+			return true;
+		});
+	}
+
 	private void scan() {
 		scanLocations();
 		scanSources();
@@ -138,6 +310,9 @@ class ModelReferences {
 	}
 
 	private void scanGlobalParameters() {
+		// a changed parameter always results in a full scan, see update
+		if (filter != null)
+			return;
 		var query = "SELECT id, ref_id FROM tbl_parameters WHERE scope = 'GLOBAL'";
 		NativeSql.on(database).query(query, rs -> {
 			var id = rs.getLong(1);
@@ -192,14 +367,14 @@ class ModelReferences {
 				new ModelField(ModelType.DQ_SYSTEM, "f_exchange_dq_system"),
 				new ModelField(ModelType.DQ_SYSTEM, "f_social_dq_system"));
 		scanTable("tbl_process_docs", false,
-				new ModelField(ModelType.PROCESS, "id", docsToProcess::get),
+				new ModelField(ModelType.PROCESS, "id", docsToProcess),
 				new ModelField(ModelType.ACTOR, "f_reviewer"),
 				new ModelField(ModelType.ACTOR, "f_data_documentor"),
 				new ModelField(ModelType.ACTOR, "f_data_generator"),
 				new ModelField(ModelType.ACTOR, "f_dataset_owner"),
 				new ModelField(ModelType.SOURCE, "f_publication"));
 		scanTable("tbl_source_links", false,
-				new ModelField(ModelType.PROCESS, "f_owner", docsToProcess::get),
+				new ModelField(ModelType.PROCESS, "f_owner", docsToProcess),
 				new ModelField(ModelType.SOURCE, "f_source"));
 		scanTable("tbl_exchanges", false,
 				new ModelField(ModelType.PROCESS, "f_owner"),
@@ -219,7 +394,7 @@ class ModelReferences {
 				new ModelField(ModelType.PROCESS, "f_provider"));
 		var setToSystem = scanTable("tbl_parameter_redef_sets", false, "id",
 				new ModelField(ModelType.PRODUCT_SYSTEM, "f_product_system"));
-		scanParameterRedefs(ModelType.PRODUCT_SYSTEM, setToSystem::get);
+		scanParameterRedefs(ModelType.PRODUCT_SYSTEM, setToSystem);
 	}
 
 	private void scanProjects() {
@@ -229,7 +404,7 @@ class ModelReferences {
 		var variantToProject = scanTable("tbl_project_variants", false, "id",
 				new ModelField(ModelType.PROJECT, "f_project"),
 				new ModelField(ModelType.PRODUCT_SYSTEM, "f_product_system"));
-		scanParameterRedefs(ModelType.PROJECT, variantToProject::get);
+		scanParameterRedefs(ModelType.PROJECT, variantToProject);
 	}
 
 	private void scanEpds() {
@@ -259,16 +434,28 @@ class ModelReferences {
 				new ModelField(ModelType.IMPACT_CATEGORY, "f_impact_category"));
 	}
 
-	private void scanParameterRedefs(ModelType ownerType, Function<Long, Long> mediator) {
+	private void scanParameterRedefs(ModelType ownerType, Map<Long, Long> mediator) {
 		var query = "SELECT f_owner,name FROM tbl_parameter_redefs WHERE context_type IS NULL";
+		if (filter != null) {
+			for (var ids : batchesOf(mediator.keySet())) {
+				scanParameterRedefs(ownerType, mediator, query + " AND f_owner IN (" + ids + ")");
+			}
+		} else {
+			scanParameterRedefs(ownerType, mediator, query);
+		}
+	}
+
+	private void scanParameterRedefs(ModelType ownerType, Map<Long, Long> mediator, String query) {
 		NativeSql.on(database).query(query, rs -> {
 			var ownerId = rs.getLong(1);
-			var actualOwnerId = mediator.apply(ownerId);
+			var actualOwnerId = mediator.get(ownerId);
 			if (actualOwnerId == null)
 				return true;
 			var name = rs.getString(2);
 			var parameterId = nameToParameter.get(name);
-			putRef(ownerType, ownerId, ModelType.PARAMETER, parameterId);
+			if (parameterId != null) {
+				putRef(ownerType, actualOwnerId, ModelType.PARAMETER, parameterId);
+			}
 			return true;
 		});
 	}
@@ -295,7 +482,10 @@ class ModelReferences {
 				map.put(ids[col++], sourceId);
 			}
 			if (source.mediator != null) {
-				sourceId = source.mediator.apply(sourceId);
+				var mediated = source.mediator.get(sourceId);
+				if (mediated == null)
+					return;
+				sourceId = mediated;
 			}
 			if (targets == null)
 				return;
@@ -304,7 +494,10 @@ class ModelReferences {
 				if (targetId == 0l)
 					continue;
 				if (target.mediator != null) {
-					targetId = target.mediator.apply(targetId);
+					var mediated = target.mediator.get(targetId);
+					if (mediated == null)
+						continue;
+					targetId = mediated;
 				}
 				putRef(source.type, sourceId, target.type, targetId);
 			}
@@ -323,14 +516,31 @@ class ModelReferences {
 		var query = "SELECT " + fields.stream().collect(Collectors.joining(","))
 				+ (isRootEntity ? ",ref_id " : "")
 				+ " FROM " + table;
+		if (filter == null) {
+			query(query, isRootEntity, sourceField, fields.size(), handler);
+			return;
+		}
+
+		// only the rows of the changed models are scanned
+		var sourceIds = sourceField.mediator != null
+				? sourceField.mediator.keySet()
+				: idsOf(sourceField.type);
+		for (var ids : batchesOf(sourceIds)) {
+			var filtered = query + " WHERE " + sourceField.field + " IN (" + ids + ")";
+			query(filtered, isRootEntity, sourceField, fields.size(), handler);
+		}
+	}
+
+	private void query(String query, boolean isRootEntity, ModelField sourceField, int fieldCount,
+			ResultHandler handler) {
 		NativeSql.on(database).query(query, rs -> {
-			var ids = new long[fields.size()];
-			for (var i = 0; i < fields.size(); i++) {
+			var ids = new long[fieldCount];
+			for (var i = 0; i < fieldCount; i++) {
 				ids[i] += rs.getLong(i + 1);
 			}
 			var id = ids[0];
 			if (isRootEntity) {
-				var refId = rs.getString(fields.size() + 1);
+				var refId = rs.getString(fieldCount + 1);
 				putRefId(sourceField.type, id, refId);
 			}
 			handler.handle(ids);
@@ -338,33 +548,180 @@ class ModelReferences {
 		});
 	}
 
+	/**
+	 * Returns the IDs of the changed models of the given type.
+	 */
+	private Set<Long> idsOf(ModelType type) {
+		var ids = new HashSet<Long>();
+		filter.forEach(key -> {
+			if (typeOf(key) == type) {
+				ids.add(idOf(key));
+			}
+			return true;
+		});
+		return ids;
+	}
+
+	private static List<String> batchesOf(Set<Long> ids) {
+		var batches = new ArrayList<String>();
+		var list = new StringBuilder();
+		int count = 0;
+		for (var id : ids) {
+			if (count > 0) {
+				list.append(',');
+			}
+			list.append(id);
+			count++;
+			if (count == BATCH_SIZE) {
+				batches.add(list.toString());
+				list.setLength(0);
+				count = 0;
+			}
+		}
+		if (count > 0) {
+			batches.add(list.toString());
+		}
+		return batches;
+	}
+
 	private void putRef(ModelType sourceType, long sourceId, ModelType targetType, long targetId) {
-		references.computeIfAbsent(sourceType, t -> new HashMap<>())
-				.computeIfAbsent(sourceId, t -> new EnumMap<>(ModelType.class))
-				.computeIfAbsent(targetType, t -> new HashSet<>())
-				.add(targetId);
-		usages.computeIfAbsent(targetType, t -> new HashMap<>())
-				.computeIfAbsent(targetId, t -> new EnumMap<>(ModelType.class))
-				.computeIfAbsent(sourceType, t -> new HashSet<>())
-				.add(sourceId);
+		var source = keyOf(sourceType, sourceId);
+		var target = keyOf(targetType, targetId);
+		put(references, source, target);
+		put(usages, target, source);
+	}
+
+	private static void put(TLongObjectHashMap<TLongHashSet> map, long key, long value) {
+		var set = map.get(key);
+		if (set == null) {
+			set = new TLongHashSet(4);
+			map.put(key, set);
+		}
+		set.add(value);
 	}
 
 	private void putRefId(ModelType type, long id, String refId) {
 		refIdToId.put(new TypedRefId(type, refId), id);
-		idToRefId.computeIfAbsent(type, t -> new HashMap<>()).put(id, refId);
+		idToRefId.put(keyOf(type, id), refId);
+	}
+
+	private static long keyOf(ModelType type, long id) {
+		return ((long) type.ordinal() << TYPE_SHIFT) | (id & ID_MASK);
+	}
+
+	private static ModelType typeOf(long key) {
+		return TYPES[(int) (key >>> TYPE_SHIFT)];
+	}
+
+	private static long idOf(long key) {
+		return key & ID_MASK;
+	}
+
+	private static File fileOf(IDatabase database) {
+		if (database == null)
+			return null;
+		var gitDir = Repository.gitDir(database.getName());
+		return gitDir.isDirectory()
+				? new File(gitDir, FILE_NAME)
+				: null;
+	}
+
+	/**
+	 * Reads the stored references. Returns false if there is no such file or
+	 * if it was written for another schema or format version.
+	 */
+	private boolean read(File file) {
+		if (!file.exists())
+			return false;
+		try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FORMAT_VERSION || in.readInt() != database.getVersion())
+				return false;
+
+			// the model types are stored by name, as their ordinals can change
+			var types = new ModelType[in.readInt()];
+			for (int i = 0; i < types.length; i++) {
+				types[i] = ModelType.valueOf(in.readUTF());
+			}
+
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				long key = keyOf(types, in.readLong());
+				putRefId(typeOf(key), idOf(key), in.readUTF());
+			}
+			count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				stamps.put(keyOf(types, in.readLong()), in.readLong());
+			}
+			count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				long source = keyOf(types, in.readLong());
+				int n = in.readInt();
+				for (int j = 0; j < n; j++) {
+					long target = keyOf(types, in.readLong());
+					put(references, source, target);
+					put(usages, target, source);
+				}
+			}
+			return true;
+		} catch (Exception e) {
+			LoggerFactory.getLogger(getClass()).warn("failed to read model references", e);
+			refIdToId.clear();
+			clear();
+			stamps.clear();
+			return false;
+		}
+	}
+
+	private static long keyOf(ModelType[] types, long storedKey) {
+		return keyOf(types[(int) (storedKey >>> TYPE_SHIFT)], idOf(storedKey));
+	}
+
+	private void write(File file) {
+		try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(database.getVersion());
+			out.writeInt(TYPES.length);
+			for (var type : TYPES) {
+				out.writeUTF(type.name());
+			}
+			out.writeInt(idToRefId.size());
+			for (var it = idToRefId.iterator(); it.hasNext(); ) {
+				it.advance();
+				out.writeLong(it.key());
+				out.writeUTF(it.value() != null ? it.value() : "");
+			}
+			out.writeInt(stamps.size());
+			for (var it = stamps.iterator(); it.hasNext(); ) {
+				it.advance();
+				out.writeLong(it.key());
+				out.writeLong(it.value());
+			}
+			out.writeInt(references.size());
+			for (var it = references.iterator(); it.hasNext(); ) {
+				it.advance();
+				out.writeLong(it.key());
+				out.writeInt(it.value().size());
+				for (var target : it.value().toArray()) {
+					out.writeLong(target);
+				}
+			}
+		} catch (Exception e) {
+			LoggerFactory.getLogger(getClass()).warn("failed to write model references", e);
+			file.delete();
+		}
 	}
 
 	private class ModelField {
 
 		private final ModelType type;
 		private final String field;
-		private final Function<Long, Long> mediator;
+		private final Map<Long, Long> mediator;
 
 		private ModelField(ModelType type, String field) {
 			this(type, field, null);
 		}
 
-		private ModelField(ModelType type, String field, Function<Long, Long> mediator) {
+		private ModelField(ModelType type, String field, Map<Long, Long> mediator) {
 			this.type = type;
 			this.field = field;
 			this.mediator = mediator;
@@ -383,16 +740,6 @@ class ModelReferences {
 
 	}
 
-	private class ReferenceMap extends EnumMap<ModelType, Map<Long, EnumMap<ModelType, Set<Long>>>> {
-
-		private static final long serialVersionUID = 8651176950184800797L;
-
-		public ReferenceMap() {
-			super(ModelType.class);
-		}
-
-	}
-
 	private interface ResultHandler {
 
 		void handle(long[] ids);
@@ -1,7 +1,11 @@
 package org.openlca.app.collaboration.util;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Stack;
@@ -17,6 +21,8 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.TypeAdapter;
 
+import gnu.trove.list.array.TIntArrayList;
+
 public class Json {
 
 	private static final Gson gson = new Gson();
@@ -112,9 +118,10 @@ public class Json {
 			return false;
 		var it1 = a1.iterator();
 		var used = new HashSet<Integer>();
+		var index2 = finder.index(property, a2);
 		while (it1.hasNext()) {
 			var e1 = it1.next();
-			var index = finder.find(property, e1, a2, used);
+			var index = index2.find(e1, used);
 			if (index == -1)
 				return false;
 			var e2 = a2.get(index);
@@ -421,6 +428,81 @@ public class Json {
 			return Json.find(element, array, exclude, getComparisonFields(property));
 		}
 
+		/**
+		 * Creates an index of the elements of the given array by their
+		 * comparison fields. Use this instead of {@link #find} when several
+		 * elements are searched in the same array.
+		 */
+		public ElementIndex index(String property, JsonArray array) {
+			return new ElementIndex(array, getComparisonFields(property));
+		}
+
+	}
+
+	/**
+	 * An index of the elements of an array by the values of their comparison
+	 * fields. It finds the same elements as {@link Json#find} but with a hash
+	 * lookup instead of a linear search. The indices of elements with the
+	 * same key are kept in array order; when an index is searched with an
+	 * exclusion set, that set may only grow between the searches, as the
+	 * excluded positions are skipped only once.
+	 */
+	public static class ElementIndex {
+
+		private final String[] fields;
+		private final Map<List<String>, Entries> objects = new HashMap<>();
+		private final Map<JsonPrimitive, Entries> primitives = new HashMap<>();
+
+		private ElementIndex(JsonArray array, String[] fields) {
+			this.fields = fields;
+			if (array == null)
+				return;
+			for (int i = 0; i < array.size(); i++) {
+				var e = array.get(i);
+				if (e == null)
+					continue;
+				if (e.isJsonPrimitive()) {
+					primitives.computeIfAbsent(e.getAsJsonPrimitive(), $ -> new Entries()).add(i);
+				} else if (e.isJsonObject() && fields != null) {
+					var key = Arrays.asList(getValues(e.getAsJsonObject(), fields));
+					objects.computeIfAbsent(key, $ -> new Entries()).add(i);
+				}
+			}
+		}
+
+		public int find(JsonElement element, Set<Integer> exclude) {
+			if (element == null)
+				return -1;
+			if (element.isJsonPrimitive()) {
+				// like Json.find, primitives are matched without exclusions
+				var entries = primitives.get(element.getAsJsonPrimitive());
+				return entries != null ? entries.first(null) : -1;
+			}
+			if (fields == null || !element.isJsonObject())
+				return -1;
+			var key = Arrays.asList(getValues(element.getAsJsonObject(), fields));
+			var entries = objects.get(key);
+			return entries != null ? entries.first(exclude) : -1;
+		}
+
+		private static class Entries {
+
+			private final TIntArrayList indices = new TIntArrayList(1);
+			private int cursor;
+
+			void add(int index) {
+				indices.add(index);
+			}
+
+			int first(Set<Integer> exclude) {
+				if (exclude == null)
+					return indices.get(0);
+				while (cursor < indices.size() && exclude.contains(indices.get(cursor))) {
+					cursor++;
+				}
+				return cursor < indices.size() ? indices.get(cursor) : -1;
+			}
+		}
 	}
 
 }
@@ -105,7 +105,7 @@ class MenuBar extends Composite {
 	}
 
 	private boolean areRootsEqual() {
-		for (var node : root.children)
+		for (var node : root.children())
 			if (!node.hasEqualValues())
 				return false;
 		return true;
@@ -1,6 +1,5 @@
 package org.openlca.app.collaboration.viewers.json;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -11,7 +10,6 @@ import org.openlca.app.util.Popup;
 class MenuBarActions {
 
 	private JsonNode root;
-	private List<JsonNode> nodes = new ArrayList<>();
 	private IDependencyResolver dependencyResolver;
 	private JsonViewer leftTree;
 	private JsonViewer rightTree;
@@ -22,14 +20,6 @@ class MenuBarActions {
 		this.leftTree = leftTree;
 		this.rightTree = rightTree;
 		this.dependencyResolver = dependencyResolver;
-		addChildrenToList(root);
-	}
-
-	private void addChildrenToList(JsonNode node) {
-		node.children.forEach(child -> {
-			nodes.add(child);
-			addChildrenToList(child);
-		});
 	}
 
 	void copySelection() {
@@ -37,7 +27,7 @@ class MenuBarActions {
 	}
 
 	void copyAll() {
-		applySelection(root.children, false);
+		applySelection(root.children(), false);
 	}
 
 	void resetSelection() {
@@ -45,60 +35,122 @@ class MenuBarActions {
 	}
 
 	void resetAll() {
-		applySelection(root.children, true);
+		applySelection(root.children(), true);
 	}
 
+	/**
+	 * Selects the next node with different values in the order of the tree.
+	 * The nodes are visited lazily: the sub-trees of nodes with equal values
+	 * are skipped, so that only the necessary nodes are created.
+	 */
 	void selectNext() {
 		var selected = getLastSelected();
-		var node = findNext(selected + 1, nodes.size());
-		if (node == null) {
-			node = findNext(0, selected);
+		var node = findNext(selected);
+		if (node == null && selected != null) {
+			node = findNext(null);
 		}
 		select(node);
 	}
 
 	void selectPrevious() {
 		var selected = getLastSelected();
-		if (selected == -1) {
-			selected = nodes.size();
-		}
-		var node = findPrevious(selected - 1, -1);
-		if (node == null) {
-			node = findPrevious(nodes.size() - 1, selected);
+		var node = findPrevious(selected);
+		if (node == null && selected != null) {
+			node = findPrevious(null);
 		}
 		select(node);
 	}
 
-	private int getLastSelected() {
+	private JsonNode getLastSelected() {
 		var selection = leftTree.getSelection();
 		if (selection == null || selection.isEmpty())
-			return -1;
-		var last = selection.get(selection.size() - 1);
-		return nodes.indexOf(last);
-	}
-
-	private JsonNode findNext(int index, int limit) {
-		JsonNode select = null;
-		while (select == null && index < limit) {
-			var node = nodes.get(index);
-			if (!node.hasEqualValues()) {
-				select = node;
-			}
-			index++;
+			return null;
+		return selection.get(selection.size() - 1);
+	}
+
+	/**
+	 * Finds the next node with different values after the given node in
+	 * pre-order, or from the start of the tree when the given node is null.
+	 */
+	private JsonNode findNext(JsonNode from) {
+		var node = from == null
+				? first(root)
+				: successor(from, !from.hasEqualValues());
+		while (node != null) {
+			if (!node.hasEqualValues())
+				return node;
+			node = successor(node, false);
+		}
+		return null;
+	}
+
+	private JsonNode first(JsonNode node) {
+		var children = node.children();
+		return children.isEmpty() ? null : children.get(0);
+	}
+
+	private JsonNode successor(JsonNode node, boolean descend) {
+		if (descend) {
+			var first = first(node);
+			if (first != null)
+				return first;
+		}
+		while (node != null && node != root && node.parent != null) {
+			var siblings = node.parent.children();
+			int i = siblings.indexOf(node);
+			if (i >= 0 && i + 1 < siblings.size())
+				return siblings.get(i + 1);
+			node = node.parent;
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the previous node with different values before the given node in
+	 * pre-order, or from the end of the tree when the given node is null.
+	 */
+	private JsonNode findPrevious(JsonNode from) {
+		JsonNode node;
+		if (from == null) {
+			var children = root.children();
+			node = children.isEmpty()
+					? null
+					: enter(children.get(children.size() - 1));
+		} else {
+			node = predecessor(from);
+		}
+		while (node != null) {
+			if (!node.hasEqualValues())
+				return node;
+			node = predecessor(node);
 		}
-		return select;
+		return null;
+	}
+
+	private JsonNode predecessor(JsonNode node) {
+		if (node == null || node == root || node.parent == null)
+			return null;
+		var siblings = node.parent.children();
+		int i = siblings.indexOf(node);
+		if (i > 0)
+			return enter(siblings.get(i - 1));
+		return node.parent != root
+				? node.parent
+				: null;
 	}
 
-	private JsonNode findPrevious(int index, int limit) {
-		JsonNode select = null;
-		while (select == null && index > limit) {
-			var node = nodes.get(index);
-			if (!node.hasEqualValues()) {
-				select = node;
-			}
-			index--;
+	/**
+	 * Returns the last node of the given sub-tree in pre-order; sub-trees of
+	 * nodes with equal values are not entered.
+	 */
+	private JsonNode enter(JsonNode node) {
+		while (!node.hasEqualValues()) {
+			var children = node.children();
+			if (children.isEmpty())
+				break;
+			node = children.get(children.size() - 1);
 		}
-		return select;
+		return node;
 	}
 
 	private void select(JsonNode node) {
@@ -142,7 +194,7 @@ class MenuBarActions {
 		var dependent = dependencyResolver.resolve(node);
 		if (dependent == null)
 			return Collections.emptyList();
-		return node.parent.children.stream()
+		return node.parent.children().stream()
 				.filter(child -> dependent.contains(child.property))
 				.distinct()
 				.toList();
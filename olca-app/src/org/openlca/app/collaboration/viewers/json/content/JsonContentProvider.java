@@ -24,7 +24,7 @@ public class JsonContentProvider implements ITreeContentProvider {
 			return new Object[0];
 		if (!(array[0] instanceof JsonNode))
 			return new Object[0];
-		return ((JsonNode) array[0]).children.toArray();
+		return ((JsonNode) array[0]).children().toArray();
 	}
 
 	@Override
@@ -32,7 +32,7 @@ public class JsonContentProvider implements ITreeContentProvider {
 		if (!(parentElement instanceof JsonNode))
 			return null;
 		var node = (JsonNode) parentElement;
-		return node.children.toArray();
+		return node.children().toArray();
 	}
 
 	@Override
@@ -46,7 +46,7 @@ public class JsonContentProvider implements ITreeContentProvider {
 		if (!(element instanceof JsonNode))
 			return false;
 		var node = (JsonNode) element;
-		return !node.children.isEmpty();
+		return !node.children().isEmpty();
 	}
 
 }
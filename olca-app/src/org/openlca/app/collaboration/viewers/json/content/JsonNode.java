@@ -1,6 +1,5 @@
 package org.openlca.app.collaboration.viewers.json.content;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -8,6 +7,7 @@ import java.util.Set;
 import org.eclipse.jgit.diff.DiffEntry.Side;
 import org.openlca.app.collaboration.util.Json;
 import org.openlca.app.collaboration.util.Json.ElementFinder;
+import org.openlca.app.collaboration.util.Json.ElementIndex;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -20,31 +20,45 @@ public class JsonNode {
 	public JsonElement left;
 	public final JsonElement right;
 	public final boolean readOnly;
-	public final List<JsonNode> children = new ArrayList<>();
 	public final JsonElement original;
 	private final ElementFinder elementFinder;
+	private final JsonNodeBuilder builder;
+	private List<JsonNode> children;
 
 	static JsonNode createReadOnly(JsonNode parent, String property, JsonElement left, JsonElement right,
-			ElementFinder elementFinder) {
-		return new JsonNode(parent, property, left, right, elementFinder, true);
+			JsonNodeBuilder builder) {
+		return new JsonNode(parent, property, left, right, builder, true);
 	}
 
 	static JsonNode createEditable(JsonNode parent, String property, JsonElement left, JsonElement right,
-			ElementFinder elementFinder) {
-		return new JsonNode(parent, property, left, right, elementFinder, false);
+			JsonNodeBuilder builder) {
+		return new JsonNode(parent, property, left, right, builder, false);
 	}
 
 	private JsonNode(JsonNode parent, String property, JsonElement leftElement,
-			JsonElement rightElement, ElementFinder elementFinder, boolean readOnly) {
+			JsonElement rightElement, JsonNodeBuilder builder, boolean readOnly) {
 		this.parent = parent;
 		this.property = property;
 		this.left = leftElement;
 		this.right = rightElement;
 		this.original = left != null ? Json.deepCopy(left) : null;
-		this.elementFinder = elementFinder;
+		this.builder = builder;
+		this.elementFinder = builder.elementFinder;
 		this.readOnly = readOnly;
 	}
 
+	/**
+	 * Returns the child nodes of this node. The child nodes are created when
+	 * they are requested for the first time, e.g. when the node is expanded
+	 * in a viewer.
+	 */
+	public List<JsonNode> children() {
+		if (children == null) {
+			children = builder.buildChildren(this);
+		}
+		return children;
+	}
+
 	public JsonElement element() {
 		if (left != null)
 			return left;
@@ -72,6 +86,8 @@ public class JsonNode {
 	public void setValue(JsonElement toSet, boolean leftToRight) {
 		if (parent.left == null)
 			return;
+		// the children need to be created from the current values
+		children();
 		var current = this.left;
 		this.left = toSet;
 		if (parent != null) {
@@ -114,17 +130,23 @@ public class JsonNode {
 	}
 
 	private void updateChildren(boolean leftToRight) {
-		if (children.isEmpty())
+		if (children().isEmpty())
 			return;
 		var assigned = new HashSet<Integer>();
+		var index = left != null && left.isJsonArray()
+				? elementFinder.index(property, left.getAsJsonArray())
+				: null;
 		children.forEach(child -> {
-			var element = getElement(child, leftToRight, assigned);
+			// create the grand children before the value of the child changes
+			child.children();
+			var element = getElement(child, leftToRight, index, assigned);
 			child.left = element;
 			child.updateChildren(leftToRight);
 		});
 	}
 
-	private JsonElement getElement(JsonNode node, boolean leftToRight, Set<Integer> assigned) {
+	private JsonElement getElement(JsonNode node, boolean leftToRight, ElementIndex elementIndex,
+			Set<Integer> assigned) {
 		if (left == null)
 			return null;
 		if (left.isJsonObject())
@@ -134,7 +156,7 @@ public class JsonNode {
 		var toFind = leftToRight
 				? node.original
 				: node.right;
-		var index = elementFinder.find(property, toFind, left.getAsJsonArray(), assigned);
+		var index = elementIndex.find(toFind, assigned);
 		if (index == -1)
 			return null;
 		assigned.add(index);
@@ -1,8 +1,9 @@
 package org.openlca.app.collaboration.viewers.json.content;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.jgit.diff.DiffEntry.Side;
@@ -13,50 +14,59 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+/**
+ * Builds the node tree of two JSON elements. Only the root node is created
+ * directly; the child nodes of a node are created when they are requested,
+ * see {@link JsonNode#children()}.
+ */
 public abstract class JsonNodeBuilder implements Comparator<JsonNode> {
 
-	private ElementFinder elementFinder;
+	final ElementFinder elementFinder;
 
 	public JsonNodeBuilder(ElementFinder elementFinder) {
 		this.elementFinder = elementFinder;
 	}
 
 	public JsonNode build(JsonElement leftJson, JsonElement rightJson) {
-		var node = JsonNode.createEditable(null, null, leftJson, rightJson, elementFinder);
-		build(node, leftJson, rightJson);
-		sort(node);
-		return node;
+		return JsonNode.createEditable(null, null, leftJson, rightJson, this);
 	}
 
-	private void build(JsonNode node, JsonElement leftValue, JsonElement rightValue) {
+	List<JsonNode> buildChildren(JsonNode node) {
+		var children = new ArrayList<JsonNode>();
+		var leftValue = node.left;
+		var rightValue = node.right;
 		if (leftValue != null) {
-			build(node, leftValue, rightValue, Side.OLD);
+			build(node, children, leftValue, rightValue, Side.OLD);
 		} else if (rightValue != null) {
-			build(node, leftValue, rightValue, Side.NEW);
+			build(node, children, leftValue, rightValue, Side.NEW);
 		}
+		children.sort(this);
+		return children;
 	}
 
-	private void build(JsonNode node, JsonElement leftValue, JsonElement rightValue, Side side) {
+	private void build(JsonNode node, List<JsonNode> children, JsonElement leftValue, JsonElement rightValue,
+			Side side) {
 		var toCheck = side == Side.OLD ? leftValue : rightValue;
 		if (toCheck.isJsonObject()) {
-			build(node, Json.toJsonObject(leftValue), Json.toJsonObject(rightValue));
+			build(node, children, Json.toJsonObject(leftValue), Json.toJsonObject(rightValue));
 		}
 		if (toCheck.isJsonArray()) {
-			build(node, Json.toJsonArray(leftValue), Json.toJsonArray(rightValue));
+			build(node, children, Json.toJsonArray(leftValue), Json.toJsonArray(rightValue));
 		}
 	}
 
-	private void build(JsonNode node, JsonObject leftValue, JsonObject rightValue) {
+	private void build(JsonNode node, List<JsonNode> children, JsonObject leftValue, JsonObject rightValue) {
 		var added = new HashSet<String>();
 		if (leftValue != null) {
-			buildChildren(node, leftValue, rightValue, added, Side.OLD);
+			buildChildren(node, children, leftValue, rightValue, added, Side.OLD);
 		}
 		if (rightValue != null) {
-			buildChildren(node, rightValue, leftValue, added, Side.NEW);
+			buildChildren(node, children, rightValue, leftValue, added, Side.NEW);
 		}
 	}
 
-	private void buildChildren(JsonNode node, JsonObject json, JsonObject other, Set<String> added, Side side) {
+	private void buildChildren(JsonNode node, List<JsonNode> children, JsonObject json, JsonObject other,
+			Set<String> added, Side side) {
 		json.entrySet().stream()
 				.filter(child -> side == Side.OLD || !added.contains(child.getKey()))
 				.forEach(child -> {
@@ -65,63 +75,64 @@ public abstract class JsonNodeBuilder implements Comparator<JsonNode> {
 						otherValue = other.get(child.getKey());
 					}
 					if (side == Side.OLD) {
-						build(node, child.getKey(), child.getValue(), otherValue);
+						build(node, children, child.getKey(), child.getValue(), otherValue);
 						added.add(child.getKey());
 					} else {
-						build(node, child.getKey(), otherValue, child.getValue());
+						build(node, children, child.getKey(), otherValue, child.getValue());
 					}
 				});
 	}
 
-	private void build(JsonNode node, JsonArray leftValue, JsonArray rightValue) {
+	private void build(JsonNode node, List<JsonNode> children, JsonArray leftValue, JsonArray rightValue) {
 		if (isReadOnly(node))
 			return;
 		var added = new HashSet<Integer>();
 		if (leftValue != null) {
-			buildChildren(node, leftValue, rightValue, Side.OLD, added);
+			buildChildren(node, children, leftValue, rightValue, Side.OLD, added);
 		}
 		if (rightValue != null) {
-			buildChildren(node, rightValue, leftValue, Side.NEW, added);
+			buildChildren(node, children, rightValue, leftValue, Side.NEW, added);
 		}
 	}
 
-	private void buildChildren(JsonNode node, JsonArray array, JsonArray otherArray, Side side, Set<Integer> added) {
+	private void buildChildren(JsonNode node, List<JsonNode> children, JsonArray array, JsonArray otherArray,
+			Side side, Set<Integer> added) {
 		var count = 0;
-		var counter = node.children.size() + 1;
+		var counter = children.size() + 1;
+		// the elements of the other array are matched via their keys; the new
+		// elements are only added when they were not matched before
+		var otherIndex = side == Side.OLD && otherArray != null
+				? elementFinder.index(node.property, otherArray)
+				: null;
 		for (var value : array) {
 			if (side == Side.NEW && added.contains(count++))
 				continue;
 			JsonElement otherValue = null;
-			var index = elementFinder.find(node.property, value, otherArray, added);
-			if (side == Side.OLD && index != -1) {
-				otherValue = otherArray.get(index);
-				added.add(index);
+			if (otherIndex != null) {
+				var index = otherIndex.find(value, added);
+				if (index != -1) {
+					otherValue = otherArray.get(index);
+					added.add(index);
+				}
 			}
 			var leftValue = side == Side.OLD ? value : otherValue;
 			var rightValue = side == Side.OLD ? otherValue : value;
 			var property = Integer.toString(counter++);
 			var childNode = isReadOnly(node)
-					? JsonNode.createReadOnly(node, property, leftValue, rightValue, elementFinder)
-					: JsonNode.createEditable(node, property, leftValue, rightValue, elementFinder);
-			build(childNode, leftValue, rightValue);
-			node.children.add(childNode);
+					? JsonNode.createReadOnly(node, property, leftValue, rightValue, this)
+					: JsonNode.createEditable(node, property, leftValue, rightValue, this);
+			children.add(childNode);
 		}
 	}
 
-	private JsonNode build(JsonNode parent, String property, JsonElement leftValue, JsonElement rightValue) {
+	private void build(JsonNode parent, List<JsonNode> children, String property, JsonElement leftValue,
+			JsonElement rightValue) {
 		if (skip(parent, property))
-			return null;
+			return;
 		var childNode = isReadOnly(parent)
-				? JsonNode.createReadOnly(parent, property, leftValue, rightValue, elementFinder)
-				: JsonNode.createEditable(parent, property, leftValue, rightValue, elementFinder);
-		parent.children.add(childNode);
-		build(childNode, leftValue, rightValue);
-		return childNode;
-	}
-
-	private void sort(JsonNode node) {
-		Collections.sort(node.children, this);
-		node.children.forEach(child -> sort(child));
+				? JsonNode.createReadOnly(parent, property, leftValue, rightValue, this)
+				: JsonNode.createEditable(parent, property, leftValue, rightValue, this);
+		children.add(childNode);
 	}
 
 	protected abstract boolean skip(JsonNode parent, String property);
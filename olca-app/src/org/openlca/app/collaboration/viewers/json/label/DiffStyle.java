@@ -1,6 +1,8 @@
 package org.openlca.app.collaboration.viewers.json.label;
 
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 import org.eclipse.jface.viewers.StyledString;
 import org.eclipse.jgit.diff.DiffEntry.Side;
@@ -8,8 +10,27 @@ import org.openlca.app.collaboration.viewers.json.label.DiffMatchPatch.Diff;
 import org.openlca.app.collaboration.viewers.json.label.DiffMatchPatch.Operation;
 import org.openlca.app.util.Colors;
 
+/**
+ * Highlights the differences of two texts. The differences are calculated
+ * with a timeout and are cached, so that both sides of a comparison are
+ * styled with the same (and a single) calculation.
+ */
 public class DiffStyle {
 
+	/** The maximum number of cached diffs. */
+	private static final int CACHE_SIZE = 32;
+
+	/** The timeout of a diff calculation in seconds. */
+	private static final float TIMEOUT = 0.5f;
+
+	private static final Map<Key, LinkedList<Diff>> cache = new LinkedHashMap<>(
+			CACHE_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, LinkedList<Diff>> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
 	private ColorStyler deleteStyler = new ColorStyler().background(Colors.get(255, 230, 230)).strikeout();
 	private ColorStyler insertStyler = new ColorStyler().background(Colors.get(230, 255, 230));
 	private ColorStyler defaultStyler = new ColorStyler().background(Colors.get(240, 240, 240));
@@ -37,15 +58,25 @@ public class DiffStyle {
 	}
 
 	private LinkedList<Diff> getDiffs(String text, String otherText, Side side) {
-		LinkedList<Diff> diffs = null;
-		var dmp = new DiffMatchPatch();
-		if (side == Side.OLD) {
-			diffs = dmp.diff_main(text, otherText);
-		} else {
-			diffs = dmp.diff_main(otherText, text);
+		var key = side == Side.OLD
+				? new Key(text, otherText)
+				: new Key(otherText, text);
+		synchronized (cache) {
+			var cached = cache.get(key);
+			if (cached != null)
+				return cached;
 		}
+		var dmp = new DiffMatchPatch();
+		dmp.Diff_Timeout = TIMEOUT;
+		var diffs = dmp.diff_main(key.left, key.right);
 		dmp.diff_cleanupSemantic(diffs);
+		synchronized (cache) {
+			cache.put(key, diffs);
+		}
 		return diffs;
 	}
 
+	private record Key(String left, String right) {
+	}
+
 }
@@ -1,8 +1,5 @@
 package org.openlca.app.components;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.widgets.Display;
@@ -25,17 +22,13 @@ public class UncertaintyShell {
 		shell.open();
 
 		new Thread(() -> {
-			List<Double> values = new ArrayList<>();
 			for (int i = 0; i < 1000; i++) {
-				values.add(fun.next());
+				double value = fun.next();
 				if (!shell.isDisposed())
 					display.syncExec(() -> {
 						if (shell.isDisposed())
 							return;
-						double[] vals = values.stream()
-								.mapToDouble(Double::doubleValue)
-								.toArray();
-						canvas.setValues(vals);
+						canvas.add(value);
 					});
 			}
 			if (!display.isDisposed()) {
@@ -1,5 +1,8 @@
 package org.openlca.app.components.mapview;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.swt.graphics.Color;
 import org.openlca.app.util.Colors;
 import org.openlca.geo.geojson.Feature;
@@ -7,7 +10,18 @@ import org.openlca.geo.geojson.FeatureCollection;
 
 public class LayerConfig {
 
+	/** The number of zoom levels for which the projections are cached. */
+	private static final int CACHED_ZOOMS = 4;
+
 	final FeatureCollection layer;
+	private final Map<Integer, LayerProjection> projections = new LinkedHashMap<>(
+			CACHED_ZOOMS, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<Integer, LayerProjection> eldest) {
+			return size() > CACHED_ZOOMS;
+		}
+	};
 
 	private Color borderColor;
 	private Color fillColor;
@@ -90,6 +104,15 @@ public class LayerConfig {
 		return center;
 	}
 
+	/**
+	 * Returns the projection of the layer for the given zoom level. The
+	 * projections of the last used zoom levels are cached.
+	 */
+	LayerProjection projection(int zoom) {
+		return projections.computeIfAbsent(
+				zoom, z -> LayerProjection.of(layer, z));
+	}
+
 	private static class ColorScale {
 
 		private final double refVal;
@@ -0,0 +1,306 @@
+package org.openlca.app.components.mapview;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.openlca.geo.calc.WebMercator;
+import org.openlca.geo.geojson.Feature;
+import org.openlca.geo.geojson.FeatureCollection;
+import org.openlca.geo.geojson.Geometry;
+import org.openlca.geo.geojson.GeometryCollection;
+import org.openlca.geo.geojson.LineString;
+import org.openlca.geo.geojson.MultiLineString;
+import org.openlca.geo.geojson.MultiPoint;
+import org.openlca.geo.geojson.MultiPolygon;
+import org.openlca.geo.geojson.Point;
+import org.openlca.geo.geojson.Polygon;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * The projection of a layer for a zoom level. The geometries of the layer are
+ * projected to pixel coordinates and simplified with the Douglas-Peucker
+ * algorithm, so that vertices that are closer than half a pixel to the
+ * simplified line are dropped. The resulting shapes are indexed in a grid of
+ * cells to quickly find the shapes that intersect a given pixel area.
+ */
+class LayerProjection {
+
+	/** The size of the grid cells in pixels. */
+	static final int CELL_SIZE = 256;
+
+	/** The simplification tolerance in pixels. */
+	private static final double TOLERANCE = 0.5;
+
+	/**
+	 * Shapes that span more grid cells than this are not indexed but always
+	 * tested for intersection (e.g. the oceans of the base layers).
+	 */
+	private static final int MAX_CELLS = 64;
+
+	final int zoom;
+	private final List<Shape> shapes = new ArrayList<>();
+	private final TLongObjectHashMap<TIntArrayList> grid = new TLongObjectHashMap<>();
+	private final TIntArrayList large = new TIntArrayList();
+
+	private LayerProjection(int zoom) {
+		this.zoom = zoom;
+	}
+
+	static LayerProjection of(FeatureCollection layer, int zoom) {
+		var projection = new LayerProjection(zoom);
+		if (layer == null)
+			return projection;
+		var projected = WebMercator.project(layer, zoom);
+		int n = Math.min(layer.features.size(), projected.features.size());
+		for (int i = 0; i < n; i++) {
+			// the projected features are copies; the shapes keep the original
+			// features for the styling of the layer
+			var feature = layer.features.get(i);
+			var geometry = projected.features.get(i).geometry;
+			projection.add(feature, geometry);
+		}
+		projection.index();
+		return projection;
+	}
+
+	private void add(Feature feature, Geometry g) {
+		if (g == null)
+			return;
+		if (g instanceof Point p) {
+			shapes.add(Shape.point(feature, p));
+		} else if (g instanceof MultiPoint mp) {
+			for (var p : mp.points) {
+				shapes.add(Shape.point(feature, p));
+			}
+		} else if (g instanceof LineString line) {
+			shapes.add(Shape.line(feature, line, false));
+		} else if (g instanceof MultiLineString ml) {
+			for (var line : ml.lineStrings) {
+				shapes.add(Shape.line(feature, line, false));
+			}
+		} else if (g instanceof Polygon polygon) {
+			addPolygon(feature, polygon);
+		} else if (g instanceof MultiPolygon mp) {
+			for (var polygon : mp.polygons) {
+				addPolygon(feature, polygon);
+			}
+		} else if (g instanceof GeometryCollection coll) {
+			for (var gg : coll.geometries) {
+				add(feature, gg);
+			}
+		}
+	}
+
+	private void addPolygon(Feature feature, Polygon polygon) {
+		// only the outer ring is rendered, see MapView
+		if (polygon == null || polygon.rings.isEmpty())
+			return;
+		shapes.add(Shape.line(feature, polygon.rings.get(0), true));
+	}
+
+	private void index() {
+		for (int i = 0; i < shapes.size(); i++) {
+			var s = shapes.get(i);
+			if (s.coordinates.length == 0)
+				continue;
+			int minX = cellOf(s.minX);
+			int maxX = cellOf(s.maxX);
+			int minY = cellOf(s.minY);
+			int maxY = cellOf(s.maxY);
+			long cells = (long) (maxX - minX + 1) * (maxY - minY + 1);
+			if (cells > MAX_CELLS) {
+				large.add(i);
+				continue;
+			}
+			for (int x = minX; x <= maxX; x++) {
+				for (int y = minY; y <= maxY; y++) {
+					var list = grid.get(keyOf(x, y));
+					if (list == null) {
+						list = new TIntArrayList();
+						grid.put(keyOf(x, y), list);
+					}
+					list.add(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calls the given function for each shape that intersects the given pixel
+	 * area, in the order of the features of the layer.
+	 */
+	void forEach(double minX, double minY, double maxX, double maxY,
+			Consumer<Shape> fn) {
+		var candidates = new BitSet(shapes.size());
+		large.forEach(i -> {
+			candidates.set(i);
+			return true;
+		});
+		int cMinX = cellOf(minX);
+		int cMaxX = cellOf(maxX);
+		int cMinY = cellOf(minY);
+		int cMaxY = cellOf(maxY);
+		for (int x = cMinX; x <= cMaxX; x++) {
+			for (int y = cMinY; y <= cMaxY; y++) {
+				var list = grid.get(keyOf(x, y));
+				if (list == null)
+					continue;
+				list.forEach(i -> {
+					candidates.set(i);
+					return true;
+				});
+			}
+		}
+		for (int i = candidates.nextSetBit(0); i >= 0;
+				 i = candidates.nextSetBit(i + 1)) {
+			var s = shapes.get(i);
+			if (s.maxX < minX || s.minX > maxX || s.maxY < minY || s.minY > maxY)
+				continue;
+			fn.accept(s);
+		}
+	}
+
+	private static int cellOf(double pixel) {
+		return (int) Math.floor(pixel / CELL_SIZE);
+	}
+
+	private static long keyOf(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+
+	/**
+	 * A point, line, or polygon ring in projected pixel coordinates. The
+	 * coordinates are stored as [x0, y0, x1, y1, ...].
+	 */
+	static final class Shape {
+
+		static final int POINT = 0;
+		static final int LINE = 1;
+		static final int POLYGON = 2;
+
+		final Feature feature;
+		final int type;
+		final double[] coordinates;
+		final double minX, minY, maxX, maxY;
+
+		private Shape(Feature feature, int type, double[] coordinates) {
+			this.feature = feature;
+			this.type = type;
+			this.coordinates = coordinates;
+			double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+			double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+			for (int i = 0; i + 1 < coordinates.length; i += 2) {
+				minX = Math.min(minX, coordinates[i]);
+				maxX = Math.max(maxX, coordinates[i]);
+				minY = Math.min(minY, coordinates[i + 1]);
+				maxY = Math.max(maxY, coordinates[i + 1]);
+			}
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+		}
+
+		static Shape point(Feature feature, Point p) {
+			return new Shape(feature, POINT, new double[]{p.x, p.y});
+		}
+
+		static Shape line(Feature feature, LineString line, boolean isRing) {
+			return new Shape(
+					feature, isRing ? POLYGON : LINE, simplify(line));
+		}
+
+		/**
+		 * Translates the coordinates of this shape into integer pixels with the
+		 * given offset.
+		 */
+		int[] translate(double dx, double dy) {
+			var seq = new int[coordinates.length];
+			for (int i = 0; i + 1 < coordinates.length; i += 2) {
+				seq[i] = (int) (coordinates[i] + dx);
+				seq[i + 1] = (int) (coordinates[i + 1] + dy);
+			}
+			return seq;
+		}
+	}
+
+	/**
+	 * Simplifies the given line with the Douglas-Peucker algorithm; the first
+	 * and last point are always kept.
+	 */
+	private static double[] simplify(LineString line) {
+		if (line == null || line.points.isEmpty())
+			return new double[0];
+		int n = line.points.size();
+		if (n < 3) {
+			var seq = new double[2 * n];
+			for (int i = 0; i < n; i++) {
+				seq[2 * i] = line.points.get(i).x;
+				seq[2 * i + 1] = line.points.get(i).y;
+			}
+			return seq;
+		}
+
+		var keep = new boolean[n];
+		keep[0] = true;
+		keep[n - 1] = true;
+		var stack = new TIntArrayList();
+		stack.add(0);
+		stack.add(n - 1);
+		while (!stack.isEmpty()) {
+			int last = stack.removeAt(stack.size() - 1);
+			int first = stack.removeAt(stack.size() - 1);
+			int index = -1;
+			double maxDist = TOLERANCE;
+			var a = line.points.get(first);
+			var b = line.points.get(last);
+			for (int i = first + 1; i < last; i++) {
+				double d = distance(line.points.get(i), a, b);
+				if (d > maxDist) {
+					maxDist = d;
+					index = i;
+				}
+			}
+			if (index < 0)
+				continue;
+			keep[index] = true;
+			stack.add(first);
+			stack.add(index);
+			stack.add(index);
+			stack.add(last);
+		}
+
+		int count = 0;
+		for (boolean k : keep) {
+			if (k) count++;
+		}
+		var seq = new double[2 * count];
+		int j = 0;
+		for (int i = 0; i < n; i++) {
+			if (!keep[i])
+				continue;
+			var p = line.points.get(i);
+			seq[j++] = p.x;
+			seq[j++] = p.y;
+		}
+		return seq;
+	}
+
+	/**
+	 * Returns the distance of the point p to the segment a-b.
+	 */
+	private static double distance(Point p, Point a, Point b) {
+		double dx = b.x - a.x;
+		double dy = b.y - a.y;
+		double len = dx * dx + dy * dy;
+		if (len == 0)
+			return Math.hypot(p.x - a.x, p.y - a.y);
+		double t = ((p.x - a.x) * dx + (p.y - a.y) * dy) / len;
+		t = Math.max(0, Math.min(1, t));
+		return Math.hypot(p.x - (a.x + t * dx), p.y - (a.y + t * dy));
+	}
+}
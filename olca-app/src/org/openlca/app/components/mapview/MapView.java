@@ -2,7 +2,9 @@ package org.openlca.app.components.mapview;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 import org.eclipse.swt.SWT;
@@ -10,35 +12,52 @@ import org.eclipse.swt.events.MouseAdapter;
 import org.eclipse.swt.events.MouseEvent;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
+import org.openlca.app.components.mapview.LayerProjection.Shape;
 import org.openlca.app.util.Colors;
 import org.openlca.geo.calc.Bounds;
 import org.openlca.geo.calc.WebMercator;
-import org.openlca.geo.geojson.Feature;
 import org.openlca.geo.geojson.FeatureCollection;
 import org.openlca.geo.geojson.GeoJSON;
-import org.openlca.geo.geojson.Geometry;
-import org.openlca.geo.geojson.GeometryCollection;
-import org.openlca.geo.geojson.LineString;
-import org.openlca.geo.geojson.MultiLineString;
-import org.openlca.geo.geojson.MultiPoint;
-import org.openlca.geo.geojson.MultiPolygon;
 import org.openlca.geo.geojson.Point;
-import org.openlca.geo.geojson.Polygon;
 import org.openlca.util.BinUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A canvas that renders layers of features in the Web Mercator projection.
+ * The map is rendered in tiles of 256x256 pixels that are cached as images,
+ * so that a pan or zoom back to a previous zoom level only renders the tiles
+ * that were not visible before. The tiles are rendered from the projections
+ * of the layers, which are simplified and cached per zoom level (see
+ * {@link LayerProjection}).
+ */
 public class MapView {
 
 	private final Canvas canvas;
 	private final Color white;
 
+	private static final int TILE_SIZE = LayerProjection.CELL_SIZE;
+
 	private List<LayerConfig> layers = new ArrayList<>();
-	private List<FeatureCollection> projections = new ArrayList<>();
+	private List<LayerProjection> projections = new ArrayList<>();
+
+	/** The minimum number of cached tiles; see render. */
+	private int maxTiles = 64;
+	private final Map<Tile, Image> tiles = new LinkedHashMap<>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Tile, Image> eldest) {
+			if (size() <= maxTiles)
+				return false;
+			eldest.getValue().dispose();
+			return true;
+		}
+	};
 
 	private final Translation translation = new Translation();
 	private int zoom = 0;
@@ -47,6 +66,7 @@ public class MapView {
 		this.canvas = new Canvas(parent, SWT.NONE);
 		this.white = canvas.getDisplay().getSystemColor(SWT.COLOR_WHITE);
 		canvas.addPaintListener(e -> render(e.gc));
+		canvas.addDisposeListener(e -> clearTiles());
 
 		// add mouse listeners
 		canvas.addMouseWheelListener(e -> {
@@ -61,6 +81,7 @@ public class MapView {
 	}
 
 	public void update() {
+		clearTiles();
 		canvas.redraw();
 		canvas.update();
 	}
@@ -84,15 +105,14 @@ public class MapView {
 	private void projectLayers() {
 		projections.clear();
 		for (LayerConfig config : layers) {
-			FeatureCollection projection = WebMercator.project(
-					config.layer, zoom);
-			projections.add(projection);
+			projections.add(config.projection(zoom));
 		}
 	}
 
 	public LayerConfig addLayer(FeatureCollection layer) {
 		LayerConfig config = new LayerConfig(layer);
 		layers.add(config);
+		clearTiles();
 		return config;
 	}
 
@@ -101,6 +121,14 @@ public class MapView {
 			return;
 		layers.remove(config);
 		projections.clear();
+		clearTiles();
+	}
+
+	private void clearTiles() {
+		for (var image : tiles.values()) {
+			image.dispose();
+		}
+		tiles.clear();
 	}
 
 	public void addBaseLayers() {
@@ -192,73 +220,69 @@ public class MapView {
 		if (projections.isEmpty())
 			return;
 
-		for (int i = 0; i < projections.size(); i++) {
-			LayerConfig config = layers.get(i);
-			gc.setForeground(config.getBorderColor());
-			FeatureCollection projection = projections.get(i);
-			for (Feature f : projection.features) {
-				if (!translation.visible(f)) {
-					continue;
-				}
-				render(gc, config, f, f.geometry);
+		// draw the visible tiles; keep at least two screens of tiles in the
+		// cache, so that pans within that range do not render tiles again
+		Bounds view = translation.view;
+		int minX = (int) Math.floor(view.minX / TILE_SIZE);
+		int maxX = (int) Math.floor(view.maxX / TILE_SIZE);
+		int minY = (int) Math.floor(view.minY / TILE_SIZE);
+		int maxY = (int) Math.floor(view.maxY / TILE_SIZE);
+		maxTiles = Math.max(64, 2 * (maxX - minX + 1) * (maxY - minY + 1));
+		for (int x = minX; x <= maxX; x++) {
+			for (int y = minY; y <= maxY; y++) {
+				Image tile = tileOf(x, y);
+				gc.drawImage(tile,
+						(int) Math.floor(x * TILE_SIZE + translation.x),
+						(int) Math.floor(y * TILE_SIZE + translation.y));
 			}
 		}
 	}
 
-	private void render(GC gc, LayerConfig conf, Feature f, Geometry g) {
-		if (g == null)
-			return;
-
-		// points
-		if (g instanceof Point) {
-			renderPoint(gc, conf, f, (Point) g);
-			return;
-		}
-		if (g instanceof MultiPoint) {
-			MultiPoint mp = (MultiPoint) g;
-			for (Point p : mp.points) {
-				renderPoint(gc, conf, f, p);
-			}
-			return;
-		}
-
-		// lines
-		if (g instanceof LineString) {
-			renderLine(gc, conf, f, (LineString) g);
-			return;
-		}
-		if (g instanceof MultiLineString) {
-			MultiLineString ml = (MultiLineString) g;
-			for (LineString line : ml.lineStrings) {
-				renderLine(gc, conf, f, line);
+	private Image tileOf(int x, int y) {
+		var key = new Tile(zoom, x, y);
+		var image = tiles.get(key);
+		if (image != null)
+			return image;
+
+		image = new Image(canvas.getDisplay(), TILE_SIZE, TILE_SIZE);
+		GC gc = new GC(image);
+		try {
+			gc.setBackground(white);
+			gc.fillRectangle(0, 0, TILE_SIZE, TILE_SIZE);
+
+			// the margin contains the shapes of points and lines that start
+			// outside of the tile but are drawn into it
+			double originX = (double) x * TILE_SIZE;
+			double originY = (double) y * TILE_SIZE;
+			int margin = 6 + zoom;
+			for (int i = 0; i < projections.size(); i++) {
+				LayerConfig config = layers.get(i);
+				gc.setForeground(config.getBorderColor());
+				projections.get(i).forEach(
+						originX - margin, originY - margin,
+						originX + TILE_SIZE + margin, originY + TILE_SIZE + margin,
+						shape -> render(gc, config, shape, -originX, -originY));
 			}
-			return;
-		}
-
-		// polygons
-		if (g instanceof Polygon) {
-			renderPolygon(gc, conf, f, (Polygon) g);
-			return;
-		}
-		if (f.geometry instanceof MultiPolygon) {
-			MultiPolygon mp = (MultiPolygon) f.geometry;
-			for (Polygon polygon : mp.polygons) {
-				renderPolygon(gc, conf, f, polygon);
-			}
-			return;
+		} finally {
+			gc.dispose();
 		}
+		tiles.put(key, image);
+		return image;
+	}
 
-		if (g instanceof GeometryCollection) {
-			GeometryCollection coll = (GeometryCollection) g;
-			for (Geometry gg : coll.geometries) {
-				render(gc, conf, f, gg);
-			}
+	private void render(
+			GC gc, LayerConfig conf, Shape shape, double dx, double dy) {
+		int[] points = shape.translate(dx, dy);
+		switch (shape.type) {
+			case Shape.POINT -> renderPoint(gc, conf, shape, points);
+			case Shape.LINE -> renderLine(gc, points);
+			case Shape.POLYGON -> renderPolygon(gc, conf, shape, points);
 		}
 	}
 
-	private void renderPolygon(GC gc, LayerConfig conf, Feature f, Polygon polygon) {
-		int[] points = translation.translate(polygon);
-		Color fillColor = conf.getFillColor(f);
+	private void renderPolygon(
+			GC gc, LayerConfig conf, Shape shape, int[] points) {
+		Color fillColor = conf.getFillColor(shape.feature);
 		if (fillColor != null) {
 			gc.setBackground(fillColor);
 			gc.setAlpha(fillColor.getAlpha());
@@ -270,16 +294,14 @@ public class MapView {
 		gc.drawPolygon(points);
 	}
 
-	private void renderLine(GC gc, LayerConfig conf, Feature f, LineString line) {
-		int[] points = translation.translate(line);
+	private void renderLine(GC gc, int[] points) {
 		gc.setLineWidth(5 + zoom);
 		gc.drawPolyline(points);
 		gc.setLineWidth(1);
 	}
 
-	private void renderPoint(GC gc, LayerConfig conf, Feature f, Point point) {
-		int[] p = translation.translate(point);
-		Color fillColor = conf.getFillColor(f);
+	private void renderPoint(GC gc, LayerConfig conf, Shape shape, int[] p) {
+		Color fillColor = conf.getFillColor(shape.feature);
 		int r = 5 + zoom;
 		if (fillColor != null) {
 			gc.setBackground(fillColor);
@@ -289,6 +311,9 @@ public class MapView {
 		}
 	}
 
+	private record Tile(int zoom, int x, int y) {
+	}
+
 	/**
 	 * Translates between the projection and canvas pixels.
 	 */
@@ -336,40 +361,6 @@ public class MapView {
 			center.x = c.x;
 			center.y = c.y;
 		}
-
-		boolean visible(Feature f) {
-			if (f == null || f.geometry == null)
-				return false;
-			Bounds bounds = Bounds.of(f.geometry);
-			return bounds.intersects(view);
-		}
-
-		int[] translate(Polygon polygon) {
-			if (polygon == null || polygon.rings.size() < 1)
-				return new int[0];
-			LineString ring = polygon.rings.get(0);
-			return translate(ring);
-		}
-
-		int[] translate(LineString line) {
-			if (line == null)
-				return new int[0];
-			int[] seq = new int[line.points.size() * 2];
-			for (int i = 0; i < line.points.size(); i++) {
-				Point p = line.points.get(i);
-				seq[2 * i] = (int) (p.x + x);
-				seq[2 * i + 1] = (int) (p.y + y);
-			}
-			return seq;
-		}
-
-		int[] translate(Point point) {
-			if (point == null)
-				return new int[] { 0, 0 };
-			return new int[] {
-					(int) (point.x + x),
-					(int) (point.y + y) };
-		}
 	}
 
 	private class DragSupport extends MouseAdapter {
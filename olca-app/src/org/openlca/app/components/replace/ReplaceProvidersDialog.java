@@ -13,12 +13,12 @@ import org.eclipse.ui.forms.FormDialog;
 import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.openlca.app.M;
+import org.openlca.app.db.Cache;
 import org.openlca.app.db.Database;
 import org.openlca.app.util.MsgBox;
 import org.openlca.app.util.UI;
 import org.openlca.app.viewers.combo.FlowViewer;
 import org.openlca.app.viewers.combo.ProcessCombo;
-import org.openlca.core.database.FlowDao;
 import org.openlca.core.database.ProcessDao;
 import org.openlca.core.model.FlowType;
 import org.openlca.core.model.descriptors.FlowDescriptor;
@@ -131,10 +131,8 @@ public class ReplaceProvidersDialog extends FormDialog {
 
 	private List<ProcessDescriptor> getProviders(FlowDescriptor product) {
 		// TODO: search for processes and waste flows
-		FlowDao flowDao = new FlowDao(Database.get());
-		Set<Long> ids = flowDao.getWhereOutput(product.id);
-		ProcessDao processDao = new ProcessDao(Database.get());
-		var result = new ArrayList<>(processDao.getDescriptors(ids));
+		var result = new ArrayList<>(
+				Cache.getProviderIndex().withOutput(product.id));
 		result.remove(processViewer.getSelected());
 		return result;
 	}
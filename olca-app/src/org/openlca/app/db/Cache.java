@@ -1,5 +1,10 @@
 package org.openlca.app.db;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openlca.app.navigation.elements.ModelTypeSnapshot;
+import org.openlca.app.search.SearchIndex;
 import org.openlca.core.database.EntityCache;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.matrix.cache.MatrixCache;
@@ -17,6 +22,10 @@ public final class Cache {
 	private static AppCache appCache = new AppCache();
 	private static EntityCache entityCache;
 	private static MatrixCache matrixCache;
+	private static IDatabase db;
+	private static ProviderIndex providerIndex;
+	private static int providerIndexVersion;
+	private static final List<Descriptor> providerUpdates = new ArrayList<>();
 
 	private Cache() {
 	}
@@ -29,12 +38,95 @@ public final class Cache {
 		return matrixCache;
 	}
 
+	/**
+	 * Returns the provider index of the active database. The index is created
+	 * in the background and never in the calling thread. Until it is ready,
+	 * an index is returned that runs the lookups as per-flow queries on the
+	 * database.
+	 */
+	public static ProviderIndex getProviderIndex() {
+		IDatabase database;
+		synchronized (Cache.class) {
+			if (providerIndex != null)
+				return providerIndex;
+			database = db;
+		}
+		if (database == null)
+			return ProviderIndex.create(null, null);
+		CacheWarmUp.ensure(database);
+		return ProviderIndex.direct(database);
+	}
+
+	/**
+	 * Returns a version number that changes whenever the provider index is
+	 * evicted completely. It is used to detect evictions while an index is
+	 * created in the background.
+	 */
+	static synchronized int providerIndexVersion() {
+		return providerIndexVersion;
+	}
+
+	/**
+	 * Sets the provider index that was created in the background for the
+	 * given database. Processes and flows that were changed while the index
+	 * was created are updated in the index. Returns false if the database is
+	 * not active anymore or if the provider index was evicted since the given
+	 * version.
+	 */
+	static synchronized boolean setProviderIndex(
+			IDatabase database, ProviderIndex index, int version) {
+		if (database != db || version != providerIndexVersion)
+			return false;
+		if (providerIndex == null) {
+			for (var d : providerUpdates) {
+				updateProviders(index, d);
+			}
+			providerUpdates.clear();
+			providerIndex = index;
+		}
+		return true;
+	}
+
+	/**
+	 * Updates the given process or flow in the provider index. When the index
+	 * is currently created in the background, the update is applied when it
+	 * is ready.
+	 */
+	private static synchronized void updateProviderIndex(Descriptor d) {
+		ChangeStamp.bump();
+		if (db == null)
+			return;
+		if (providerIndex != null) {
+			updateProviders(providerIndex, d);
+		} else {
+			providerUpdates.add(d);
+		}
+	}
+
+	private static void updateProviders(ProviderIndex index, Descriptor d) {
+		if (d.type == ModelType.PROCESS) {
+			index.updateProcess(db, d.id);
+		} else if (d.type == ModelType.FLOW) {
+			index.updateFlow(db, d.id);
+		}
+	}
+
+	private static synchronized void evictProviderIndex() {
+		ChangeStamp.bump();
+		providerIndex = null;
+		providerUpdates.clear();
+		providerIndexVersion++;
+	}
+
 	public static void close() {
 		log.trace("close cache");
-		evictAll();
+		CacheWarmUp.cancel();
+		SearchIndex.close();
+		evictCaches();
 		entityCache = null;
 		matrixCache = null;
 		appCache = null;
+		db = null;
 	}
 
 	/**
@@ -44,9 +136,11 @@ public final class Cache {
 	public static void create(IDatabase database) {
 		log.trace("create cache");
 		close();
+		db = database;
 		entityCache = EntityCache.create(database);
 		matrixCache = MatrixCache.createLazy(database);
 		appCache = new AppCache();
+		SearchIndex.open(database);
 	}
 
 	public static AppCache getAppCache() {
@@ -57,6 +151,11 @@ public final class Cache {
 		if (d == null)
 			return;
 		log.trace("evict {} with ID {}", d.getClass(), d.id);
+		SearchIndex.update(d);
+		ModelTypeSnapshot.update(d);
+		if (d.type == ModelType.PROCESS || d.type == ModelType.FLOW) {
+			updateProviderIndex(d);
+		}
 		if (d.type == null)
 			evictAll(); // to be on the save side
 		else if (shouldEvictAll(d.type)) {
@@ -76,7 +175,16 @@ public final class Cache {
 				|| type == ModelType.CATEGORY;
 	}
 
+	/**
+	 * Evicts all caches. The provider index is then created again in the
+	 * background.
+	 */
 	public static void evictAll() {
+		evictCaches();
+		CacheWarmUp.start(db);
+	}
+
+	private static void evictCaches() {
 		log.trace("evict all from caches");
 		if (entityCache != null) {
 			entityCache.invalidateAll();
@@ -84,6 +192,9 @@ public final class Cache {
 		if (matrixCache != null) {
 			matrixCache.evictAll();
 		}
+		SearchIndex.invalidate();
+		ModelTypeSnapshot.clear();
+		evictProviderIndex();
 	}
 
 	private static void evictEntity(Descriptor d) {
@@ -107,6 +218,13 @@ public final class Cache {
 	}
 
 	public static void registerNew(Descriptor descriptor) {
+		SearchIndex.update(descriptor);
+		if (descriptor != null) {
+			ModelTypeSnapshot.update(descriptor);
+			if (descriptor.type == ModelType.PROCESS) {
+				updateProviderIndex(descriptor);
+			}
+		}
 		if (matrixCache == null)
 			return;
 		log.trace("register new model {}", descriptor);
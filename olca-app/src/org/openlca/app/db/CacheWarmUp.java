@@ -0,0 +1,116 @@
+package org.openlca.app.db;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.openlca.app.preferences.FeatureFlag;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.cache.FlowTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A background job that fills the tables of the matrix cache and the provider
+ * index after a database was activated, so that the first product system
+ * build or linking check does not need to wait for the table scans. When
+ * the cache snapshots are enabled, the provider index is read from (and
+ * written to) a snapshot in the database folder.
+ */
+class CacheWarmUp extends Job {
+
+	private static CacheWarmUp current;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final IDatabase db;
+
+	private CacheWarmUp(IDatabase db) {
+		super("Prepare calculation caches");
+		this.db = db;
+		setSystem(true);
+		setPriority(Job.LONG);
+	}
+
+	/**
+	 * Starts the warm-up of the caches of the given database. A running
+	 * warm-up of a previous database is canceled.
+	 */
+	static synchronized void start(IDatabase db) {
+		cancel();
+		if (db == null)
+			return;
+		current = new CacheWarmUp(db);
+		current.schedule();
+	}
+
+	/**
+	 * Starts the warm-up of the caches of the given database if it is not
+	 * already running for this database.
+	 */
+	static synchronized void ensure(IDatabase db) {
+		if (current != null
+				&& current.db == db
+				&& current.getState() != Job.NONE)
+			return;
+		start(db);
+	}
+
+	static synchronized void cancel() {
+		if (current != null) {
+			current.cancel();
+			current = null;
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		long start = System.currentTimeMillis();
+		try {
+			var matrixCache = Cache.getMatrixCache();
+			if (matrixCache == null)
+				return Status.CANCEL_STATUS;
+			var flowTypes = matrixCache.getFlowTable();
+			if (isStale(monitor))
+				return Status.CANCEL_STATUS;
+			warmUpProviders(flowTypes);
+			if (isStale(monitor))
+				return Status.CANCEL_STATUS;
+			matrixCache.getProcessTable();
+			if (isStale(monitor))
+				return Status.CANCEL_STATUS;
+			matrixCache.getConversionTable();
+			log.info("prepared caches of database {} in {} ms",
+					db.getName(), System.currentTimeMillis() - start);
+		} catch (Exception e) {
+			// the caches are then filled on demand
+			log.warn("failed to prepare caches of database " + db.getName(), e);
+		}
+		return Status.OK_STATUS;
+	}
+
+	private void warmUpProviders(FlowTable flowTypes) {
+		int version = Cache.providerIndexVersion();
+		boolean snapshots = FeatureFlag.CACHE_SNAPSHOTS.isEnabled();
+		ProviderIndex index = snapshots
+				? ProviderIndex.read(db)
+				: null;
+		boolean fromSnapshot = index != null;
+		if (index == null) {
+			index = ProviderIndex.create(db, flowTypes);
+		}
+		if (!Cache.setProviderIndex(db, index, version))
+			return;
+		log.debug("provider index ready (from snapshot = {})", fromSnapshot);
+		if (snapshots && !fromSnapshot) {
+			index.write(db);
+		}
+	}
+
+	/**
+	 * Returns true if the job was canceled or another database was activated
+	 * in the meantime.
+	 */
+	private boolean isStale(IProgressMonitor monitor) {
+		return monitor.isCanceled() || Database.get() != db;
+	}
+}
@@ -0,0 +1,70 @@
+package org.openlca.app.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.NativeSql;
+
+/**
+ * Stamps of the flow, process, and exchange tables of a database that are
+ * used to validate data that are derived from these tables. Exchanges are
+ * only modified together with their processes.
+ * <p>
+ * The persistent stamp {@link #of(IDatabase)} contains the row counts of the
+ * tables, so that it also changes when rows are deleted; it is used to
+ * validate snapshots, once per session. The session stamp
+ * {@link #current(IDatabase)} is checked more often; it is built from the
+ * maximum IDs and last change dates only, which do not need a scan of the
+ * exchanges table, and a counter that is increased by the {@link Cache}
+ * whenever a process or flow is changed or deleted.
+ */
+class ChangeStamp {
+
+	private static final AtomicLong changes = new AtomicLong();
+
+	private ChangeStamp() {
+	}
+
+	/**
+	 * Returns the stamp of the database tables. This stamp is stable across
+	 * application sessions and is used to validate snapshots.
+	 */
+	static String of(IDatabase db) {
+		var b = new StringBuilder();
+		append(db, b, "select count(*), max(id), max(last_change) from tbl_flows", 3);
+		append(db, b, "select count(*), max(id), max(last_change) from tbl_processes", 3);
+		append(db, b, "select count(*), max(id) from tbl_exchanges", 2);
+		return b.toString();
+	}
+
+	private static void append(
+			IDatabase db, StringBuilder b, String sql, int columns) {
+		NativeSql.on(db).query(sql, r -> {
+			for (int i = 1; i <= columns; i++) {
+				b.append(r.getLong(i)).append(i < columns ? ':' : ';');
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Returns a stamp of the maximum IDs and last change dates of the tables
+	 * together with the number of process and flow changes in this
+	 * application session. It is only valid within the session.
+	 */
+	static String current(IDatabase db) {
+		var b = new StringBuilder();
+		append(db, b, "select max(id), max(last_change) from tbl_flows", 2);
+		append(db, b, "select max(id), max(last_change) from tbl_processes", 2);
+		append(db, b, "select max(id) from tbl_exchanges", 1);
+		return b.append(changes.get()).toString();
+	}
+
+	/**
+	 * Increases the change counter; called by the cache when a process or
+	 * flow is changed, created, or deleted.
+	 */
+	static void bump() {
+		changes.incrementAndGet();
+	}
+}
@@ -68,6 +68,7 @@ public class Database {
 			Cache.create(database);
 			Repository.open(Repository.gitDir(database.getName()), database);
 			RcpWindowAdvisor.updateWindowTitle();
+			CacheWarmUp.start(database);
 		} catch (RuntimeException e) {
 			if (Repository.CURRENT != null) {
 				Repository.CURRENT.close();
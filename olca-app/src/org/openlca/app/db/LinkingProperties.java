@@ -1,7 +1,9 @@
 package org.openlca.app.db;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.database.NativeSql;
@@ -11,76 +13,182 @@ import org.openlca.core.model.FlowType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
 public class LinkingProperties {
 
+	private static Cached cached;
+
 	/**
 	 * Contains the IDs of product or waste flows that have more than one
 	 * provider. If this set is empty, there are no such flows in the database.
 	 */
-	public final Set<Long> multiProviderFlows = new HashSet<>();
+	public final TLongHashSet multiProviderFlows = new TLongHashSet();
 
 	/**
 	 * Contains the IDs of processes where product inputs or waste outputs are
 	 * __not__ linked to a default provider. If this set is empty, there are no
 	 * such unlinked processes in the database.
 	 */
-	public final Set<Long> processesWithoutProviders = new HashSet<>();
+	public final TLongHashSet processesWithoutProviders = new TLongHashSet();
 
+	/**
+	 * Checks the linking properties of the given database. The result is
+	 * cached and returned directly when the flow, process, and exchange
+	 * tables of the database did not change since the last check.
+	 */
 	public static LinkingProperties check(IDatabase db) {
-		LinkingProperties props = new LinkingProperties();
 		if (db == null)
-			return props;
-		new Check(db).doIt(props);
+			return new LinkingProperties();
+		var stamp = ChangeStamp.current(db);
+		var c = getCached(db, stamp);
+		if (c != null)
+			return c;
+		var props = new LinkingProperties();
+		var check = new Check(db);
+		check.doIt(props);
+		// a partial result of a failed check is not cached
+		if (!check.failed) {
+			synchronized (LinkingProperties.class) {
+				cached = new Cached(db, stamp, props);
+			}
+		}
 		return props;
 	}
 
+	/**
+	 * Returns the result of the last check of the given database if it is
+	 * still valid, or `null` otherwise. This does not run the check.
+	 */
+	public static LinkingProperties getCached(IDatabase db) {
+		return db != null
+				? getCached(db, ChangeStamp.current(db))
+				: null;
+	}
+
+	private static synchronized LinkingProperties getCached(
+			IDatabase db, String stamp) {
+		var c = cached;
+		return c != null && c.db == db && c.stamp.equals(stamp)
+				? c.props
+				: null;
+	}
+
+	private record Cached(IDatabase db, String stamp, LinkingProperties props) {
+	}
+
 	private static class Check {
 
+		/** The number of exchange ID ranges per worker thread. */
+		private static final int RANGES_PER_THREAD = 4;
+
 		final IDatabase db;
 		final FlowTable flowTypes;
 		final ProcessTable processes;
+		boolean failed;
 
 		Check(IDatabase db) {
 			this.db = db;
-			flowTypes = FlowTable.create(db);
-			processes = ProcessTable.create(db);
+			// reuse the tables of the matrix cache of the active database
+			var matrixCache = db == Database.get()
+					? Cache.getMatrixCache()
+					: null;
+			if (matrixCache != null) {
+				flowTypes = matrixCache.getFlowTable();
+				processes = matrixCache.getProcessTable();
+			} else {
+				flowTypes = FlowTable.create(db);
+				processes = ProcessTable.create(db);
+			}
 		}
 
 		void doIt(LinkingProperties props) {
+			long start = System.currentTimeMillis();
 			checkMultiProviders(props);
 			checkUnlinkedProcesses(props);
+			LoggerFactory.getLogger(LinkingProperties.class).debug(
+					"checked linking properties in {} ms",
+					System.currentTimeMillis() - start);
 		}
 
+		/**
+		 * Scans the exchanges table in ID ranges that are processed in
+		 * parallel.
+		 */
 		void checkUnlinkedProcesses(LinkingProperties props) {
+			long[] bounds = {0, -1};
+			NativeSql.on(db).query(
+					"select min(id), max(id) from tbl_exchanges", r -> {
+						bounds[0] = r.getLong(1);
+						bounds[1] = r.getLong(2);
+						return false;
+					});
+			long min = bounds[0];
+			long max = bounds[1];
+			if (max < min)
+				return;
+
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+			long count = max - min + 1;
+			int rangeCount = (int) Math.min(count, (long) threads * RANGES_PER_THREAD);
+			long rangeSize = (count + rangeCount - 1) / rangeCount;
+
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
 			try {
-				String sql = "select f_owner, f_flow, is_input, f_default_provider "
-						+ " from tbl_exchanges";
-				NativeSql.on(db).query(sql, r -> {
-					long flowID = r.getLong(2);
-					FlowType type = flowTypes.type(flowID);
-					boolean isInput = r.getBoolean(3);
-					if (!canHaveProvider(type, isInput))
-						return true;
-					long providerID = r.getLong(4);
-					if (providerID == 0
-							|| processes.getType(providerID) == null) {
-						props.processesWithoutProviders.add(r.getLong(1));
-					}
-					return true;
-				});
+				var futures = new ArrayList<Future<TLongHashSet>>();
+				for (long from = min; from <= max; from += rangeSize) {
+					long lower = from;
+					long upper = Math.min(max, from + rangeSize - 1);
+					futures.add(pool.submit(() -> scan(lower, upper)));
+				}
+				for (var future : futures) {
+					props.processesWithoutProviders.addAll(future.get());
+				}
 			} catch (Exception e) {
+				failed = true;
 				error("Failed to scan exchanges table", e);
+			} finally {
+				pool.shutdownNow();
 			}
 		}
 
+		private TLongHashSet scan(long lower, long upper) {
+			var ids = new TLongHashSet();
+			String sql = "select f_owner, f_flow, is_input, f_default_provider "
+					+ " from tbl_exchanges where id >= " + lower
+					+ " and id <= " + upper;
+			NativeSql.on(db).query(sql, r -> {
+				long flowID = r.getLong(2);
+				FlowType type = flowTypes.type(flowID);
+				boolean isInput = r.getBoolean(3);
+				if (!canHaveProvider(type, isInput))
+					return true;
+				long providerID = r.getLong(4);
+				if (providerID == 0
+						|| processes.getType(providerID) == null) {
+					ids.add(r.getLong(1));
+				}
+				return true;
+			});
+			return ids;
+		}
+
+		/**
+		 * Counts the providers of each flow in a single pass over the
+		 * providers of the process table.
+		 */
 		void checkMultiProviders(LinkingProperties props) {
-			for (var products : processes.getProviders()) {
-				long flowID = products.flowId();
-				var providers = processes.getProviders(flowID);
-				if (providers != null && providers.size() > 1) {
+			var counts = new TLongIntHashMap();
+			for (var provider : processes.getProviders()) {
+				counts.adjustOrPutValue(provider.flowId(), 1, 1);
+			}
+			counts.forEachEntry((flowID, count) -> {
+				if (count > 1) {
 					props.multiProviderFlows.add(flowID);
 				}
-			}
+				return true;
+			});
 		}
 
 		boolean canHaveProvider(FlowType type, boolean isInput) {
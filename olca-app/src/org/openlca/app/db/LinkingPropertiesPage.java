@@ -1,6 +1,8 @@
 package org.openlca.app.db;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jface.action.Action;
@@ -39,6 +41,8 @@ import org.openlca.core.model.descriptors.ProcessDescriptor;
 import org.openlca.core.model.descriptors.RootDescriptor;
 import org.openlca.util.Strings;
 
+import gnu.trove.set.hash.TLongHashSet;
+
 public class LinkingPropertiesPage extends SimpleFormEditor {
 
 	private LinkingProperties props;
@@ -139,7 +143,7 @@ public class LinkingPropertiesPage extends SimpleFormEditor {
 			TableViewer table = Tables.createViewer(comp, M.Process);
 			ProcessDao dao = new ProcessDao(Database.get());
 			List<ProcessDescriptor> list = dao.getDescriptors(
-					props.processesWithoutProviders);
+					idsOf(props.processesWithoutProviders));
 			fillTable(table, list);
 		}
 
@@ -154,10 +158,19 @@ public class LinkingPropertiesPage extends SimpleFormEditor {
 			TableViewer table = Tables.createViewer(comp, M.Flow);
 			FlowDao dao = new FlowDao(Database.get());
 			List<FlowDescriptor> list = dao.getDescriptors(
-					props.multiProviderFlows);
+					idsOf(props.multiProviderFlows));
 			fillTable(table, list);
 		}
 
+		private Set<Long> idsOf(TLongHashSet set) {
+			var ids = new HashSet<Long>(set.size());
+			set.forEach(id -> {
+				ids.add(id);
+				return true;
+			});
+			return ids;
+		}
+
 		private <T extends RootDescriptor> void fillTable(
 				TableViewer table, List<T> list) {
 			table.setLabelProvider(new TableLabel());
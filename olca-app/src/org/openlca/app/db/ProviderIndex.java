@@ -0,0 +1,393 @@
+package org.openlca.app.db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openlca.core.database.FlowDao;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.database.ProcessDao;
+import org.openlca.core.matrix.cache.FlowTable;
+import org.openlca.core.model.Exchange;
+import org.openlca.core.model.FlowType;
+import org.openlca.core.model.descriptors.ProcessDescriptor;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * An index of the processes in which a product or waste flow is used as input
+ * or output. It is created with a single scan of the exchanges table and
+ * replaces the per-flow queries of {@code FlowDao.getWhereInput/Output} when
+ * providers of many flows are searched. The index is managed by the
+ * {@link Cache} and is updated in place when a process or flow is saved,
+ * deleted, or created; for this, the flows of each process are indexed too.
+ * While the index is created in the background, the cache returns a direct
+ * index that runs the per-flow queries.
+ * <p>
+ * The flow-process relations of the index can be stored as a snapshot in the
+ * file storage folder of the database (see {@link CacheWarmUp}). A snapshot is
+ * only read when the change stamp of the flow, process, and exchange tables
+ * is the same as when it was written.
+ */
+public final class ProviderIndex {
+
+	private static final String FILE = "providers.index";
+	private static final int VERSION = 1;
+
+	private final TLongObjectHashMap<TLongHashSet> outputs = new TLongObjectHashMap<>();
+	private final TLongObjectHashMap<TLongHashSet> inputs = new TLongObjectHashMap<>();
+	private final TLongObjectHashMap<ProcessDescriptor> processes = new TLongObjectHashMap<>();
+
+	/** The product and waste flows of each process in the index. */
+	private final TLongObjectHashMap<TLongHashSet> processFlows = new TLongObjectHashMap<>();
+
+	/** The database of an index that queries the relations directly. */
+	private final IDatabase direct;
+
+	private ProviderIndex(IDatabase direct) {
+		this.direct = direct;
+	}
+
+	/**
+	 * Returns an index that answers the lookups with per-flow queries on the
+	 * given database. It is used while the index is created in the
+	 * background.
+	 */
+	static ProviderIndex direct(IDatabase db) {
+		return new ProviderIndex(db);
+	}
+
+	/**
+	 * Creates the index with the given flow table for the flow types, which
+	 * should be the table of the matrix cache of the database.
+	 */
+	static ProviderIndex create(IDatabase db, FlowTable flowTypes) {
+		var index = new ProviderIndex(null);
+		if (db == null)
+			return index;
+		long start = System.currentTimeMillis();
+		index.loadProcesses(db);
+		var sql = "select f_owner, f_flow, is_input from tbl_exchanges";
+		NativeSql.on(db).query(sql, r -> {
+			long flowId = r.getLong(2);
+			var type = flowTypes.type(flowId);
+			if (type == null || type == FlowType.ELEMENTARY_FLOW)
+				return true;
+			index.add(r.getBoolean(3), flowId, r.getLong(1));
+			return true;
+		});
+		LoggerFactory.getLogger(ProviderIndex.class).debug(
+				"created provider index in {} ms",
+				System.currentTimeMillis() - start);
+		return index;
+	}
+
+	/**
+	 * Reads the index from the snapshot in the file storage folder of the
+	 * database. Returns `null` if there is no valid snapshot.
+	 */
+	static ProviderIndex read(IDatabase db) {
+		if (db == null)
+			return null;
+		var file = fileOf(db);
+		if (!file.exists())
+			return null;
+		try (var in = new DataInputStream(new BufferedInputStream(
+				new GZIPInputStream(new FileInputStream(file))))) {
+			if (in.readInt() != VERSION)
+				return null;
+			if (!ChangeStamp.of(db).equals(in.readUTF()))
+				return null;
+			var index = new ProviderIndex(null);
+			readRelations(in, index.outputs);
+			readRelations(in, index.inputs);
+			index.indexProcessFlows(index.outputs);
+			index.indexProcessFlows(index.inputs);
+			index.loadProcesses(db);
+			return index;
+		} catch (Exception e) {
+			LoggerFactory.getLogger(ProviderIndex.class)
+					.warn("failed to read provider index " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the index as snapshot into the file storage folder of the
+	 * database.
+	 */
+	synchronized void write(IDatabase db) {
+		if (db == null)
+			return;
+		var file = fileOf(db);
+		try {
+			var dir = file.getParentFile();
+			if (!dir.exists()) {
+				dir.mkdirs();
+			}
+			try (var out = new DataOutputStream(new BufferedOutputStream(
+					new GZIPOutputStream(new FileOutputStream(file))))) {
+				out.writeInt(VERSION);
+				out.writeUTF(ChangeStamp.of(db));
+				writeRelations(out, outputs);
+				writeRelations(out, inputs);
+			}
+		} catch (Exception e) {
+			LoggerFactory.getLogger(ProviderIndex.class)
+					.error("failed to write provider index " + file, e);
+			file.delete();
+		}
+	}
+
+	private static File fileOf(IDatabase db) {
+		return new File(DatabaseDir.getFileStorageLocation(db), FILE);
+	}
+
+	private static void writeRelations(
+			DataOutputStream out, TLongObjectHashMap<TLongHashSet> map)
+			throws IOException {
+		out.writeInt(map.size());
+		for (var it = map.iterator(); it.hasNext(); ) {
+			it.advance();
+			out.writeLong(it.key());
+			var ids = it.value().toArray();
+			out.writeInt(ids.length);
+			for (long id : ids) {
+				out.writeLong(id);
+			}
+		}
+	}
+
+	private static void readRelations(
+			DataInputStream in, TLongObjectHashMap<TLongHashSet> map)
+			throws IOException {
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			long flowId = in.readLong();
+			int n = in.readInt();
+			var ids = new TLongHashSet(n);
+			for (int k = 0; k < n; k++) {
+				ids.add(in.readLong());
+			}
+			map.put(flowId, ids);
+		}
+	}
+
+	private void indexProcessFlows(TLongObjectHashMap<TLongHashSet> map) {
+		for (var it = map.iterator(); it.hasNext(); ) {
+			it.advance();
+			long flowId = it.key();
+			it.value().forEach(processId -> {
+				addTo(processFlows, processId, flowId);
+				return true;
+			});
+		}
+	}
+
+	private void loadProcesses(IDatabase db) {
+		for (var d : new ProcessDao(db).getDescriptors()) {
+			processes.put(d.id, d);
+		}
+	}
+
+	/**
+	 * Updates the relations and the descriptor of the process with the given
+	 * ID from the database, e.g. after the process was saved or deleted.
+	 */
+	synchronized void updateProcess(IDatabase db, long processId) {
+		removeProcess(processId);
+		var d = new ProcessDao(db).getDescriptor(processId);
+		if (d == null) {
+			processes.remove(processId);
+			return;
+		}
+		processes.put(processId, d);
+		var sql = "select e.f_flow, e.is_input, f.flow_type from tbl_exchanges e"
+				+ " inner join tbl_flows f on e.f_flow = f.id"
+				+ " where e.f_owner = " + processId;
+		NativeSql.on(db).query(sql, r -> {
+			var type = r.getString(3);
+			if (type == null || FlowType.ELEMENTARY_FLOW.name().equals(type))
+				return true;
+			add(r.getBoolean(2), r.getLong(1), processId);
+			return true;
+		});
+	}
+
+	/**
+	 * Updates the relations of the flow with the given ID from the database,
+	 * e.g. after the type of the flow was changed or the flow was deleted.
+	 */
+	synchronized void updateFlow(IDatabase db, long flowId) {
+		removeFlow(outputs, flowId);
+		removeFlow(inputs, flowId);
+		var type = new String[1];
+		NativeSql.on(db).query(
+				"select flow_type from tbl_flows where id = " + flowId, r -> {
+					type[0] = r.getString(1);
+					return false;
+				});
+		if (type[0] == null || FlowType.ELEMENTARY_FLOW.name().equals(type[0]))
+			return;
+		var sql = "select f_owner, is_input from tbl_exchanges"
+				+ " where f_flow = " + flowId;
+		NativeSql.on(db).query(sql, r -> {
+			add(r.getBoolean(2), flowId, r.getLong(1));
+			return true;
+		});
+	}
+
+	private void add(boolean isInput, long flowId, long processId) {
+		addTo(isInput ? inputs : outputs, flowId, processId);
+		addTo(processFlows, processId, flowId);
+	}
+
+	private static void addTo(
+			TLongObjectHashMap<TLongHashSet> map, long key, long value) {
+		var values = map.get(key);
+		if (values == null) {
+			values = new TLongHashSet();
+			map.put(key, values);
+		}
+		values.add(value);
+	}
+
+	/**
+	 * Removes the process from the relations of its flows only.
+	 */
+	private void removeProcess(long processId) {
+		var flows = processFlows.remove(processId);
+		if (flows == null)
+			return;
+		flows.forEach(flowId -> {
+			removeFrom(outputs, flowId, processId);
+			removeFrom(inputs, flowId, processId);
+			return true;
+		});
+	}
+
+	private void removeFlow(TLongObjectHashMap<TLongHashSet> map, long flowId) {
+		var owners = map.remove(flowId);
+		if (owners == null)
+			return;
+		owners.forEach(processId -> {
+			removeFrom(processFlows, processId, flowId);
+			return true;
+		});
+	}
+
+	private static void removeFrom(
+			TLongObjectHashMap<TLongHashSet> map, long key, long value) {
+		var values = map.get(key);
+		if (values != null && values.remove(value) && values.isEmpty()) {
+			map.remove(key);
+		}
+	}
+
+	/**
+	 * Returns the IDs of the processes that have the given product or waste
+	 * flow as output.
+	 */
+	public synchronized Set<Long> getWhereOutput(long flowId) {
+		if (direct != null)
+			return new FlowDao(direct).getWhereOutput(flowId);
+		return idsOf(outputs.get(flowId));
+	}
+
+	/**
+	 * Returns the IDs of the processes that have the given product or waste
+	 * flow as input.
+	 */
+	public synchronized Set<Long> getWhereInput(long flowId) {
+		if (direct != null)
+			return new FlowDao(direct).getWhereInput(flowId);
+		return idsOf(inputs.get(flowId));
+	}
+
+	/**
+	 * Returns the processes that have the given product or waste flow as
+	 * output.
+	 */
+	public synchronized List<ProcessDescriptor> withOutput(long flowId) {
+		if (direct != null)
+			return directDescriptorsOf(getWhereOutput(flowId));
+		return descriptorsOf(outputs.get(flowId));
+	}
+
+	/**
+	 * Returns the processes that have the given product or waste flow as
+	 * input.
+	 */
+	public synchronized List<ProcessDescriptor> withInput(long flowId) {
+		if (direct != null)
+			return directDescriptorsOf(getWhereInput(flowId));
+		return descriptorsOf(inputs.get(flowId));
+	}
+
+	/**
+	 * Returns the possible providers of the given exchange: the processes
+	 * with the flow of the exchange on the opposite side.
+	 */
+	public List<ProcessDescriptor> providersOf(Exchange e) {
+		if (e == null || e.flow == null)
+			return Collections.emptyList();
+		return e.isInput
+				? withOutput(e.flow.id)
+				: withInput(e.flow.id);
+	}
+
+	/**
+	 * Returns the descriptor of the process with the given ID from the index.
+	 */
+	public synchronized ProcessDescriptor getProcess(long id) {
+		if (direct != null)
+			return new ProcessDao(direct).getDescriptor(id);
+		return processes.get(id);
+	}
+
+	private List<ProcessDescriptor> directDescriptorsOf(Set<Long> ids) {
+		return ids.isEmpty()
+				? Collections.emptyList()
+				: new ProcessDao(direct).getDescriptors(ids);
+	}
+
+	private Set<Long> idsOf(TLongHashSet ids) {
+		if (ids == null)
+			return Collections.emptySet();
+		var set = new HashSet<Long>(ids.size());
+		ids.forEach(id -> {
+			set.add(id);
+			return true;
+		});
+		return set;
+	}
+
+	private List<ProcessDescriptor> descriptorsOf(TLongHashSet ids) {
+		if (ids == null)
+			return Collections.emptyList();
+		var list = new ArrayList<ProcessDescriptor>(ids.size());
+		ids.forEach(id -> {
+			var d = processes.get(id);
+			if (d != null) {
+				list.add(d);
+			}
+			return true;
+		});
+		return list;
+	}
+}
@@ -1,10 +1,15 @@
 package org.openlca.app.editors.graphical;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.gef.*;
 import org.eclipse.gef.ui.actions.ActionRegistry;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.*;
 import org.openlca.app.M;
 import org.openlca.app.db.Database;
@@ -16,6 +21,7 @@ import org.openlca.app.tools.graphics.actions.SaveImageAction;
 import org.openlca.app.editors.graphical.model.Graph;
 import org.openlca.app.editors.graphical.model.GraphFactory;
 import org.openlca.app.editors.systems.ProductSystemEditor;
+import org.openlca.app.util.ErrorReporter;
 import org.openlca.app.util.Labels;
 import org.openlca.app.util.Question;
 import org.openlca.app.util.UI;
@@ -360,6 +366,9 @@ public class GraphEditor extends GraphicalEditorWithFrame {
 		var stickyNoteArray = Json.getArray(rootObj, KEY_STICKY_NOTES);
 		var newGraph = getGraphFactory().createGraph(this, nodeArray,
 				stickyNoteArray);
+		if (nodeArray == null || stickyNoteArray == null) {
+			getGraphFactory().applyDefaults(newGraph);
+		}
 
 		setModel(newGraph);
 		getGraphicalViewer().setContents(newGraph);
@@ -367,12 +376,53 @@ public class GraphEditor extends GraphicalEditorWithFrame {
 		return newGraph;
 	}
 
+	/**
+	 * Creates the graph model in a background job and sets it as the contents
+	 * of the viewer when it is finished. Only the model is created in the
+	 * job; commands and configuration changes are executed in the UI thread.
+	 * The job can be canceled, the graph is then not shown.
+	 */
 	public void onFirstActivation() {
 		var nodeArray = GraphFile.getLayout(this, KEY_NODES);
 		var stickyNoteArray = GraphFile.getLayout(this, KEY_STICKY_NOTES);
-		var graph = getGraphFactory().createGraph(this, nodeArray, stickyNoteArray);
+		boolean withDefaults = nodeArray == null || stickyNoteArray == null;
+		var display = Display.getCurrent();
+		var job = new Job("Create graph model") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+				try {
+					var graph = getGraphFactory().createGraph(
+							GraphEditor.this, nodeArray, stickyNoteArray);
+					if (monitor.isCanceled())
+						return Status.CANCEL_STATUS;
+					if (display != null && !display.isDisposed()) {
+						display.asyncExec(() -> showGraph(graph, withDefaults));
+					}
+					return Status.OK_STATUS;
+				} catch (Exception e) {
+					ErrorReporter.on("Failed to create graph model", e);
+					return Status.CANCEL_STATUS;
+				} finally {
+					monitor.done();
+				}
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+
+	private void showGraph(Graph graph, boolean withDefaults) {
+		var viewer = getGraphicalViewer();
+		if (graph == null || viewer == null
+				|| viewer.getControl() == null
+				|| viewer.getControl().isDisposed())
+			return;
+		if (withDefaults) {
+			getGraphFactory().applyDefaults(graph);
+		}
 		setModel(graph);
-		getGraphicalViewer().setContents(graph);
+		viewer.setContents(graph);
 		getZoomManager().setZoom(config.zoom(), false);
 		getZoomManager().getViewport().setViewLocation(config.viewLocation());
 	}
@@ -1,6 +1,8 @@
 package org.openlca.app.editors.graphical;
 
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -183,6 +185,27 @@ public final class GraphFile {
 		return info;
 	}
 
+	/**
+	 * Converts the given array of node layouts into layout infos that are
+	 * indexed by the reference IDs of the nodes. The order of the array is
+	 * preserved.
+	 */
+	public static Map<String, NodeLayoutInfo> toNodeLayoutInfos(
+		JsonArray array) {
+		var infos = new LinkedHashMap<String, NodeLayoutInfo>();
+		if (array == null)
+			return infos;
+		for (var elem : array) {
+			if (!elem.isJsonObject())
+				continue;
+			var info = toNodeLayoutInfo(elem.getAsJsonObject());
+			if (info == null || info.id == null)
+				continue;
+			infos.putIfAbsent(info.id, info);
+		}
+		return infos;
+	}
+
 	public static StickyNoteLayoutInfo toStickyNoteLayoutInfo(JsonObject obj) {
 		if (obj == null)
 			return null;
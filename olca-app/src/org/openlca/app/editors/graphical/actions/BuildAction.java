@@ -2,13 +2,13 @@ package org.openlca.app.editors.graphical.actions;
 
 import org.eclipse.gef.GraphicalViewer;
 import org.eclipse.gef.ui.actions.WorkbenchPartAction;
+import org.openlca.app.db.Cache;
 import org.openlca.app.db.Database;
 import org.openlca.app.editors.graphical.GraphEditor;
 import org.openlca.app.editors.graphical.edit.NodeEditPart;
 import org.openlca.app.editors.graphical.model.Graph;
 import org.openlca.app.editors.graphical.requests.ExpandCollapseRequest;
 import org.openlca.app.tools.graphics.model.Side;
-import org.openlca.core.database.FlowDao;
 import org.openlca.core.database.ProcessDao;
 import org.openlca.core.matrix.linking.ProviderLinking;
 import org.openlca.core.model.Exchange;
@@ -22,7 +22,6 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import static org.openlca.app.tools.graphics.model.Component.CHILDREN_PROP;
 
@@ -33,7 +32,6 @@ public abstract class BuildAction extends WorkbenchPartAction {
 	protected Map<Exchange, Process> mapExchangeToProcess;
 	protected ProcessType preferredType;
 	protected ProviderLinking providers;
-	protected final FlowDao flowDao = new FlowDao(Database.get());
 	protected final ProcessDao processDao = new ProcessDao(Database.get());
 
 	public BuildAction(GraphEditor part) {
@@ -60,11 +58,11 @@ public abstract class BuildAction extends WorkbenchPartAction {
 		if (providers == ProviderLinking.ONLY_DEFAULTS) {
 			if (e.defaultProviderId == 0L)
 				return null;
-			return processDao.getDescriptor(e.defaultProviderId);
+			return getDefaultProvider(e);
 		}
 		if (providers == ProviderLinking.PREFER_DEFAULTS
 				&& e.defaultProviderId != 0L)
-			return processDao.getDescriptor(e.defaultProviderId);
+			return getDefaultProvider(e);
 
 		ProcessDescriptor bestMatch = null;
 		for (var d : getProviders(e)) {
@@ -77,13 +75,21 @@ public abstract class BuildAction extends WorkbenchPartAction {
 		return bestMatch;
 	}
 
+	private ProcessDescriptor getDefaultProvider(Exchange e) {
+		var d = Cache.getProviderIndex().getProcess(e.defaultProviderId);
+		return d != null
+				? d
+				: processDao.getDescriptor(e.defaultProviderId);
+	}
+
+	/**
+	 * Returns the possible providers of the given exchange from the shared
+	 * provider index of the database.
+	 */
 	protected List<ProcessDescriptor> getProviders(Exchange e) {
 		if (e == null || e.flow == null)
 			return Collections.emptyList();
-		Set<Long> providerIds = e.isInput
-				? flowDao.getWhereOutput(e.flow.id)
-				: flowDao.getWhereInput(e.flow.id);
-		return processDao.getDescriptors(providerIds);
+		return Cache.getProviderIndex().providersOf(e);
 	}
 
 	protected ProcessLink createLink(
@@ -7,9 +7,9 @@ import org.eclipse.gef.commands.CompoundCommand;
 import org.eclipse.gef.ui.actions.StackAction;
 import org.openlca.app.M;
 import org.openlca.app.editors.graphical.GraphEditor;
+import org.openlca.app.editors.graphical.model.commands.MassExpandCommand;
 import org.openlca.app.editors.graphical.requests.ExpandCollapseRequest;
 import org.openlca.app.rcp.images.Icon;
-import org.openlca.app.tools.graphics.model.Side;
 import org.openlca.app.util.Question;
 
 import static org.openlca.app.editors.graphical.requests.GraphRequestConstants.*;
@@ -27,7 +27,7 @@ import static org.openlca.app.tools.graphics.model.Component.CHILDREN_PROP;
  */
 public class MassExpansionAction extends StackAction {
 
-	static final int NODE_LIMITATION = 250;
+	static final int NODE_LIMITATION = 2500;
 	public static final int EXPAND = 1;
 	public static final int COLLAPSE = 2;
 	private final int type;
@@ -77,15 +77,7 @@ public class MassExpansionAction extends StackAction {
 		}
 
 		else if (type == EXPAND) {
-			for (var node : editor.getModel().getNodes()) {
-				if (!node.isExpanded(Side.INPUT)
-					|| !node.isExpanded(Side.OUTPUT)) {
-					var editPart = (EditPart) viewer.getEditPartRegistry().get(node);
-					var request = new ExpandCollapseRequest(node, REQ_EXPAND, true);
-					if (editPart != null)
-						cc.add(editPart.getCommand(request));
-				}
-			}
+			cc.add(new MassExpandCommand(editor.getModel()));
 		}
 
 		return cc.unwrap();
@@ -101,7 +93,9 @@ public class MassExpansionAction extends StackAction {
 
 		if (doIt)	{
 			execute(getCommand());
-			graph.firePropertyChange(CHILDREN_PROP, null, null);
+			// the mass expansion fires the property change itself
+			if (type == COLLAPSE)
+				graph.firePropertyChange(CHILDREN_PROP, null, null);
 		}
 
 		editor.updateStackActions();
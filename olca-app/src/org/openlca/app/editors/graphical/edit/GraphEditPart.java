@@ -1,13 +1,17 @@
 package org.openlca.app.editors.graphical.edit;
 
 import org.eclipse.draw2d.*;
+import org.eclipse.draw2d.zoom.ZoomListener;
 import org.eclipse.gef.EditPolicy;
 import org.openlca.app.editors.graphical.GraphConfig;
 import org.openlca.app.editors.graphical.layouts.Layout;
 import org.openlca.app.editors.graphical.layouts.TreeConnectionRouter;
 import org.openlca.app.editors.graphical.model.Graph;
+import org.openlca.app.tools.graphics.edit.RootEditPart;
+import org.openlca.app.tools.graphics.zoom.ZoomManager;
 
 import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.List;
 import java.util.Objects;
 
@@ -31,30 +35,86 @@ import static org.openlca.app.tools.graphics.model.Component.CHILDREN_PROP;
  */
 public class GraphEditPart extends AbstractComponentEditPart<Graph> {
 
+	/**
+	 * Routes the lazily routed connections that came into view when the
+	 * viewport is scrolled.
+	 */
+	private final PropertyChangeListener viewportListener =
+			evt -> revalidateDeferred();
+
+	/**
+	 * Routes the lazily routed connections that came into view when the
+	 * viewport is resized.
+	 */
+	private final FigureListener viewportSizeListener =
+			figure -> revalidateDeferred();
+
+	/**
+	 * Routes the lazily routed connections that came into view when the
+	 * zoom changed.
+	 */
+	private final ZoomListener zoomListener = zoom -> revalidateDeferred();
+
+	private void revalidateDeferred() {
+		var cLayer = (ConnectionLayer) getLayer(CONNECTION_LAYER);
+		if (cLayer.getConnectionRouter() instanceof TreeConnectionRouter router)
+			router.revalidateDeferred();
+	}
+
 	/**
 	 * Upon activation, attach to the GraphConfig element as a property change
-	 * listener.
+	 * listener and to the viewport and zoom manager.
 	 */
 	@Override
 	public void activate() {
 		if (!isActive()) {
 			super.activate();
 			getModel().getConfig().addPropertyChangeListener(this);
+			var viewport = getViewport();
+			if (viewport != null) {
+				viewport.addPropertyChangeListener(
+						Viewport.PROPERTY_VIEW_LOCATION, viewportListener);
+				viewport.addFigureListener(viewportSizeListener);
+			}
+			var zoomManager = getZoomManager();
+			if (zoomManager != null)
+				zoomManager.addZoomListener(zoomListener);
 		}
 	}
 
 	/**
-	 * Upon deactivation, detach from the GraphConfig element as a property change
-	 * listener.
+	 * Upon deactivation, detach from the GraphConfig element, the viewport,
+	 * and the zoom manager.
 	 */
 	@Override
 	public void deactivate() {
 		if (isActive()) {
 			super.deactivate();
 			getModel().getConfig().removePropertyChangeListener(this);
+			var viewport = getViewport();
+			if (viewport != null) {
+				viewport.removePropertyChangeListener(
+						Viewport.PROPERTY_VIEW_LOCATION, viewportListener);
+				viewport.removeFigureListener(viewportSizeListener);
+			}
+			var zoomManager = getZoomManager();
+			if (zoomManager != null)
+				zoomManager.removeZoomListener(zoomListener);
 		}
 	}
 
+	private Viewport getViewport() {
+		return getViewer().getControl() instanceof FigureCanvas canvas
+				? canvas.getViewport()
+				: null;
+	}
+
+	private ZoomManager getZoomManager() {
+		return getViewer().getRootEditPart() instanceof RootEditPart root
+				? root.getZoomManager()
+				: null;
+	}
+
 	@Override
 	protected void createEditPolicies() {
 		// Disallows the removal of this edit part.
@@ -5,11 +5,20 @@ import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.swt.SWT;
 import org.openlca.app.editors.graphical.model.Node;
 import org.openlca.app.tools.graphics.figures.GridPos;
+import org.openlca.app.tools.graphics.figures.LevelOfDetail;
 import org.openlca.app.tools.graphics.figures.RoundBorder;
 
 public class MaximizedNodeFigure extends NodeFigure {
 
-	private final Figure contentPane = new Figure();
+	private final Figure contentPane = new Figure() {
+		@Override
+		protected void paintChildren(Graphics g) {
+			// the exchanges are not painted at a low level of detail
+			if (!LevelOfDetail.isReduced(g)) {
+				super.paintChildren(g);
+			}
+		}
+	};
 
 	public MaximizedNodeFigure(Node node) {
 		super(node);
@@ -2,18 +2,31 @@ package org.openlca.app.editors.graphical.layouts;
 
 import org.eclipse.draw2d.BendpointConnectionRouter;
 import org.eclipse.draw2d.Connection;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.draw2d.geometry.PointList;
 import org.openlca.app.editors.graphical.edit.LinkAnchor;
+import org.openlca.app.tools.graphics.figures.LevelOfDetail;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Routes the connections of a graph in a Manhattan style. Connections of which
+ * the bounding box of both nodes is outside the visible area of the viewport
+ * are routed lazily: they get a straight line and are routed again when they
+ * come into view (see {@link #revalidateDeferred()}).
+ */
 public class TreeConnectionRouter extends BendpointConnectionRouter {
 
 	public static int H_SPACE = 25;
 	public static int V_SPACE = 25;
 
+	private final Set<Connection> deferred = new HashSet<>();
+
 	@Override
 	public void route(Connection conn) {
-		super.route(conn);
-
 		var source = (conn.getSourceAnchor() instanceof LinkAnchor)
 				? ((LinkAnchor) conn.getSourceAnchor()).getNodeOwner()
 				: null;
@@ -21,6 +34,15 @@ public class TreeConnectionRouter extends BendpointConnectionRouter {
 				? ((LinkAnchor) conn.getTargetAnchor()).getNodeOwner()
 				: null;
 
+		var visibleArea = LevelOfDetail.visibleArea(conn);
+		if (isOffScreen(source, target, visibleArea)) {
+			NULL.route(conn);
+			deferred.add(conn);
+			return;
+		}
+		deferred.remove(conn);
+
+		super.route(conn);
 		if (source == null || target == null)
 			return;
 
@@ -50,4 +72,52 @@ public class TreeConnectionRouter extends BendpointConnectionRouter {
 		conn.setPoints(points);
 	}
 
+	@Override
+	public void remove(Connection conn) {
+		deferred.remove(conn);
+		super.remove(conn);
+	}
+
+	/**
+	 * Revalidates the lazily routed connections that came into view, e.g.
+	 * after the viewport was scrolled.
+	 */
+	public void revalidateDeferred() {
+		if (deferred.isEmpty())
+			return;
+		var visibleArea = LevelOfDetail.visibleArea(deferred.iterator().next());
+		for (var conn : List.copyOf(deferred)) {
+			var source = conn.getSourceAnchor() instanceof LinkAnchor a
+					? a.getNodeOwner()
+					: null;
+			var target = conn.getTargetAnchor() instanceof LinkAnchor a
+					? a.getNodeOwner()
+					: null;
+			if (!isOffScreen(source, target, visibleArea)) {
+				deferred.remove(conn);
+				conn.revalidate();
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the bounding box of the two nodes, which contains the
+	 * routed connection, does not intersect with the visible area. A long
+	 * connection between two off-screen nodes can still cross the visible
+	 * area.
+	 */
+	private static boolean isOffScreen(
+			IFigure source, IFigure target, Rectangle visibleArea) {
+		if (source == null || target == null || visibleArea == null)
+			return false;
+		var bounds = source.getBounds().getCopy();
+		source.translateToAbsolute(bounds);
+		var targetBounds = target.getBounds().getCopy();
+		target.translateToAbsolute(targetBounds);
+		bounds.union(targetBounds);
+		// the routed lines run in the spaces next to the nodes
+		bounds.expand(H_SPACE, V_SPACE);
+		return !bounds.intersects(visibleArea);
+	}
+
 }
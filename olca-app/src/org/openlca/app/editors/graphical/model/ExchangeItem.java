@@ -111,7 +111,7 @@ public class ExchangeItem extends Component {
 			return false;
 
 		// In case the entity is dirty, the internal ID is also checked.
-		return getGraph().getEditor().isDirty(getNode().getEntity())
+		return getNode().isDirty()
 				&& link.exchangeId == exchange.internalId;
 	}
 
@@ -0,0 +1,236 @@
+package org.openlca.app.editors.graphical.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.openlca.core.database.FlowDao;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.LocationDao;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.model.Category;
+import org.openlca.core.model.Exchange;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.Location;
+import org.openlca.core.model.Unit;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * A slim, read-only projection of the exchanges of a process. It contains only
+ * the data that are shown in the graph: the flow (ID, name, type, category,
+ * location), the unit, the amount, the direction, the avoided flag, and the
+ * default provider. The projections of many processes are loaded at once with
+ * native SQL, without loading the process entities.
+ * <p>
+ * The exchanges of a projection are detached objects with stub flow and unit
+ * references. They must not be modified or saved; when a node is edited, they
+ * are replaced by the exchanges of the full process entity.
+ */
+public final class ExchangeProjection {
+
+	/** The maximum number of IDs in an `in` clause of a query. */
+	private static final int BATCH_SIZE = 500;
+
+	public final long processId;
+	private long refExchangeId;
+	private final List<Exchange> exchanges = new ArrayList<>();
+
+	private ExchangeProjection(long processId) {
+		this.processId = processId;
+	}
+
+	/**
+	 * Loads the projection of the process with the given ID.
+	 */
+	public static ExchangeProjection of(IDatabase db, long processId) {
+		var projection = load(db, List.of(processId)).get(processId);
+		return projection != null
+				? projection
+				: new ExchangeProjection(processId);
+	}
+
+	/**
+	 * Loads the projections of the processes with the given IDs in bulk.
+	 */
+	public static TLongObjectHashMap<ExchangeProjection> load(
+			IDatabase db, Collection<Long> processIds) {
+		var map = new TLongObjectHashMap<ExchangeProjection>();
+		if (db == null || processIds == null || processIds.isEmpty())
+			return map;
+		for (var id : processIds) {
+			map.put(id, new ExchangeProjection(id));
+		}
+		new Loader(db, map).run();
+		return map;
+	}
+
+	/**
+	 * Returns the read-only exchanges of the process.
+	 */
+	public List<Exchange> exchanges() {
+		return Collections.unmodifiableList(exchanges);
+	}
+
+	/**
+	 * Returns the flow of the quantitative reference of the process, or
+	 * `null` if it is not defined.
+	 */
+	public Flow refFlow() {
+		for (var e : exchanges) {
+			if (e.id == refExchangeId)
+				return e.flow;
+		}
+		return null;
+	}
+
+	private static class Loader {
+
+		private final IDatabase db;
+		private final TLongObjectHashMap<ExchangeProjection> projections;
+		private final TLongObjectHashMap<Flow> flows = new TLongObjectHashMap<>();
+		private final TLongObjectHashMap<Unit> units = new TLongObjectHashMap<>();
+
+		Loader(IDatabase db, TLongObjectHashMap<ExchangeProjection> projections) {
+			this.db = db;
+			this.projections = projections;
+		}
+
+		void run() {
+			for (var ids : batchesOf(projections.keys())) {
+				loadRefs(ids);
+				loadExchanges(ids);
+			}
+			loadFlows();
+			loadUnits();
+		}
+
+		/**
+		 * Splits the given IDs into comma separated lists for `in` clauses.
+		 */
+		private List<String> batchesOf(long[] ids) {
+			var batches = new ArrayList<String>();
+			for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+				int to = Math.min(ids.length, from + BATCH_SIZE);
+				var list = new StringBuilder();
+				for (int i = from; i < to; i++) {
+					if (i > from) {
+						list.append(',');
+					}
+					list.append(ids[i]);
+				}
+				batches.add(list.toString());
+			}
+			return batches;
+		}
+
+		private void loadRefs(String ids) {
+			var sql = "select id, f_quantitative_reference from tbl_processes"
+					+ " where id in (" + ids + ")";
+			NativeSql.on(db).query(sql, r -> {
+				var projection = projections.get(r.getLong(1));
+				if (projection != null) {
+					projection.refExchangeId = r.getLong(2);
+				}
+				return true;
+			});
+		}
+
+		private void loadExchanges(String ids) {
+			var sql = "select id, internal_id, f_owner, f_flow, f_unit, "
+					+ "is_input, avoided_product, resulting_amount_value, "
+					+ "resulting_amount_formula, f_default_provider "
+					+ "from tbl_exchanges where f_owner in (" + ids + ")";
+			NativeSql.on(db).query(sql, r -> {
+				var projection = projections.get(r.getLong(3));
+				if (projection == null)
+					return true;
+				var e = new Exchange();
+				e.id = r.getLong(1);
+				e.internalId = r.getInt(2);
+				e.flow = flowOf(r.getLong(4));
+				e.unit = unitOf(r.getLong(5));
+				e.isInput = r.getBoolean(6);
+				e.isAvoided = r.getBoolean(7);
+				e.amount = r.getDouble(8);
+				e.formula = r.getString(9);
+				e.defaultProviderId = r.getLong(10);
+				projection.exchanges.add(e);
+				return true;
+			});
+		}
+
+		private Flow flowOf(long id) {
+			var flow = flows.get(id);
+			if (flow == null) {
+				flow = new Flow();
+				flow.id = id;
+				flows.put(id, flow);
+			}
+			return flow;
+		}
+
+		private Unit unitOf(long id) {
+			if (id == 0)
+				return null;
+			var unit = units.get(id);
+			if (unit == null) {
+				unit = new Unit();
+				unit.id = id;
+				units.put(id, unit);
+			}
+			return unit;
+		}
+
+		/**
+		 * Fills the stub flows with the data of their descriptors.
+		 */
+		private void loadFlows() {
+			if (flows.isEmpty())
+				return;
+			var ids = new HashSet<Long>();
+			for (long id : flows.keys()) {
+				ids.add(id);
+			}
+			Map<Long, String> locations = null;
+			for (var d : new FlowDao(db).getDescriptors(ids)) {
+				var flow = flows.get(d.id);
+				if (flow == null)
+					continue;
+				flow.refId = d.refId;
+				flow.name = d.name;
+				flow.flowType = d.flowType;
+				if (d.category != null) {
+					flow.category = new Category();
+					flow.category.id = d.category;
+				}
+				if (d.location != null) {
+					if (locations == null) {
+						locations = new LocationDao(db).getCodes();
+					}
+					flow.location = new Location();
+					flow.location.id = d.location;
+					flow.location.code = locations.get(d.location);
+				}
+			}
+		}
+
+		private void loadUnits() {
+			if (units.isEmpty())
+				return;
+			for (var ids : batchesOf(units.keys())) {
+				var sql = "select id, name from tbl_units where id in (" + ids + ")";
+				NativeSql.on(db).query(sql, r -> {
+					var unit = units.get(r.getLong(1));
+					if (unit != null) {
+						unit.name = r.getString(2);
+					}
+					return true;
+				});
+			}
+		}
+	}
+}
@@ -8,6 +8,8 @@ import org.openlca.app.editors.graphical.GraphFile;
 import org.openlca.app.editors.graphical.layouts.NodeLayoutInfo;
 import org.openlca.app.editors.graphical.layouts.StickyNoteLayoutInfo;
 import org.openlca.app.editors.graphical.model.commands.ExpandCommand;
+import org.openlca.core.database.Daos;
+import org.openlca.core.database.NativeSql;
 import org.openlca.core.model.Exchange;
 import org.openlca.core.model.FlowType;
 import org.openlca.core.model.ModelType;
@@ -19,11 +21,18 @@ import org.openlca.core.model.RootEntity;
 import org.openlca.core.model.descriptors.Descriptor;
 import org.openlca.core.model.descriptors.RootDescriptor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
 
 import static org.openlca.app.editors.graphical.model.Node.INPUT_PROP;
 import static org.openlca.app.editors.graphical.model.Node.OUTPUT_PROP;
@@ -45,10 +54,18 @@ public class GraphFactory {
 	}
 
 	public Node createNode(RootDescriptor descriptor, NodeLayoutInfo info) {
+		return createNode(descriptor, info, null);
+	}
+
+	private Node createNode(RootDescriptor descriptor, NodeLayoutInfo info,
+			ExchangeProjection projection) {
 		if (descriptor == null || descriptor.type == null)
 			return null;
 
 		var node = applyInfo(new Node(descriptor), info);
+		if (projection != null) {
+			node.setProjection(projection);
+		}
 
 		// A Node (MinMaxGraphComponent) `minimized` attribute is by default true.
 		if (!node.isMinimized()) {
@@ -84,7 +101,7 @@ public class GraphFactory {
 		panes.put(INPUT_PROP, new IOPane(true));
 		panes.put(OUTPUT_PROP, new IOPane(false));
 
-		var exchanges = getExchanges(node.getEntity(), node.descriptor.type);
+		var exchanges = node.getExchanges();
 
 		// filter and sort the exchanges
 		exchanges.stream()
@@ -191,6 +208,15 @@ public class GraphFactory {
 		graph.mapProcessLinkToGraphLink.put(pLink, link);
 	}
 
+	/**
+	 * Creates the graph from the saved node and sticky note layouts. The
+	 * layouts are indexed by the reference IDs of the nodes once and the
+	 * descriptors of the nodes are resolved with one query per model type.
+	 * Exchanges are only loaded for maximized nodes. This method does not
+	 * access the UI or change the editor and can be called from a background
+	 * job. When there are no saved layouts, {@link #applyDefaults(Graph)} needs
+	 * to be called in the UI thread afterwards.
+	 */
 	public Graph createGraph(GraphEditor editor, JsonArray nodeArray,
 			JsonArray stickyNoteArray) {
 		if ((nodeArray == null) || (stickyNoteArray == null))
@@ -200,33 +226,34 @@ public class GraphFactory {
 
 		var system = editor.getProductSystem();
 		var referenceProcess = system.referenceProcess;
+		var infos = GraphFile.toNodeLayoutInfos(nodeArray);
+		var descriptors = getDescriptors(infos.keySet());
+		var projections = loadProjections(infos, descriptors);
 
 		// Create the reference node.
 		if (referenceProcess != null) {
-			var refNodeInfo = getNodeInfo(nodeArray, referenceProcess.refId);
-			var descriptor = getDescriptor(referenceProcess.id);
-			var refNode = createNode(descriptor, refNodeInfo);
+			var refNodeInfo = infos.get(referenceProcess.refId);
+			var descriptor = descriptors.get(referenceProcess.refId);
+			if (descriptor == null) {
+				descriptor = getDescriptor(referenceProcess.id);
+			}
+			var refNode = createNode(descriptor, refNodeInfo,
+					descriptor != null ? projections.get(descriptor.id) : null);
 			if (refNode != null) {
 				graph.addChild(refNode);
 			}
 		}
 
 		// Create other nodes.
-		for (var elem : nodeArray) {
-			if (!elem.isJsonObject())
-				continue;
-			var obj = elem.getAsJsonObject();
-			var info = GraphFile.toNodeLayoutInfo(obj);
-			if (info == null)
-				continue;
-
+		for (var info : infos.values()) {
 			// The reference should not be created again.
 			if (referenceProcess != null
 					&& Objects.equals(info.id, referenceProcess.refId))
 				continue;
 
-			var descriptor = getDescriptor(info.id);
-			var node = createNode(descriptor, info);
+			var descriptor = descriptors.get(info.id);
+			var node = createNode(descriptor, info,
+					descriptor != null ? projections.get(descriptor.id) : null);
 			if (node == null)
 				continue;
 			graph.addChild(node);
@@ -254,7 +281,8 @@ public class GraphFactory {
 	}
 
 	private Graph createGraph(GraphEditor editor) {
-		// No saved settings applied => try to find a good configuration
+		// No saved settings applied => the reference node is expanded and the
+		// configuration is adapted in applyDefaults
 		var graph = new Graph(editor);
 
 		var system = editor.getProductSystem();
@@ -266,38 +294,36 @@ public class GraphFactory {
 			var refNode = createNode(descriptor, info);
 			if (refNode != null) {
 				graph.addChild(refNode);
-				for (var side : Arrays.asList(INPUT, OUTPUT)) {
-					var command = new ExpandCommand(refNode, side, true);
-					if (command.canExecute())
-						command.execute();
-				}
 			}
 		}
+		return graph;
+	}
+
+	/**
+	 * Tries to find a good configuration for a graph that was created without
+	 * saved layouts: the reference node is expanded and, if it has no
+	 * outputs, the editor is set to the node editing mode. This executes
+	 * commands and changes the configuration of the editor; thus, it must be
+	 * called in the UI thread.
+	 */
+	public void applyDefaults(Graph graph) {
+		var refNode = graph.getReferenceNode();
+		if (refNode == null)
+			return;
+		for (var side : Arrays.asList(INPUT, OUTPUT)) {
+			var command = new ExpandCommand(refNode, side, true);
+			if (command.canExecute())
+				command.execute();
+		}
 
 		// Set the graph settings to edit mode if the reference node has no output.
-		var outputPane = graph.getReferenceNode().getOutputIOPane();
+		var outputPane = refNode.getOutputIOPane();
 		if (outputPane.getChildren().isEmpty()) {
 			var config = editor.config.copy();
 			config.setNodeEditingEnabled(true);
 			config.setShowElementaryFlows(true);
 			config.copyTo(editor.config);
 		}
-		return graph;
-	}
-
-	private static NodeLayoutInfo getNodeInfo(JsonArray array, String id) {
-		var descriptor = getDescriptor(id);
-		if (descriptor != null) {
-			for (var elem : array) {
-				if (!elem.isJsonObject())
-					continue;
-				var obj = elem.getAsJsonObject();
-				var info = GraphFile.toNodeLayoutInfo(obj);
-				if (Objects.equals(info.id, descriptor.refId))
-					return info;
-			}
-		}
-		return null;
 	}
 
 	public static RootDescriptor getDescriptor(long id) {
@@ -312,16 +338,99 @@ public class GraphFactory {
 		return null;
 	}
 
-	static RootDescriptor getDescriptor(String refId) {
+	/**
+	 * Loads the exchange projections of the maximized process nodes in bulk.
+	 */
+	private TLongObjectHashMap<ExchangeProjection> loadProjections(
+			Map<String, NodeLayoutInfo> infos,
+			Map<String, RootDescriptor> descriptors) {
+		var ids = new ArrayList<Long>();
+		for (var info : infos.values()) {
+			if (info.minimized)
+				continue;
+			var d = descriptors.get(info.id);
+			if (d != null && d.type == ModelType.PROCESS) {
+				ids.add(d.id);
+			}
+		}
+		return ExchangeProjection.load(Database.get(), ids);
+	}
+
+	/**
+	 * Resolves the descriptors of the processes, product systems, and results
+	 * with the given reference IDs. The IDs of the reference IDs are queried
+	 * in batches per model type and only these descriptors are loaded.
+	 */
+	static Map<String, RootDescriptor> getDescriptors(Set<String> refIds) {
+		var map = new HashMap<String, RootDescriptor>();
 		var db = Database.get();
-		if (db == null)
-			return null;
-		for (var c : List.of(Process.class, ProductSystem.class, Result.class)) {
-			Descriptor d = db.getDescriptor(c, refId);
-			if (d instanceof RootDescriptor r)
-				return r;
+		if (db == null || refIds.isEmpty())
+			return map;
+		var tables = Map.of(
+				ModelType.PROCESS, "tbl_processes",
+				ModelType.PRODUCT_SYSTEM, "tbl_product_systems",
+				ModelType.RESULT, "tbl_results");
+		var types = List.of(
+				ModelType.PROCESS, ModelType.PRODUCT_SYSTEM, ModelType.RESULT);
+		var refs = new ArrayList<>(refIds);
+		int batchSize = 1000;
+		for (var type : types) {
+			if (map.size() == refIds.size())
+				break;
+			var ids = new HashSet<Long>();
+			for (int from = 0; from < refs.size(); from += batchSize) {
+				int to = Math.min(refs.size(), from + batchSize);
+				var list = new StringBuilder();
+				for (int i = from; i < to; i++) {
+					if (i > from) {
+						list.append(',');
+					}
+					list.append('\'')
+							.append(refs.get(i).replace("'", "''"))
+							.append('\'');
+				}
+				var query = "select id from " + tables.get(type)
+						+ " where ref_id in (" + list + ")";
+				NativeSql.on(db).query(query, r -> {
+					ids.add(r.getLong(1));
+					return true;
+				});
+			}
+			if (ids.isEmpty())
+				continue;
+			for (var d : Daos.root(db, type).getDescriptors(ids)) {
+				map.putIfAbsent(d.refId, d);
+			}
 		}
-		return null;
+		return map;
+	}
+
+	/**
+	 * Resolves the descriptors of the processes, product systems, and results
+	 * with the given IDs, with one query per model type.
+	 */
+	public static TLongObjectHashMap<RootDescriptor> getDescriptors(
+			TLongHashSet ids) {
+		var map = new TLongObjectHashMap<RootDescriptor>();
+		var db = Database.get();
+		if (db == null || ids.isEmpty())
+			return map;
+		var remaining = new HashSet<Long>();
+		ids.forEach(id -> {
+			remaining.add(id);
+			return true;
+		});
+		var types = List.of(
+				ModelType.PROCESS, ModelType.PRODUCT_SYSTEM, ModelType.RESULT);
+		for (var type : types) {
+			if (remaining.isEmpty())
+				break;
+			for (var d : Daos.root(db, type).getDescriptors(remaining)) {
+				map.put(d.id, d);
+			}
+			remaining.removeIf(map::containsKey);
+		}
+		return map;
 	}
 
 	public StickyNote createStickyNote(StickyNoteLayoutInfo info) {
@@ -26,6 +26,8 @@ import org.openlca.core.model.descriptors.ProductSystemDescriptor;
 import org.openlca.core.model.descriptors.ResultDescriptor;
 import org.openlca.core.model.descriptors.RootDescriptor;
 
+import gnu.trove.set.hash.TLongHashSet;
+
 import static org.openlca.app.tools.graphics.layouts.GraphLayout.DEFAULT_LOCATION;
 
 /**
@@ -46,6 +48,7 @@ public class Node extends MinMaxComponent {
 	private final IDatabase db = Database.get();
 	public RootDescriptor descriptor;
 	private RootEntity entity;
+	private ExchangeProjection projection;
 
 	/**
 	 * Define if the input or this output side is expanded.
@@ -57,7 +60,8 @@ public class Node extends MinMaxComponent {
 	 * Helper variable when exploring graph in CollapseCommand
 	 */
 	public boolean isCollapsing;
-	private final String comparisonLabel = Labels.name(getRefFlow());
+	/** Lazily initialized as it requires the entity of the node. */
+	private String comparisonLabel;
 	private final Map<Side, Boolean> buttonStatus = new EnumMap<>(Side.class);
 
 	public Node(RootDescriptor descriptor) {
@@ -68,23 +72,86 @@ public class Node extends MinMaxComponent {
 
 	/**
 	 * The RootEntity of this is lazily instantiate in the constructor for
-	 * computational reasons.
+	 * computational reasons. When the entity is loaded, the read-only
+	 * exchanges of the exchange items are replaced by the exchanges of the
+	 * entity.
 	 */
 	public RootEntity getEntity() {
 		// If the corresponding entity is dirty, the dirty one is return.
+		if (hasEntity())
+			return entity;
+		// Otherwise, it is retrieved from the DB.
+		entity = db.get(descriptor.type.getModelClass(), descriptor.id);
+		bindExchanges();
+		return entity;
+	}
+
+	public void setEntity(RootEntity entity) {
+		this.entity = entity;
+	}
+
+	private boolean hasEntity() {
 		if (entity == null
 				&& getGraph() != null && getGraph().getEditor() != null) {
 			entity = getGraph().getEditor().getDirty(descriptor.id);
 		}
-		// Otherwise, it is retrieved from the DB.
-		if (entity == null) {
-			entity = db.get(descriptor.type.getModelClass(), descriptor.id);
+		return entity != null;
+	}
+
+	/**
+	 * Returns true if the entity of this node was modified and not saved yet.
+	 * Contrary to {@code editor.isDirty(node.getEntity())}, this does not
+	 * load the entity.
+	 */
+	public boolean isDirty() {
+		var graph = getGraph();
+		return graph != null
+				&& graph.getEditor() != null
+				&& graph.getEditor().getDirty(descriptor.id) != null;
+	}
+
+	void setProjection(ExchangeProjection projection) {
+		this.projection = projection;
+	}
+
+	/**
+	 * Returns the exchanges that are shown in the IO panes of this node. For
+	 * a process of which the entity is not loaded, these are the read-only
+	 * exchanges of its projection.
+	 */
+	List<Exchange> getExchanges() {
+		if (descriptor.type != ModelType.PROCESS || hasEntity())
+			return GraphFactory.getExchanges(getEntity(), descriptor.type);
+		return getProjection().exchanges();
+	}
+
+	private ExchangeProjection getProjection() {
+		if (projection == null) {
+			projection = ExchangeProjection.of(db, descriptor.id);
 		}
-		return entity;
+		return projection;
 	}
 
-	public void setEntity(RootEntity entity) {
-		this.entity = entity;
+	/**
+	 * Replaces the read-only exchanges of the exchange items with the
+	 * corresponding exchanges of the loaded entity.
+	 */
+	private void bindExchanges() {
+		if (projection == null || entity == null)
+			return;
+		projection = null;
+		var exchanges = new HashMap<Long, Exchange>();
+		for (var e : GraphFactory.getExchanges(entity, descriptor.type)) {
+			exchanges.put(e.id, e);
+		}
+		for (var item : getExchangeItems()) {
+			if (item.exchange == null)
+				continue;
+			var e = exchanges.get(item.exchange.id);
+			if (e != null) {
+				item.setExchange(e);
+			}
+		}
 	}
 
 	public ExchangeItem getOutput(ProcessLink link) {
@@ -198,7 +265,7 @@ public class Node extends MinMaxComponent {
 	}
 
 	public boolean isEditable() {
-		if (entity instanceof Process process) {
+		if (descriptor instanceof ProcessDescriptor process) {
 			return !process.isFromLibrary()
 					&& process.processType == ProcessType.UNIT_PROCESS
 					&& getGraph().getConfig().isNodeEditingEnabled();
@@ -240,14 +307,14 @@ public class Node extends MinMaxComponent {
 			updateIsExpanded(Side.OUTPUT);
 		}
 
-		var sourceNodeIds = getAllTargetConnections().stream()
-				.map(GraphLink.class::cast)
-				.map(c -> c.getSourceNode().descriptor.id)
-				.toList();
-		var targetNodeIds = getAllSourceConnections().stream()
-				.map(GraphLink.class::cast)
-				.map(c -> c.getTargetNode().descriptor.id)
-				.toList();
+		var sourceNodeIds = new TLongHashSet();
+		for (var link : getAllTargetConnections()) {
+			sourceNodeIds.add(((GraphLink) link).getSourceNode().descriptor.id);
+		}
+		var targetNodeIds = new TLongHashSet();
+		for (var link : getAllSourceConnections()) {
+			targetNodeIds.add(((GraphLink) link).getTargetNode().descriptor.id);
+		}
 
 		for (var pLink : getGraph().linkSearch.getLinks(descriptor.id)) {
 			FlowType type = getGraph().flows.type(pLink.flowId);
@@ -505,11 +572,16 @@ public class Node extends MinMaxComponent {
 
 	@Override
 	public String getComparisonLabel() {
+		if (comparisonLabel == null) {
+			comparisonLabel = Labels.name(getRefFlow());
+		}
 		return comparisonLabel;
 	}
 
 	Flow getRefFlow() {
 		if (descriptor instanceof ProcessDescriptor) {
+			if (!hasEntity())
+				return getProjection().refFlow();
 			var process = (Process) getEntity();
 			if (process.quantitativeReference != null)
 				return process.quantitativeReference.flow;
@@ -69,7 +69,7 @@ public class DeleteManager {
 		graph.getProductSystem().processes.remove(process);
 		var node = graph.getNode(process);
 		if (node != null) {
-			if (editor.isDirty(node.getEntity())) {
+			if (node.isDirty()) {
 				editor.removeDirty(node.getEntity());
 			}
 			graph.removeChildQuietly(node);
@@ -0,0 +1,142 @@
+package org.openlca.app.editors.graphical.model.commands;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openlca.app.editors.graphical.model.Graph;
+import org.openlca.app.editors.graphical.model.GraphFactory;
+import org.openlca.app.editors.graphical.model.GraphLink;
+import org.openlca.app.editors.graphical.model.Node;
+import org.openlca.app.tools.graphics.model.Side;
+import org.openlca.core.model.FlowType;
+import org.openlca.core.model.ProcessLink;
+import org.openlca.core.model.descriptors.RootDescriptor;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+import static org.openlca.app.editors.graphical.model.Node.isInput;
+import static org.openlca.app.editors.graphical.model.Node.isOutput;
+
+/**
+ * Expands sides of one or more nodes in a single model mutation. The links of
+ * the expanded sides are collected first, then the descriptors of all new
+ * neighbour nodes are fetched in bulk, and finally the new nodes and links are
+ * added quietly to the graph; firing the property change is up to the caller.
+ */
+class Expander {
+
+	private final Graph graph;
+	private final TLongObjectHashMap<Node> nodes = new TLongObjectHashMap<>();
+	private final List<Expansion> expansions = new ArrayList<>();
+	private final List<Planned> planned = new ArrayList<>();
+	private final Set<ProcessLink> plannedLinks = new HashSet<>();
+
+	Expander(Graph graph) {
+		this.graph = graph;
+		for (var node : graph.getNodes()) {
+			if (node.descriptor != null) {
+				nodes.put(node.descriptor.id, node);
+			}
+		}
+	}
+
+	/**
+	 * Adds the given side of the host to the sides that should be expanded.
+	 */
+	void add(Node host, Side side) {
+		if (host == null || side == Side.BOTH || host.isExpanded(side))
+			return;
+		expansions.add(new Expansion(host, side));
+		long processID = host.descriptor.id;
+
+		// the links that are already connected on this side
+		var oldLinks = side == Side.INPUT
+				? host.getAllTargetConnections()
+				: host.getAllSourceConnections();
+		var oldPLinks = new HashSet<ProcessLink>();
+		for (var link : oldLinks) {
+			oldPLinks.add(((GraphLink) link).processLink);
+		}
+
+		for (var pLink : graph.linkSearch.getLinks(processID)) {
+			FlowType type = graph.flows.type(pLink.flowId);
+			if (type == null
+					|| type == FlowType.ELEMENTARY_FLOW  // elementary flow cannot be linked
+					|| oldPLinks.contains(pLink)  // no need to recreate
+					|| plannedLinks.contains(pLink))  // added by another host
+				continue;
+
+			boolean isProvider = processID == pLink.providerId;
+			long otherID = isProvider ? pLink.processId : pLink.providerId;
+			boolean hostIsTarget;
+			if (side == Side.INPUT && isInput(type, isProvider)) {
+				hostIsTarget = true;
+			} else if (side == Side.OUTPUT && isOutput(type, isProvider)) {
+				hostIsTarget = false;
+			} else if (processID == otherID) {  // close loop
+				hostIsTarget = true;
+			} else continue;
+
+			plannedLinks.add(pLink);
+			planned.add(new Planned(pLink, host, side, otherID, hostIsTarget));
+		}
+	}
+
+	/**
+	 * Adds the collected nodes and links to the graph and returns the newly
+	 * created nodes.
+	 */
+	List<Node> run() {
+		var descriptors = prefetchDescriptors();
+		var newNodes = new ArrayList<Node>();
+		for (var p : planned) {
+			var other = nodes.get(p.otherID);
+			if (other == null) {
+				other = createNode(descriptors.get(p.otherID), p.side);
+				if (other == null)
+					continue;
+				newNodes.add(other);
+			}
+			var link = p.hostIsTarget
+					? new GraphLink(p.link, other, p.host)
+					: new GraphLink(p.link, p.host, other);
+			graph.mapProcessLinkToGraphLink.put(p.link, link);
+		}
+		for (var e : expansions) {
+			e.host.setExpanded(e.side, true);
+		}
+		return newNodes;
+	}
+
+	private TLongObjectHashMap<RootDescriptor> prefetchDescriptors() {
+		var ids = new TLongHashSet();
+		for (var p : planned) {
+			if (!nodes.containsKey(p.otherID)) {
+				ids.add(p.otherID);
+			}
+		}
+		return GraphFactory.getDescriptors(ids);
+	}
+
+	private Node createNode(RootDescriptor descriptor, Side side) {
+		var factory = graph.getEditor().getGraphFactory();
+		var node = factory.createNode(descriptor, null);
+		if (node == null)
+			return null;
+		graph.addChildQuietly(node);
+		nodes.put(descriptor.id, node);
+		node.updateIsExpanded(side.opposite());
+		return node;
+	}
+
+	private record Expansion(Node host, Side side) {
+	}
+
+	private record Planned(
+			ProcessLink link, Node host, Side side, long otherID,
+			boolean hostIsTarget) {
+	}
+}
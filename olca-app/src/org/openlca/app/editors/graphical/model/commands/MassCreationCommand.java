@@ -120,7 +120,7 @@ public class MassCreationCommand extends Command {
 
 	private void removeNodeQuietly(Node node) {
 		graph.getProductSystem().processes.remove(node.descriptor.id);
-		if (editor.isDirty(node.getEntity())) {
+		if (node.isDirty()) {
 			editor.removeDirty(node.getEntity());
 		}
 		graph.removeChildQuietly(node);
@@ -0,0 +1,64 @@
+package org.openlca.app.editors.graphical.model.commands;
+
+import org.eclipse.gef.commands.Command;
+import org.openlca.app.M;
+import org.openlca.app.editors.graphical.model.Graph;
+import org.openlca.app.editors.graphical.model.Node;
+import org.openlca.app.tools.graphics.model.Side;
+
+import static org.openlca.app.tools.graphics.model.Component.CHILDREN_PROP;
+
+/**
+ * Expands the input and output sides of all nodes of the graph that are not
+ * expanded yet. Contrary to a compound of {@link ExpandCommand}s, all new
+ * nodes and links are added in one model mutation that fires a single
+ * property change.
+ */
+public class MassExpandCommand extends Command {
+
+	private final Graph graph;
+
+	public MassExpandCommand(Graph graph) {
+		this.graph = graph;
+		setLabel(M.ExpandAll);
+	}
+
+	@Override
+	public boolean canExecute() {
+		if (graph == null)
+			return false;
+		for (var node : graph.getNodes()) {
+			if (isExpandable(node))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean isExpandable(Node node) {
+		return !node.isExpanded(Side.INPUT) || !node.isExpanded(Side.OUTPUT);
+	}
+
+	@Override
+	public boolean canUndo() {
+		return false;
+	}
+
+	@Override
+	public void execute() {
+		redo();
+	}
+
+	@Override
+	public void redo() {
+		var expander = new Expander(graph);
+		for (var node : graph.getNodes()) {
+			if (!isExpandable(node))
+				continue;
+			expander.add(node, Side.INPUT);
+			expander.add(node, Side.OUTPUT);
+		}
+		expander.run();
+		graph.firePropertyChange(CHILDREN_PROP, null, null);
+	}
+
+}
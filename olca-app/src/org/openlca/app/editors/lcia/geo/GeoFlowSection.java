@@ -32,7 +32,6 @@ import org.openlca.core.model.ImpactFactor;
 import org.openlca.core.model.Location;
 import org.openlca.core.model.ModelType;
 import org.openlca.core.model.Parameter;
-import org.openlca.geo.lcia.GeoFactorCalculator;
 import org.openlca.geo.lcia.GeoFlowBinding;
 import org.openlca.io.CategoryPath;
 import org.openlca.util.Strings;
@@ -226,11 +225,11 @@ class GeoFlowSection {
 	}
 
 	private void runCalculation(List<Location> locations) {
-		var calc = GeoFactorCalculator.of(
-				Database.get(), page.setup, locations);
+		var db = Database.get();
+		var setup = page.setup;
 		var factors = new AtomicReference<List<ImpactFactor>>();
 		App.runWithProgress("Calculate regionalized factors",
-				() -> factors.set(calc.calculate()),
+				() -> factors.set(ParallelCalculation.run(db, setup, locations)),
 				() -> GeoFactorDialog.open(page, factors.get()));
 	}
 
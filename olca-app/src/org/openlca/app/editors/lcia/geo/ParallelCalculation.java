@@ -0,0 +1,69 @@
+package org.openlca.app.editors.lcia.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.ImpactFactor;
+import org.openlca.core.model.Location;
+import org.openlca.geo.lcia.GeoFactorCalculator;
+import org.openlca.geo.lcia.GeoFactorSetup;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calculates the regionalized factors of a setup in parallel. The locations
+ * are split into chunks that are calculated with separate calculators in a
+ * fork-join pool; each calculator intersects the locations of its chunk with
+ * the features of the setup. The default factors without a location are the
+ * same for each chunk and are only taken from the first one.
+ */
+class ParallelCalculation {
+
+	/** The minimum number of locations per chunk. */
+	private static final int MIN_CHUNK_SIZE = 4;
+
+	private ParallelCalculation() {
+	}
+
+	static List<ImpactFactor> run(
+			IDatabase db, GeoFactorSetup setup, List<Location> locations) {
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		int chunkCount = Math.min(threads, locations.size() / MIN_CHUNK_SIZE);
+		if (chunkCount < 2)
+			return GeoFactorCalculator.of(db, setup, locations).calculate();
+
+		long start = System.currentTimeMillis();
+		var tasks = new ArrayList<Callable<List<ImpactFactor>>>();
+		int chunkSize = (locations.size() + chunkCount - 1) / chunkCount;
+		for (int from = 0; from < locations.size(); from += chunkSize) {
+			var chunk = locations.subList(
+					from, Math.min(locations.size(), from + chunkSize));
+			tasks.add(() -> GeoFactorCalculator.of(db, setup, chunk).calculate());
+		}
+
+		var pool = new ForkJoinPool(threads);
+		try {
+			var factors = new ArrayList<ImpactFactor>();
+			boolean first = true;
+			for (Future<List<ImpactFactor>> future : pool.invokeAll(tasks)) {
+				for (var factor : future.get()) {
+					if (first || factor.location != null) {
+						factors.add(factor);
+					}
+				}
+				first = false;
+			}
+			LoggerFactory.getLogger(ParallelCalculation.class).debug(
+					"calculated factors for {} locations in {} ms",
+					locations.size(), System.currentTimeMillis() - start);
+			return factors;
+		} catch (Exception e) {
+			throw new RuntimeException("failed to calculate regionalized factors", e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
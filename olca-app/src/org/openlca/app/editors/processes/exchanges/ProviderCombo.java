@@ -4,13 +4,10 @@ import java.util.Collections;
 import java.util.Set;
 
 import org.openlca.app.db.Cache;
-import org.openlca.app.db.Database;
 import org.openlca.app.editors.processes.ProcessEditor;
 import org.openlca.app.util.Labels;
 import org.openlca.app.viewers.tables.modify.ComboBoxCellModifier;
 import org.openlca.core.database.EntityCache;
-import org.openlca.core.database.FlowDao;
-import org.openlca.core.database.IDatabase;
 import org.openlca.core.model.Exchange;
 import org.openlca.core.model.FlowType;
 import org.openlca.core.model.descriptors.ProcessDescriptor;
@@ -18,7 +15,6 @@ import org.openlca.util.Strings;
 
 class ProviderCombo extends ComboBoxCellModifier<Exchange, ProcessDescriptor> {
 
-	private final IDatabase db = Database.get();
 	private final EntityCache cache = Cache.getEntityCache();
 	private final ProcessEditor editor;
 
@@ -78,9 +74,9 @@ class ProviderCombo extends ComboBoxCellModifier<Exchange, ProcessDescriptor> {
 	private Set<Long> getProviderIds(Exchange e) {
 		if (e == null || e.flow == null)
 			return Collections.emptySet();
-		var dao = new FlowDao(db);
+		var index = Cache.getProviderIndex();
 		return e.isInput
-			? dao.getWhereOutput(e.flow.id)
-			: dao.getWhereInput(e.flow.id);
+			? index.getWhereOutput(e.flow.id)
+			: index.getWhereInput(e.flow.id);
 	}
 }
@@ -5,7 +5,6 @@ import org.openlca.app.db.DatabaseDir;
 import org.openlca.app.util.Question;
 import org.openlca.app.wizards.calculation.CalculationWizard;
 import org.openlca.core.model.ProductSystem;
-import org.openlca.util.ProductSystems;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
@@ -31,7 +30,7 @@ class CalculationDispatch {
 					.info("check if system {} is linked", system);
 			boolean linked = App.exec(
 					"Check product system ...",
-					() -> ProductSystems.isConnected(system));
+					() -> SystemGraph.of(system).isConnected());
 			updateMarker(linked);
 			if (!linked) {
 				var b = Question.ask(
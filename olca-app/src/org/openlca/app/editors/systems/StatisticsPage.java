@@ -84,6 +84,10 @@ class StatisticsPage extends ModelPage<ProductSystem> {
 			label.setText(text);
 		});
 
+		UI.label(comp, tk, "Processes in cycles");
+		bind(UI.label(comp, tk, ""),
+			label -> label.setText(Integer.toString(stats.cycleProcessCount)));
+
 		UI.label(comp, tk, "Reference process");
 		ImageHyperlink link = UI.imageHyperlink(comp, tk, SWT.TOP);
 		link.setForeground(Colors.linkBlue());
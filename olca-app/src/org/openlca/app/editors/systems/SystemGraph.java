@@ -0,0 +1,481 @@
+package org.openlca.app.editors.systems;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openlca.app.db.Cache;
+import org.openlca.app.db.Database;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.matrix.cache.ProcessTable;
+import org.openlca.core.model.ProductSystem;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * The link graph of a product system in compressed sparse row (CSR) format.
+ * The processes are mapped to consecutive node indices; the providers of node
+ * i are stored at the positions inOffsets[i] until inOffsets[i + 1]
+ * (exclusive) of inNodes, the recipients in the same way in outOffsets and
+ * outNodes. Multiple links between the same nodes are stored only once. All
+ * analyses run in linear time of the number of nodes and links.
+ * <p>
+ * The graphs are cached per product system and are rebuilt when the last
+ * change or the links of the system change, so that the statistics page and
+ * the check before a calculation share the same graph.
+ */
+class SystemGraph {
+
+	private static final int CACHE_SIZE = 8;
+	private static final Map<Key, SystemGraph> cache =
+			new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Key, SystemGraph> e) {
+					return size() > CACHE_SIZE;
+				}
+			};
+
+	/** The process IDs of the nodes. */
+	private final long[] nodeIds;
+	private final int refNode;
+	private final int[] systemNodes;
+
+	private final int[] inOffsets;
+	private final int[] inNodes;
+	private final int[] outOffsets;
+	private final int[] outNodes;
+
+	/** The number of distinct provider-flow pairs of the links. */
+	private final int techMatrixSize;
+
+	/** The exchange and flow IDs and provider nodes of the links. */
+	private final long[] linkExchanges;
+	private final long[] linkFlows;
+	private final long[] linkProviders;
+
+	private Boolean connected;
+	private int[] components;
+
+	private SystemGraph(ProductSystem system) {
+		var index = new TLongIntHashMap(
+				system.processes.size(), 0.5f, -1L, -1);
+		var ids = new ArrayList<Long>(system.processes.size());
+		for (var id : system.processes) {
+			if (id != null && index.putIfAbsent(id, ids.size()) == -1) {
+				ids.add(id);
+			}
+		}
+		for (var link : system.processLinks) {
+			for (long id : new long[]{link.processId, link.providerId}) {
+				if (index.putIfAbsent(id, ids.size()) == -1) {
+					ids.add(id);
+				}
+			}
+		}
+		int n = ids.size();
+		nodeIds = new long[n];
+		for (int i = 0; i < n; i++) {
+			nodeIds[i] = ids.get(i);
+		}
+		refNode = system.referenceProcess != null
+				? index.get(system.referenceProcess.id)
+				: -1;
+		systemNodes = system.processes.stream()
+				.filter(id -> id != null)
+				.mapToInt(index::get)
+				.distinct()
+				.toArray();
+
+		int m = system.processLinks.size();
+		var recipients = new int[m];
+		var providers = new int[m];
+		linkExchanges = new long[m];
+		linkFlows = new long[m];
+		linkProviders = new long[m];
+		int k = 0;
+		for (var link : system.processLinks) {
+			recipients[k] = index.get(link.processId);
+			providers[k] = index.get(link.providerId);
+			linkExchanges[k] = link.exchangeId;
+			linkFlows[k] = link.flowId;
+			linkProviders[k] = link.providerId;
+			k++;
+		}
+
+		inOffsets = new int[n + 1];
+		outOffsets = new int[n + 1];
+		inNodes = compress(n, recipients, providers, inOffsets);
+		outNodes = compress(n, providers, recipients, outOffsets);
+		techMatrixSize = countProducts(index, n);
+	}
+
+	/**
+	 * Returns the graph of the given product system from the cache or builds
+	 * it if it is not cached yet.
+	 */
+	static SystemGraph of(ProductSystem system) {
+		var key = Key.of(system);
+		synchronized (cache) {
+			var graph = cache.get(key);
+			if (graph != null)
+				return graph;
+		}
+		var graph = new SystemGraph(system);
+		synchronized (cache) {
+			cache.put(key, graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * Sorts the edges by their source node via counting sort and removes
+	 * duplicate edges. The offsets are written into the given array and the
+	 * target nodes are returned.
+	 */
+	private static int[] compress(
+			int n, int[] sources, int[] targets, int[] offsets) {
+		int m = sources.length;
+		var counts = new int[n + 1];
+		for (int k = 0; k < m; k++) {
+			counts[sources[k] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			counts[i + 1] += counts[i];
+		}
+		var next = new int[n];
+		System.arraycopy(counts, 0, next, 0, n);
+		var order = new int[m];
+		for (int k = 0; k < m; k++) {
+			order[next[sources[k]]++] = k;
+		}
+
+		// remove duplicates with a marker array: marks[j] == i + 1 if the edge
+		// i -> j was already added
+		var marks = new int[n];
+		var nodes = new int[m];
+		int pos = 0;
+		for (int i = 0; i < n; i++) {
+			offsets[i] = pos;
+			for (int a = counts[i]; a < counts[i + 1]; a++) {
+				int k = order[a];
+				int j = targets[k];
+				if (marks[j] == i + 1)
+					continue;
+				marks[j] = i + 1;
+				nodes[pos] = j;
+				pos++;
+			}
+		}
+		offsets[n] = pos;
+		return Arrays.copyOf(nodes, pos);
+	}
+
+	/**
+	 * Counts the distinct provider-flow pairs of the links, which is the size
+	 * of the technology matrix.
+	 */
+	private int countProducts(TLongIntHashMap index, int n) {
+		// group the links by provider via counting sort
+		int m = linkFlows.length;
+		var providerOf = new int[m];
+		var counts = new int[n + 1];
+		for (int k = 0; k < m; k++) {
+			providerOf[k] = index.get(linkProviders[k]);
+			counts[providerOf[k] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			counts[i + 1] += counts[i];
+		}
+		var next = new int[n];
+		System.arraycopy(counts, 0, next, 0, n);
+		var order = new int[m];
+		for (int k = 0; k < m; k++) {
+			order[next[providerOf[k]]++] = k;
+		}
+		int count = 0;
+		var flows = new TLongHashSet();
+		for (int i = 0; i < n; i++) {
+			flows.clear();
+			for (int a = counts[i]; a < counts[i + 1]; a++) {
+				flows.add(linkFlows[order[a]]);
+			}
+			count += flows.size();
+		}
+		return count;
+	}
+
+	int techMatrixSize() {
+		return techMatrixSize;
+	}
+
+	/**
+	 * The product system graph is connected if we can visit every process in
+	 * the product system traversing the graph starting from the reference
+	 * process and following the incoming process links.
+	 */
+	synchronized boolean isConnected() {
+		if (connected != null)
+			return connected;
+		if (refNode < 0) {
+			connected = false;
+			return false;
+		}
+		var visited = new boolean[nodeIds.length];
+		var queue = new int[nodeIds.length];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = refNode;
+		visited[refNode] = true;
+		while (head < tail) {
+			int recipient = queue[head++];
+			for (int a = inOffsets[recipient]; a < inOffsets[recipient + 1]; a++) {
+				int provider = inNodes[a];
+				if (!visited[provider]) {
+					visited[provider] = true;
+					queue[tail++] = provider;
+				}
+			}
+		}
+		connected = true;
+		for (int node : systemNodes) {
+			if (!visited[node]) {
+				connected = false;
+				break;
+			}
+		}
+		return connected;
+	}
+
+	/**
+	 * Returns the number of processes that are part of a cycle, i.e. that are
+	 * in a strongly connected component with more than one process or that
+	 * are linked to themselves.
+	 */
+	int cycleNodeCount() {
+		var comps = components();
+		int n = nodeIds.length;
+		var sizes = new int[n];
+		for (int c : comps) {
+			sizes[c]++;
+		}
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			if (sizes[comps[i]] > 1 || hasSelfLoop(i)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private boolean hasSelfLoop(int node) {
+		for (int a = outOffsets[node]; a < outOffsets[node + 1]; a++) {
+			if (outNodes[a] == node)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the strongly connected component of each node, calculated with
+	 * an iterative version of Tarjan's algorithm.
+	 */
+	private synchronized int[] components() {
+		if (components != null)
+			return components;
+		int n = nodeIds.length;
+		var comps = new int[n];
+		var order = new int[n];
+		var lowLinks = new int[n];
+		var onStack = new boolean[n];
+		var stack = new int[n];
+		var callStack = new int[n];
+		var edgePos = new int[n];
+		Arrays.fill(order, -1);
+		int counter = 0;
+		int top = 0;
+		int compCount = 0;
+
+		for (int root = 0; root < n; root++) {
+			if (order[root] >= 0)
+				continue;
+			int depth = 0;
+			callStack[depth++] = root;
+			order[root] = lowLinks[root] = counter++;
+			edgePos[root] = outOffsets[root];
+			stack[top++] = root;
+			onStack[root] = true;
+
+			while (depth > 0) {
+				int v = callStack[depth - 1];
+				if (edgePos[v] < outOffsets[v + 1]) {
+					int w = outNodes[edgePos[v]++];
+					if (order[w] < 0) {
+						order[w] = lowLinks[w] = counter++;
+						edgePos[w] = outOffsets[w];
+						stack[top++] = w;
+						onStack[w] = true;
+						callStack[depth++] = w;
+					} else if (onStack[w]) {
+						lowLinks[v] = Math.min(lowLinks[v], order[w]);
+					}
+					continue;
+				}
+
+				// all edges of v are visited
+				depth--;
+				if (depth > 0) {
+					int parent = callStack[depth - 1];
+					lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[v]);
+				}
+				if (lowLinks[v] == order[v]) {
+					int w;
+					do {
+						w = stack[--top];
+						onStack[w] = false;
+						comps[w] = compCount;
+					} while (w != v);
+					compCount++;
+				}
+			}
+		}
+		components = comps;
+		return comps;
+	}
+
+	/**
+	 * Returns the processes with the highest number of linked providers, in
+	 * descending order.
+	 */
+	List<Degree> topInDegrees(int k) {
+		return topDegrees(inOffsets, k);
+	}
+
+	/**
+	 * Returns the processes with the highest number of linked recipients, in
+	 * descending order.
+	 */
+	List<Degree> topOutDegrees(int k) {
+		return topDegrees(outOffsets, k);
+	}
+
+	private List<Degree> topDegrees(int[] offsets, int k) {
+		var nodes = new int[k];
+		var degrees = new int[k];
+		int size = 0;
+		for (int i = 0; i < nodeIds.length; i++) {
+			int degree = offsets[i + 1] - offsets[i];
+			if (degree == 0 || (size == k && degree <= degrees[k - 1]))
+				continue;
+			// insert into the sorted top-k arrays
+			int pos = Math.min(size, k - 1);
+			while (pos > 0 && degrees[pos - 1] < degree) {
+				nodes[pos] = nodes[pos - 1];
+				degrees[pos] = degrees[pos - 1];
+				pos--;
+			}
+			nodes[pos] = i;
+			degrees[pos] = degree;
+			if (size < k) {
+				size++;
+			}
+		}
+		var top = new ArrayList<Degree>(size);
+		for (int i = 0; i < size; i++) {
+			top.add(new Degree(nodeIds[nodes[i]], degrees[i]));
+		}
+		return top;
+	}
+
+	/**
+	 * Counts the links that are linked with the default provider of their
+	 * exchange and the links for which exactly one or multiple providers
+	 * exist in the database. The default providers are only queried for the
+	 * exchanges of the links.
+	 */
+	ProviderStats providerStats(IDatabase db) {
+		int m = linkExchanges.length;
+		var defaults = new TLongLongHashMap();
+		var exchangeIds = new TLongHashSet(linkExchanges).toArray();
+		Arrays.sort(exchangeIds);
+		int batchSize = 1000;
+		for (int from = 0; from < exchangeIds.length; from += batchSize) {
+			int to = Math.min(exchangeIds.length, from + batchSize);
+			var list = new StringBuilder();
+			for (int i = from; i < to; i++) {
+				if (i > from) {
+					list.append(',');
+				}
+				list.append(exchangeIds[i]);
+			}
+			var query = "select id, f_default_provider from tbl_exchanges"
+					+ " where id in (" + list + ")";
+			NativeSql.on(db).query(query, r -> {
+				long provider = r.getLong(2);
+				if (provider != 0L) {
+					defaults.put(r.getLong(1), provider);
+				}
+				return true;
+			});
+		}
+
+		int defaultCount = 0;
+		int singleCount = 0;
+		int multiCount = 0;
+		// reuse the process table of the matrix cache of the active database
+		var matrixCache = db == Database.get()
+				? Cache.getMatrixCache()
+				: null;
+		var table = matrixCache != null
+				? matrixCache.getProcessTable()
+				: ProcessTable.create(db);
+		for (int k = 0; k < m; k++) {
+			if (defaults.get(linkExchanges[k]) == linkProviders[k]) {
+				defaultCount++;
+			}
+			var providers = table.getProviders(linkFlows[k]);
+			if (providers == null || providers.isEmpty())
+				continue;
+			if (providers.size() == 1) {
+				singleCount++;
+			} else {
+				multiCount++;
+			}
+		}
+		return new ProviderStats(defaultCount, singleCount, multiCount);
+	}
+
+	record Degree(long processId, int degree) {
+	}
+
+	record ProviderStats(int defaultLinks, int singleLinks, int multiLinks) {
+	}
+
+	/**
+	 * The cache key of a graph. Changes of an opened product system are only
+	 * reflected in its last change when it is saved; thus, a hash of the
+	 * process links is also part of the key.
+	 */
+	private record Key(long systemId, long lastChange, int processCount,
+			int linkCount, long linkHash) {
+
+		static Key of(ProductSystem system) {
+			long hash = 17;
+			for (var link : system.processLinks) {
+				long h = link.processId;
+				h = 31 * h + link.providerId;
+				h = 31 * h + link.flowId;
+				h = 31 * h + link.exchangeId;
+				hash += h * 0x9E3779B97F4A7C15L;
+			}
+			var ref = system.referenceProcess;
+			hash = 31 * hash + (ref != null ? ref.id : 0);
+			return new Key(system.id, system.lastChange,
+					system.processes.size(), system.processLinks.size(), hash);
+		}
+	}
+}
@@ -1,62 +1,225 @@
 package org.openlca.app.navigation;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerFilter;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.swt.widgets.TreeItem;
+import org.openlca.app.navigation.elements.CategoryElement;
 import org.openlca.app.navigation.elements.INavigationElement;
 import org.openlca.app.navigation.elements.ModelElement;
-import org.openlca.app.util.Labels;
+import org.openlca.app.navigation.elements.ModelTypeElement;
+import org.openlca.core.model.ModelType;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TLongHashSet;
 
 /**
  * A class for filtering model elements from an navigation tree via a text
  * filter. The filter directly registers a listener on the text field.
+ * <p>
+ * The matching data sets and their ancestor categories are calculated from a
+ * {@link NameIndex} in a background job, which is started after the user
+ * stopped typing for a short delay and canceled when the text changes again.
+ * Selecting an element is then a simple lookup in these sets and does not
+ * load the content of the tree.
  */
 public class ModelTextFilter extends ViewerFilter {
 
+	/** The time in milliseconds to wait after a key stroke. */
+	private static final int DELAY = 250;
+
 	private final Text filterText;
+	private final TreeViewer viewer;
+	private final Display display;
+
+	/** The model types for which elements were passed into the filter. */
+	private final Set<ModelType> types = EnumSet.noneOf(ModelType.class);
+
+	/** The match sets of the last finished calculation; per model type. */
+	private Matches matches;
+	private Job job;
+	private int generation;
 
 	public ModelTextFilter(Text text, TreeViewer viewer) {
 		this.filterText = text;
-		text.addModifyListener(e -> {
+		this.viewer = viewer;
+		this.display = text.getDisplay();
+		text.addModifyListener(e -> schedule());
+	}
+
+	private void schedule() {
+		int gen = ++generation;
+		if (job != null) {
+			job.cancel();
+			job = null;
+		}
+		var text = textOf(filterText);
+		if (text == null) {
+			matches = null;
 			viewer.refresh();
-			expand(viewer);
+			return;
+		}
+		display.timerExec(DELAY, () -> {
+			if (gen != generation || filterText.isDisposed())
+				return;
+			var typeSet = types.isEmpty()
+					? EnumSet.copyOf(List.of(ModelTypeOrder.getOrderedTypes()))
+					: EnumSet.copyOf(types);
+			job = new MatchJob(gen, text, typeSet, matches);
+			job.setSystem(true);
+			job.schedule();
 		});
 	}
 
+	private void apply(int gen, Matches next) {
+		if (gen != generation || viewer.getTree().isDisposed())
+			return;
+		matches = next;
+		viewer.refresh();
+		expand(viewer);
+	}
+
 	private void expand(TreeViewer viewer) {
 		TreeItem[] items = viewer.getTree().getItems();
 		while (items != null && items.length > 0) {
 			TreeItem next = items[0];
-			next.setExpanded(true);
+			var data = next.getData();
+			if (data == null)
+				break;
+			viewer.expandToLevel(data, 1);
 			for (int i = 1; i < items.length; i++)
 				items[i].setExpanded(false);
 			items = next.getItems();
-			viewer.refresh();
 		}
 	}
 
+	private static String textOf(Text filterText) {
+		var text = filterText.getText();
+		if (text == null || text.trim().isEmpty())
+			return null;
+		return text.trim().toLowerCase();
+	}
+
 	@Override
 	public boolean select(Viewer viewer, Object parentElement, Object element) {
-		String text = filterText.getText();
-		if (text == null || text.trim().isEmpty())
+		var elem = (INavigationElement<?>) element;
+		var type = typeOf(elem);
+		if (type != null) {
+			types.add(type);
+		}
+		String text = textOf(filterText);
+		if (text == null)
 			return true;
-		text = text.trim().toLowerCase();
-		return select((INavigationElement<?>) element, text);
+		// until the matches of the current text are calculated, the matches
+		// of the previous text are used
+		var m = matches;
+		if (m == null)
+			return true;
+		return select(elem, m);
 	}
 
-	private boolean select(INavigationElement<?> element, String text) {
-		if (element instanceof ModelElement) {
-			ModelElement modelElement = (ModelElement) element;
-			String feed = Labels.name(modelElement.getContent())
-					.toLowerCase();
-			return feed.contains(text);
+	private boolean select(INavigationElement<?> element, Matches m) {
+		if (element instanceof ModelElement e) {
+			var d = e.getContent();
+			var typeMatches = d != null ? m.types.get(d.type) : null;
+			return typeMatches == null || typeMatches.models.contains(d.id);
+		}
+		if (element instanceof CategoryElement e) {
+			var c = e.getContent();
+			var typeMatches = c != null ? m.types.get(c.modelType) : null;
+			return typeMatches == null || typeMatches.categories.contains(c.id);
+		}
+		if (element instanceof ModelTypeElement e) {
+			var typeMatches = m.types.get(e.getContent());
+			return typeMatches == null || !typeMatches.models.isEmpty();
 		}
 		for (INavigationElement<?> child : element.getChildren()) {
-			if (select(child, text))
+			if (select(child, m))
 				return true;
 		}
 		return false;
 	}
+
+	private static ModelType typeOf(INavigationElement<?> elem) {
+		if (elem instanceof ModelElement e && e.getContent() != null)
+			return e.getContent().type;
+		if (elem instanceof CategoryElement e && e.getContent() != null)
+			return e.getContent().modelType;
+		if (elem instanceof ModelTypeElement e)
+			return e.getContent();
+		return null;
+	}
+
+	private record Matches(String text, Map<ModelType, TypeMatches> types) {
+	}
+
+	private record TypeMatches(
+			NameIndex index,
+			TIntArrayList positions,
+			TLongHashSet models,
+			TLongHashSet categories) {
+	}
+
+	private class MatchJob extends Job {
+
+		private final int gen;
+		private final String text;
+		private final Set<ModelType> typeSet;
+		private final Matches previous;
+
+		MatchJob(int gen, String text, Set<ModelType> typeSet, Matches previous) {
+			super("Filter navigation");
+			this.gen = gen;
+			this.text = text;
+			this.typeSet = typeSet;
+			this.previous = previous;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			var map = new EnumMap<ModelType, TypeMatches>(ModelType.class);
+			for (var type : typeSet) {
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				var index = NameIndex.of(type);
+				if (index == null)
+					continue;
+
+				// when the text was extended, only the previous matches
+				// need to be checked
+				TIntArrayList prev = null;
+				if (previous != null && text.contains(previous.text)) {
+					var prevMatches = previous.types.get(type);
+					if (prevMatches != null && prevMatches.index == index) {
+						prev = prevMatches.positions;
+					}
+				}
+				var positions = index.find(text, prev);
+				var models = new TLongHashSet();
+				var categories = new TLongHashSet();
+				index.collect(positions, models, categories);
+				map.put(type,
+						new TypeMatches(index, positions, models, categories));
+			}
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			var next = new Matches(text, map);
+			if (!display.isDisposed()) {
+				display.asyncExec(() -> apply(gen, next));
+			}
+			return Status.OK_STATUS;
+		}
+	}
 }
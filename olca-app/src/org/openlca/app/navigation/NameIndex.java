@@ -0,0 +1,114 @@
+package org.openlca.app.navigation;
+
+import java.util.EnumMap;
+
+import org.openlca.app.navigation.elements.ModelTypeSnapshot;
+import org.openlca.app.util.Labels;
+import org.openlca.core.model.ModelType;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * The lower case names and categories of the data sets of a model type in the
+ * active database. It is created from the {@link ModelTypeSnapshot} of that
+ * type and is used to calculate the matches of a text filter without loading
+ * the content of the navigation tree. An index is cached as long as its
+ * snapshot is valid and was not updated.
+ */
+class NameIndex {
+
+	private static final EnumMap<ModelType, NameIndex> cache =
+			new EnumMap<>(ModelType.class);
+
+	private final ModelTypeSnapshot snapshot;
+	private final int version;
+	private final long[] ids;
+	private final String[] names;
+	private final long[] categories;
+
+	private NameIndex(ModelTypeSnapshot snapshot, int version, int size) {
+		this.snapshot = snapshot;
+		this.version = version;
+		ids = new long[size];
+		names = new String[size];
+		categories = new long[size];
+	}
+
+	/**
+	 * Returns the index of the given model type of the active database. This
+	 * may run database queries and should not be called in the UI thread.
+	 */
+	static NameIndex of(ModelType type) {
+		var snapshot = ModelTypeSnapshot.of(type);
+		if (snapshot == null)
+			return null;
+		synchronized (cache) {
+			var index = cache.get(type);
+			if (index != null
+					&& index.snapshot == snapshot
+					&& index.version == snapshot.version())
+				return index;
+		}
+		var index = build(snapshot);
+		synchronized (cache) {
+			cache.put(type, index);
+		}
+		return index;
+	}
+
+	private static NameIndex build(ModelTypeSnapshot snapshot) {
+		int version = snapshot.version();
+		var descriptors = snapshot.all();
+		var index = new NameIndex(snapshot, version, descriptors.size());
+		int i = 0;
+		for (var d : descriptors) {
+			index.ids[i] = d.id;
+			index.names[i] = Labels.name(d).toLowerCase();
+			index.categories[i] = d.category != null ? d.category : 0;
+			i++;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the positions of the data sets which names contain the given
+	 * (lower case) text. If the positions of a previous query are given, only
+	 * these positions are checked; this is valid when the new text contains
+	 * the previous text.
+	 */
+	TIntArrayList find(String text, TIntArrayList previous) {
+		var positions = new TIntArrayList();
+		if (previous != null) {
+			for (int k = 0; k < previous.size(); k++) {
+				int i = previous.get(k);
+				if (names[i].contains(text)) {
+					positions.add(i);
+				}
+			}
+			return positions;
+		}
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].contains(text)) {
+				positions.add(i);
+			}
+		}
+		return positions;
+	}
+
+	/**
+	 * Adds the IDs of the data sets at the given positions and the IDs of all
+	 * their ancestor categories to the given sets.
+	 */
+	void collect(TIntArrayList positions, TLongHashSet models,
+			TLongHashSet categories) {
+		for (int k = 0; k < positions.size(); k++) {
+			int i = positions.get(k);
+			models.add(ids[i]);
+			long c = this.categories[i];
+			while (c != 0 && categories.add(c)) {
+				c = snapshot.parentOf(c);
+			}
+		}
+	}
+}
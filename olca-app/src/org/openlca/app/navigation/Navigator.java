@@ -44,6 +44,7 @@ import org.openlca.app.navigation.elements.LibraryElement;
 import org.openlca.app.navigation.elements.MappingFileElement;
 import org.openlca.app.navigation.elements.ModelElement;
 import org.openlca.app.navigation.elements.ModelTypeElement;
+import org.openlca.app.navigation.elements.ModelTypeSnapshot;
 import org.openlca.app.navigation.elements.NavigationRoot;
 import org.openlca.app.navigation.elements.ScriptElement;
 import org.openlca.app.util.Colors;
@@ -139,12 +140,19 @@ public class Navigator extends CommonNavigator {
 	 * Refresh the navigation view if it is available.
 	 */
 	public static void refresh() {
-		var viewer = getNavigationViewer();
-		var root = getNavigationRoot();
-		if (viewer == null || root == null)
+		if (getNavigationViewer() == null || getNavigationRoot() == null)
 			return;
 		NavCache.refresh();
-		if (viewer.getTree().isDisposed())
+		// reload the content snapshots in the background; until they are
+		// ready, the old snapshots are shown
+		ModelTypeSnapshot.reload(null, Navigator::refreshTree);
+		refreshTree();
+	}
+
+	private static void refreshTree() {
+		var viewer = getNavigationViewer();
+		var root = getNavigationRoot();
+		if (viewer == null || root == null || viewer.getTree().isDisposed())
 			return;
 		var oldExpansion = viewer.getExpandedElements();
 		root.update();
@@ -158,6 +166,8 @@ public class Navigator extends CommonNavigator {
 	public static void refresh(INavigationElement<?> element) {
 		if (element instanceof ModelTypeElement e) {
 			NavCache.refresh(e.getContent());
+		} else if (element instanceof ModelElement e) {
+			NavCache.update(e.getContent());
 		} else {
 			NavCache.refresh();
 		}
@@ -178,23 +188,26 @@ public class Navigator extends CommonNavigator {
 		var viewer = getNavigationViewer();
 		if (viewer == null || element == null)
 			return;
+
+		// reload the content snapshot of the respective model type in the
+		// background; a single data set is already updated in the snapshot
+		// via the cache
+		if (!(element instanceof ModelElement)) {
+			ModelTypeSnapshot.reload(
+					modelTypeOf(element), () -> refreshView(element));
+		}
+		refreshView(element);
+	}
+
+	private static void refreshView(INavigationElement<?> element) {
+		var viewer = getNavigationViewer();
+		if (viewer == null || viewer.getTree().isDisposed())
+			return;
 		element.update();
 		Object[] oldExpansion = viewer.getExpandedElements();
 		viewer.refresh(element);
 		updateLabels(viewer, element);
 		setRefreshedExpansion(viewer, oldExpansion);
-
-		// clear the category content cache for the respective model type
-		var modelType = modelTypeOf(element);
-		if (modelType == null)
-			return;
-		var dbElem = databaseElementOf(element);
-		if (dbElem == null)
-			return;
-		var contentTest = dbElem.categoryContentTest();
-		if (contentTest != null) {
-			contentTest.clearCacheOf(modelType);
-		}
 	}
 
 	private static ModelType modelTypeOf(INavigationElement<?> elem) {
@@ -210,16 +223,6 @@ public class Navigator extends CommonNavigator {
 		return null;
 	}
 
-	private static DatabaseElement databaseElementOf(INavigationElement<?> elem) {
-		var e = elem;
-		while (e != null) {
-			if (e instanceof DatabaseElement dbe)
-				return dbe;
-			e = e.getParent();
-		}
-		return null;
-	}
-
 	private static void updateLabels(CommonViewer viewer,
 			INavigationElement<?> element) {
 		TreeItem item = findItem(viewer, element);
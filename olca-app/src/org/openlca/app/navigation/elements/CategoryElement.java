@@ -3,11 +3,9 @@ package org.openlca.app.navigation.elements;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 import org.openlca.app.db.Database;
 import org.openlca.core.database.CategoryDao;
-import org.openlca.core.database.Daos;
 import org.openlca.core.model.Category;
 
 /**
@@ -35,27 +33,24 @@ public class CategoryElement extends NavigationElement<Category> {
 
 		var lib = getLibrary().orElse(null);
 		var list = new ArrayList<INavigationElement<?>>();
+		var snapshot = ModelTypeSnapshot.of(category.modelType);
 
 		// child categories
 		if (lib == null) {
 			category.childCategories.stream()
 				.map(c -> new CategoryElement(this, c))
 				.forEach(list::add);
-		} else {
-			var test = DatabaseElement.categoryTesterOf(this);
-			if (test != null) {
-				category.childCategories.stream()
-					.filter(c -> test.hasLibraryContent(c, lib))
-					.map(c -> new CategoryElement(this, c))
-					.forEach(list::add);
-			}
+		} else if (snapshot != null) {
+			category.childCategories.stream()
+				.filter(c -> snapshot.hasLibraryContent(c, lib))
+				.map(c -> new CategoryElement(this, c))
+				.forEach(list::add);
 		}
 
 		// models in this category
-		var dao = Daos.root(Database.get(), category.modelType);
-		if (dao == null)
+		if (snapshot == null)
 			return list;
-		for (var d : dao.getDescriptors(Optional.of(category))) {
+		for (var d : snapshot.contentOf(category)) {
 			if (lib == null || lib.equals(d.library)) {
 				list.add(new ModelElement(this, d));
 			}
@@ -63,13 +58,28 @@ public class CategoryElement extends NavigationElement<Category> {
 		return list;
 	}
 
+	/**
+	 * Returns {@code true} if the category of this element or a child category
+	 * of it contain model elements. If this element is located under a library,
+	 * only the elements of that library are considered.
+	 */
+	public boolean hasContent() {
+		var snapshot = snapshot();
+		if (snapshot == null)
+			return false;
+		var lib = getLibrary().orElse(null);
+		return lib == null
+			? snapshot.hasContent(getContent())
+			: snapshot.hasLibraryContent(getContent(), lib);
+	}
+
 	/**
 	 * Returns {@code true} if the category of this element or a child category
 	 * of it contain model elements from a library.
 	 */
 	public boolean hasLibraryContent() {
-		var test = DatabaseElement.categoryTesterOf(this);
-		return test != null && test.hasLibraryContent(getContent());
+		var snapshot = snapshot();
+		return snapshot != null && snapshot.hasLibraryContent(getContent());
 	}
 
 	/**
@@ -77,8 +87,9 @@ public class CategoryElement extends NavigationElement<Category> {
 	 * of it contain model elements from the given library.
 	 */
 	public boolean hasLibraryContent(String library) {
-		var test = DatabaseElement.categoryTesterOf(this);
-		return test != null && test.hasLibraryContent(getContent(), library);
+		var snapshot = snapshot();
+		return snapshot != null
+			&& snapshot.hasLibraryContent(getContent(), library);
 	}
 
 	/**
@@ -86,8 +97,9 @@ public class CategoryElement extends NavigationElement<Category> {
 	 * of it contain model elements only from the given library.
 	 */
 	public boolean hasOnlyLibraryContent(String library) {
-		var test = DatabaseElement.categoryTesterOf(this);
-		return test != null && test.hasOnlyLibraryContent(getContent(), library);
+		var snapshot = snapshot();
+		return snapshot != null
+			&& snapshot.hasOnlyLibraryContent(getContent(), library);
 	}
 
 	/**
@@ -95,8 +107,15 @@ public class CategoryElement extends NavigationElement<Category> {
 	 * of it contain model elements that do not belong to a library.
 	 */
 	public boolean hasNonLibraryContent() {
-		var test = DatabaseElement.categoryTesterOf(this);
-		return test != null && test.hasNonLibraryContent(getContent());
+		var snapshot = snapshot();
+		return snapshot != null && snapshot.hasNonLibraryContent(getContent());
+	}
+
+	private ModelTypeSnapshot snapshot() {
+		var category = getContent();
+		return category != null
+			? ModelTypeSnapshot.of(category.modelType)
+			: null;
 	}
 
 }
@@ -10,7 +10,6 @@ import org.openlca.app.db.Database;
 import org.openlca.app.rcp.Workspace;
 import org.openlca.core.database.config.DatabaseConfig;
 import org.openlca.core.model.ModelType;
-import org.openlca.util.CategoryContentTest;
 import org.openlca.util.Dirs;
 
 /**
@@ -18,45 +17,11 @@ import org.openlca.util.Dirs;
  */
 public class DatabaseElement extends NavigationElement<DatabaseConfig> {
 
-	private CategoryContentTest _categoryContentTest;
-
 	public DatabaseElement(INavigationElement<?> parent,
 		DatabaseConfig config) {
 		super(parent, config);
 	}
 
-	public CategoryContentTest categoryContentTest() {
-		if (_categoryContentTest != null)
-			return _categoryContentTest;
-		var config = getContent();
-		if (Database.isActive(config)) {
-			_categoryContentTest = new CategoryContentTest(Database.get());
-			return _categoryContentTest;
-		}
-		return null;
-	}
-
-	static CategoryContentTest categoryTesterOf(INavigationElement<?> elem) {
-		if (elem instanceof DatabaseElement dbElem)
-			return dbElem.categoryContentTest();
-		return elem != null
-			? categoryTesterOf(elem.getParent())
-			: null;
-	}
-
-	@Override
-	public void update() {
-		super.update();
-		if (_categoryContentTest == null)
-			return;
-		var config = getContent();
-		if (Database.isActive(config)) {
-			_categoryContentTest.clearCache();
-		} else {
-			_categoryContentTest = null;
-		}
-	}
-
 	@Override
 	protected List<INavigationElement<?>> queryChilds() {
 		if (!Database.isActive(getContent()))
@@ -3,11 +3,9 @@ package org.openlca.app.navigation.elements;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
 import org.openlca.app.db.Database;
 import org.openlca.core.database.CategoryDao;
-import org.openlca.core.database.Daos;
 import org.openlca.core.model.ModelType;
 
 public class ModelTypeElement extends NavigationElement<ModelType> {
@@ -23,6 +21,7 @@ public class ModelTypeElement extends NavigationElement<ModelType> {
 
 		var list = new ArrayList<INavigationElement<?>>();
 		var lib = getLibrary().orElse(null);
+		var snapshot = ModelTypeSnapshot.of(type);
 
 		// add root categories
 		if (lib == null) {
@@ -30,22 +29,18 @@ public class ModelTypeElement extends NavigationElement<ModelType> {
 				.stream()
 				.map(root -> new CategoryElement(this, root))
 				.forEach(list::add);
-		} else {
-			var test = DatabaseElement.categoryTesterOf(this);
-			if (test != null) {
-				new CategoryDao(db).getRootCategories(type)
-					.stream()
-					.filter(root -> test.hasLibraryContent(root, lib))
-					.map(root -> new CategoryElement(this, root))
-					.forEach(list::add);
-			}
+		} else if (snapshot != null) {
+			new CategoryDao(db).getRootCategories(type)
+				.stream()
+				.filter(root -> snapshot.hasLibraryContent(root, lib))
+				.map(root -> new CategoryElement(this, root))
+				.forEach(list::add);
 		}
 
 		// models without category
-		var dao = Daos.root(Database.get(), type);
-		if (dao == null)
+		if (snapshot == null)
 			return list;
-		for (var d : dao.getDescriptors(Optional.empty())) {
+		for (var d : snapshot.contentOf(null)) {
 			if (lib == null || Objects.equals(lib, d.library)) {
 				list.add(new ModelElement(this, d));
 			}
@@ -0,0 +1,475 @@
+package org.openlca.app.navigation.elements;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+import org.openlca.app.db.Database;
+import org.openlca.core.database.CategoryDao;
+import org.openlca.core.database.Daos;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.Category;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.descriptors.CategoryDescriptor;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.core.model.descriptors.RootDescriptor;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * The content of a model type in the navigation tree: the descriptors grouped
+ * by their category and the number of data sets in each category including
+ * its sub-categories. A snapshot is loaded with one descriptor query and one
+ * category query and serves the children and content tests of the navigation
+ * elements from memory. The snapshots are cached per type of the active
+ * database. When a data set is saved, created, or deleted, the snapshot of
+ * its type is updated in place (see {@link #update}); when the navigation is
+ * refreshed, it is reloaded in the background while the old snapshot is still
+ * served (see {@link #reload}).
+ */
+public class ModelTypeSnapshot {
+
+	private static final EnumMap<ModelType, ModelTypeSnapshot> cache =
+			new EnumMap<>(ModelType.class);
+	private static IDatabase cacheDb;
+
+	private final ModelType type;
+
+	/** The descriptors by ID. */
+	private final TLongObjectHashMap<RootDescriptor> all =
+			new TLongObjectHashMap<>();
+
+	/** The descriptors by category ID; uncategorized ones are stored under 0. */
+	private final TLongObjectHashMap<List<RootDescriptor>> content =
+			new TLongObjectHashMap<>();
+
+	/** The parent IDs of the categories; root categories map to 0. */
+	private final TLongLongHashMap parents = new TLongLongHashMap();
+
+	/** The content counts of the categories, including sub-categories. */
+	private final TLongObjectHashMap<Counts> counts = new TLongObjectHashMap<>();
+
+	/** Incremented on each change of the snapshot. */
+	private int version;
+
+	/**
+	 * While the snapshot is reloaded, the IDs of the data sets that are updated
+	 * in place are recorded, so that they can be applied to the new snapshot.
+	 */
+	private TLongHashSet reloadUpdates;
+	private boolean reloadCategories;
+
+	private ModelTypeSnapshot(ModelType type) {
+		this.type = type;
+	}
+
+	/**
+	 * Returns the snapshot of the given model type of the active database.
+	 * Returns `null` if no database is active or if the type is not a root
+	 * entity type.
+	 */
+	public static ModelTypeSnapshot of(ModelType type) {
+		var db = Database.get();
+		if (db == null || type == null)
+			return null;
+		synchronized (cache) {
+			if (cacheDb != db) {
+				cache.clear();
+				cacheDb = db;
+			}
+			var snapshot = cache.get(type);
+			if (snapshot != null)
+				return snapshot;
+		}
+		var snapshot = load(db, type);
+		if (snapshot == null)
+			return null;
+		synchronized (cache) {
+			if (cacheDb != db)
+				return snapshot;
+			var cached = cache.putIfAbsent(type, snapshot);
+			return cached != null ? cached : snapshot;
+		}
+	}
+
+	/**
+	 * Updates the cached snapshot for the given descriptor which was created,
+	 * changed, or deleted: its current state is queried by ID. For a category,
+	 * the category tree of the respective model type is queried again. Only
+	 * if the type is unknown, all snapshots are removed.
+	 */
+	public static void update(Descriptor d) {
+		if (d == null)
+			return;
+		if (d.type == null) {
+			clear();
+			return;
+		}
+		var db = Database.get();
+		if (db == null)
+			return;
+		if (d.type == ModelType.CATEGORY) {
+			var catType = d instanceof CategoryDescriptor c
+					? c.categoryType
+					: null;
+			for (var snapshot : cached(db)) {
+				if (catType == null || snapshot.type == catType) {
+					snapshot.reloadCategories(db);
+				}
+			}
+			return;
+		}
+		ModelTypeSnapshot snapshot;
+		synchronized (cache) {
+			snapshot = cacheDb == db ? cache.get(d.type) : null;
+		}
+		if (snapshot != null) {
+			snapshot.refresh(db, d.id);
+		}
+	}
+
+	/**
+	 * Reloads the snapshot of the given model type, or all snapshots if the
+	 * type is `null`, in a background job. Until the new snapshot is loaded,
+	 * the old one is returned from {@link #of}. The given callback is executed
+	 * in the UI thread after a new snapshot was loaded.
+	 */
+	public static void reload(ModelType type, Runnable onReady) {
+		var db = Database.get();
+		if (db == null)
+			return;
+		var snapshots = new ArrayList<ModelTypeSnapshot>();
+		for (var snapshot : cached(db)) {
+			if (type == null
+					|| type == ModelType.CATEGORY
+					|| snapshot.type == type) {
+				snapshots.add(snapshot);
+			}
+		}
+		if (snapshots.isEmpty())
+			return;
+		var display = Display.getCurrent();
+		var job = new Job("Reload navigation content") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				boolean changed = false;
+				for (var old : snapshots) {
+					changed |= old.reload(db);
+				}
+				if (changed && onReady != null && display != null
+						&& !display.isDisposed()) {
+					display.asyncExec(onReady);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	/**
+	 * Loads a new snapshot of the type of this snapshot and replaces this one
+	 * in the cache. Returns false if this snapshot is not cached anymore.
+	 */
+	private boolean reload(IDatabase db) {
+		synchronized (this) {
+			if (reloadUpdates != null)
+				return false; // already reloading
+			reloadUpdates = new TLongHashSet();
+			reloadCategories = false;
+		}
+		var fresh = load(db, type);
+		TLongHashSet updates;
+		boolean categories;
+		synchronized (this) {
+			updates = reloadUpdates;
+			categories = reloadCategories;
+			reloadUpdates = null;
+		}
+		if (fresh == null)
+			return false;
+
+		// apply the updates that happened while the new snapshot was loaded
+		if (categories) {
+			fresh.reloadCategories(db);
+		}
+		for (long id : updates.toArray()) {
+			fresh.refresh(db, id);
+		}
+		synchronized (cache) {
+			if (cacheDb != db || cache.get(type) != this)
+				return false;
+			cache.put(type, fresh);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the snapshot of the given model type. If the type is a category
+	 * or `null`, all snapshots are removed.
+	 */
+	public static void evict(ModelType type) {
+		synchronized (cache) {
+			if (type == null || type == ModelType.CATEGORY) {
+				cache.clear();
+			} else {
+				cache.remove(type);
+			}
+		}
+	}
+
+	public static void clear() {
+		evict(null);
+	}
+
+	private static List<ModelTypeSnapshot> cached(IDatabase db) {
+		synchronized (cache) {
+			return cacheDb == db
+					? new ArrayList<>(cache.values())
+					: Collections.emptyList();
+		}
+	}
+
+	private static ModelTypeSnapshot load(IDatabase db, ModelType type) {
+		var dao = Daos.root(db, type);
+		if (dao == null)
+			return null;
+		var s = new ModelTypeSnapshot(type);
+		for (var d : dao.getDescriptors()) {
+			s.all.put(d.id, d);
+			s.contentList(categoryOf(d)).add(d);
+		}
+		s.loadParents(db);
+		s.calculateCounts();
+		return s;
+	}
+
+	private void loadParents(IDatabase db) {
+		parents.clear();
+		for (var c : new CategoryDao(db).getDescriptors()) {
+			if (c.categoryType != type)
+				continue;
+			parents.put(c.id, c.category != null ? c.category : 0);
+		}
+	}
+
+	private static long categoryOf(RootDescriptor d) {
+		return d.category != null ? d.category : 0;
+	}
+
+	private List<RootDescriptor> contentList(long catId) {
+		var list = content.get(catId);
+		if (list == null) {
+			list = new ArrayList<>();
+			content.put(catId, list);
+		}
+		return list;
+	}
+
+	/**
+	 * Queries the descriptor with the given ID and replaces, adds, or removes
+	 * it in this snapshot.
+	 */
+	private void refresh(IDatabase db, long id) {
+		var dao = Daos.root(db, type);
+		if (dao == null)
+			return;
+		var d = dao.getDescriptor(id);
+		synchronized (this) {
+			if (reloadUpdates != null) {
+				reloadUpdates.add(id);
+			}
+			var old = all.remove(id);
+			if (old != null) {
+				long catId = categoryOf(old);
+				var list = content.get(catId);
+				if (list != null) {
+					list.removeIf(e -> e.id == id);
+				}
+				addCounts(catId, Counts.of(List.of(old)), -1);
+			}
+			if (d != null) {
+				all.put(id, d);
+				long catId = categoryOf(d);
+				contentList(catId).add(d);
+				addCounts(catId, Counts.of(List.of(d)), 1);
+			}
+			version++;
+		}
+	}
+
+	/**
+	 * Queries the category tree again, e.g. after a category was moved, and
+	 * recalculates the counts from the descriptors in memory.
+	 */
+	private void reloadCategories(IDatabase db) {
+		var fresh = new ModelTypeSnapshot(type);
+		fresh.loadParents(db);
+		synchronized (this) {
+			if (reloadUpdates != null) {
+				reloadCategories = true;
+			}
+			parents.clear();
+			parents.putAll(fresh.parents);
+			counts.clear();
+			calculateCounts();
+			version++;
+		}
+	}
+
+	/**
+	 * Adds the direct content of each category to the counts of the category
+	 * and all its ancestors.
+	 */
+	private void calculateCounts() {
+		for (long catId : content.keys()) {
+			if (catId == 0)
+				continue;
+			addCounts(catId, Counts.of(content.get(catId)), 1);
+		}
+	}
+
+	/**
+	 * Adds (sign = 1) or subtracts (sign = -1) the given counts to the counts
+	 * of the given category and all its ancestors.
+	 */
+	private void addCounts(long catId, Counts direct, int sign) {
+		long c = catId;
+		int depth = 0;
+		while (c != 0 && depth++ < 1000) {
+			var total = counts.get(c);
+			if (total == null) {
+				total = new Counts();
+				counts.put(c, total);
+			}
+			total.add(direct, sign);
+			c = parents.get(c);
+		}
+	}
+
+	/**
+	 * Returns a number that changes whenever the snapshot is updated in place.
+	 */
+	public synchronized int version() {
+		return version;
+	}
+
+	/**
+	 * Returns all descriptors of the model type.
+	 */
+	public synchronized List<RootDescriptor> all() {
+		return new ArrayList<>(all.valueCollection());
+	}
+
+	/**
+	 * Returns the descriptors that are directly located in the given category.
+	 * If the category is `null`, the uncategorized descriptors are returned.
+	 */
+	public synchronized List<RootDescriptor> contentOf(Category category) {
+		long catId = category != null ? category.id : 0;
+		var list = content.get(catId);
+		return list != null
+				? new ArrayList<>(list)
+				: Collections.emptyList();
+	}
+
+	/**
+	 * Returns the parent category ID of the given category or 0 if it is a
+	 * root category.
+	 */
+	public synchronized long parentOf(long categoryId) {
+		return parents.get(categoryId);
+	}
+
+	/**
+	 * Returns the number of data sets in the given category, including its
+	 * sub-categories.
+	 */
+	public synchronized int countOf(Category category) {
+		var c = countsOf(category);
+		return c != null ? c.total : 0;
+	}
+
+	public synchronized boolean hasContent(Category category) {
+		return countOf(category) > 0;
+	}
+
+	public synchronized boolean hasLibraryContent(Category category) {
+		var c = countsOf(category);
+		return c != null && c.total > c.nonLibrary;
+	}
+
+	public synchronized boolean hasLibraryContent(Category category, String library) {
+		var c = countsOf(category);
+		return c != null && c.ofLibrary(library) > 0;
+	}
+
+	public synchronized boolean hasOnlyLibraryContent(Category category, String library) {
+		var c = countsOf(category);
+		return c != null && c.total > 0 && c.ofLibrary(library) == c.total;
+	}
+
+	public synchronized boolean hasNonLibraryContent(Category category) {
+		var c = countsOf(category);
+		return c != null && c.nonLibrary > 0;
+	}
+
+	private synchronized Counts countsOf(Category category) {
+		return category != null
+				? counts.get(category.id)
+				: null;
+	}
+
+	private static class Counts {
+
+		int total;
+		int nonLibrary;
+		Map<String, Integer> libraries;
+
+		static Counts of(List<RootDescriptor> descriptors) {
+			var c = new Counts();
+			for (var d : descriptors) {
+				c.total++;
+				if (d.library == null) {
+					c.nonLibrary++;
+					continue;
+				}
+				if (c.libraries == null) {
+					c.libraries = new HashMap<>();
+				}
+				c.libraries.merge(d.library, 1, Integer::sum);
+			}
+			return c;
+		}
+
+		void add(Counts other, int sign) {
+			total += sign * other.total;
+			nonLibrary += sign * other.nonLibrary;
+			if (other.libraries == null)
+				return;
+			if (libraries == null) {
+				libraries = new HashMap<>();
+			}
+			for (var e : other.libraries.entrySet()) {
+				libraries.merge(e.getKey(), sign * e.getValue(), Integer::sum);
+			}
+		}
+
+		int ofLibrary(String library) {
+			if (library == null || libraries == null)
+				return 0;
+			var count = libraries.get(library);
+			return count != null ? count : 0;
+		}
+	}
+}
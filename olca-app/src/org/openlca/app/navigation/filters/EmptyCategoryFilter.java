@@ -1,6 +1,7 @@
 package org.openlca.app.navigation.filters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.jface.viewers.StructuredViewer;
@@ -24,16 +25,18 @@ public final class EmptyCategoryFilter extends ViewerFilter {
 
 	/**
 	 * A category element is selected when there are model components in it
-	 * which make it through all filters.
+	 * which make it through all filters. Whether a category contains model
+	 * components at all is checked with the precomputed content counts; the
+	 * content is only collected when other filters need to be applied.
 	 */
 	private boolean hasContent(Viewer viewer, CategoryElement element) {
-		List<ModelElement> content = new ArrayList<>();
-		collectContent(element, content);
-		if (content.size() == 0)
+		if (!element.hasContent())
 			return false;
 		ViewerFilter[] filters = getFilters(viewer);
 		if (filters.length == 0)
 			return true;
+		List<ModelElement> content = new ArrayList<>();
+		collectContent(element, content);
 		for (ModelElement model : content)
 			if (passesFilters(viewer, filters, model))
 				return true;
@@ -53,7 +56,11 @@ public final class EmptyCategoryFilter extends ViewerFilter {
 		ViewerFilter[] filters = null;
 		if (viewer instanceof StructuredViewer)
 			filters = ((StructuredViewer) viewer).getFilters();
-		return filters == null ? new ViewerFilter[0] : filters;
+		if (filters == null)
+			return new ViewerFilter[0];
+		return Arrays.stream(filters)
+				.filter(filter -> filter != this)
+				.toArray(ViewerFilter[]::new);
 	}
 
 	private boolean passesFilters(Viewer viewer, ViewerFilter[] filters,
@@ -12,7 +12,9 @@ public enum FeatureFlag {
 
 	MATRIX_IMAGE_EXPORT("Enable matrix image export"),
 
-	ADDITIONAL_PROPERTIES("Show additional properties of data sets");
+	ADDITIONAL_PROPERTIES("Show additional properties of data sets"),
+
+	CACHE_SNAPSHOTS("Store snapshots of calculation caches in the database folder");
 
 	private final String description;
 
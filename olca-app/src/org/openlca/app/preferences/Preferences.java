@@ -13,6 +13,7 @@ public final class Preferences extends AbstractPreferenceInitializer {
 	public static final String NUMBER_ACCURACY = "NUMBER_ACCURACY";
 	public static final String FORMAT_INPUT_VALUES = "FORMAT_INPUT_VALUES";
 	public static final String LAST_EXPORT_FOLDER = "LAST_EXPORT_FOLDER";
+	public static final String SIMULATION_THREADS = "SIMULATION_THREADS";
 
 	@Override
 	public void initializeDefaultPreferences() {
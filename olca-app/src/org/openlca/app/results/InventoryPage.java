@@ -140,18 +140,31 @@ public class InventoryPage extends FormPage {
 
 		private double cutoff;
 
+		/**
+		 * The sorted direct contributions per flow; they are independent of the
+		 * cutoff and thus only calculated once when the cutoff changes.
+		 */
+		private final SortedContributions.Cache<EnviFlow> cache =
+				new SortedContributions.Cache<>(256);
+
 		@Override
 		public Object[] getChildren(Object e) {
 			if (!(e instanceof EnviFlow flow))
 				return null;
-			double cutoffValue = Math.abs(getAmount(flow) * this.cutoff);
-			return editor.result().getProcessContributions(flow)
-					.stream()
-					.filter(i -> i.amount != 0)
-					.filter(i -> Math.abs(i.amount) >= cutoffValue)
-					.sorted((i1, i2) -> -Double.compare(i1.amount, i2.amount))
-					.map(i -> new FlowContribution(i, flow))
-					.toArray();
+			var result = editor.result();
+			var techFlows = editor.items().techFlows();
+			var sorted = cache.get(flow, () -> SortedContributions.of(
+					techFlows.size(),
+					i -> result.getDirectFlowOf(flow, techFlows.get(i))));
+			double total = getAmount(flow);
+			var childs = new ArrayList<FlowContribution>();
+			sorted.forEachAbove(total * cutoff, (i, amount) -> {
+				var c = Contribution.of(techFlows.get(i), amount);
+				c.computeShare(total);
+				childs.add(new FlowContribution(c, flow));
+				return true;
+			});
+			return childs.toArray();
 		}
 
 		@Override
@@ -0,0 +1,323 @@
+package org.openlca.app.results;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
+import org.openlca.app.util.ErrorReporter;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.results.LcaResult;
+import org.openlca.core.results.providers.LazyResultProvider;
+
+import gnu.trove.set.hash.TIntHashSet;
+
+/**
+ * Prefetches the matrix columns of lazy results. With a lazy result, the
+ * solution for a technosphere flow is calculated when it is requested for the
+ * first time; when this happens while a viewer is painted, the UI is blocked.
+ * The prefetcher collects the requested columns, e.g. of the visible rows of a
+ * viewer, and solves them in a background job. After a batch of columns is
+ * solved, the registered callbacks are executed in the UI thread, so that the
+ * respective rows can be refreshed.
+ * <p>
+ * The result provider is not thread-safe; access to it from other threads
+ * while the prefetcher is running must be wrapped in {@link #sync}, or in
+ * {@link #sync(LcaResult, Supplier)} where no prefetcher is available. The
+ * lock is the result provider itself; thus, it is shared by all prefetchers
+ * and readers of the same result. For eager results, all columns are always
+ * ready and the prefetcher does nothing.
+ */
+public class LazyPrefetch {
+
+	/** The delay in milliseconds before the visible rows are checked. */
+	private static final int DELAY = 100;
+
+	private final LcaResult result;
+	private final boolean lazy;
+
+	// guarded by this
+	private final TIntHashSet ready = new TIntHashSet();
+	private final TIntHashSet pending = new TIntHashSet();
+	private final List<Runnable> callbacks = new ArrayList<>();
+	private PrefetchJob job;
+	private boolean disposed;
+
+	private LazyPrefetch(LcaResult result) {
+		this.result = result;
+		this.lazy = result != null
+				&& result.provider() instanceof LazyResultProvider;
+	}
+
+	public static LazyPrefetch of(LcaResult result) {
+		return new LazyPrefetch(result);
+	}
+
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * Returns true if the column of the given technosphere flow can be read
+	 * without solving it in the UI thread.
+	 */
+	public boolean isReady(TechFlow techFlow) {
+		if (!lazy || techFlow == null)
+			return true;
+		int column = result.techIndex().of(techFlow);
+		if (column < 0)
+			return true;
+		synchronized (this) {
+			return ready.contains(column);
+		}
+	}
+
+	public boolean isReady(Collection<TechFlow> techFlows) {
+		if (!lazy)
+			return true;
+		for (var techFlow : techFlows) {
+			if (!isReady(techFlow))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Requests the columns of the given technosphere flows. The given callback
+	 * is executed in the UI thread when these columns are ready; when all
+	 * columns are already ready, nothing is done.
+	 */
+	public void request(Collection<TechFlow> techFlows, Runnable onReady) {
+		if (!lazy || techFlows == null || techFlows.isEmpty())
+			return;
+		var index = result.techIndex();
+		synchronized (this) {
+			if (disposed)
+				return;
+			boolean added = false;
+			for (var techFlow : techFlows) {
+				int column = index.of(techFlow);
+				if (column < 0 || ready.contains(column))
+					continue;
+				pending.add(column);
+				added = true;
+			}
+			if (!added)
+				return;
+			if (onReady != null) {
+				callbacks.add(onReady);
+			}
+			if (job == null) {
+				job = new PrefetchJob(Display.getCurrent());
+				job.schedule();
+			}
+		}
+	}
+
+	/**
+	 * Runs the given function synchronized with the prefetch job. This method
+	 * blocks at most until the column that is currently solved is ready.
+	 */
+	public <T> T sync(Supplier<T> fn) {
+		if (!lazy)
+			return fn.get();
+		synchronized (result.provider()) {
+			return fn.get();
+		}
+	}
+
+	/**
+	 * Runs the given function synchronized with the prefetch jobs and other
+	 * readers of the given result, e.g. in background jobs that read a lazy
+	 * result but do not have a prefetcher.
+	 */
+	public static <T> T sync(LcaResult result, Supplier<T> fn) {
+		if (result == null
+				|| !(result.provider() instanceof LazyResultProvider provider))
+			return fn.get();
+		synchronized (provider) {
+			return fn.get();
+		}
+	}
+
+	public double syncDouble(DoubleSupplier fn) {
+		if (!lazy)
+			return fn.getAsDouble();
+		synchronized (result.provider()) {
+			return fn.getAsDouble();
+		}
+	}
+
+	/**
+	 * Prefetches the columns of the visible rows of the given tree viewer. The
+	 * given function returns the columns that are required for a row element;
+	 * the rows are refreshed when their columns are ready.
+	 */
+	public void watch(
+			TreeViewer viewer, Function<Object, Collection<TechFlow>> columnsOf) {
+		if (!lazy || viewer == null)
+			return;
+		var tree = viewer.getTree();
+		var display = tree.getDisplay();
+		boolean[] scheduled = {false};
+		tree.addListener(SWT.Paint, e -> {
+			if (scheduled[0])
+				return;
+			scheduled[0] = true;
+			display.timerExec(DELAY, () -> {
+				scheduled[0] = false;
+				if (tree.isDisposed())
+					return;
+				var rows = new ArrayList<>();
+				var columns = new ArrayList<TechFlow>();
+				for (var elem : visibleElementsOf(tree)) {
+					var cols = columnsOf.apply(elem);
+					if (cols == null || isReady(cols))
+						continue;
+					rows.add(elem);
+					columns.addAll(cols);
+				}
+				if (rows.isEmpty())
+					return;
+				request(columns, () -> {
+					if (tree.isDisposed())
+						return;
+					for (var row : rows) {
+						viewer.refresh(row);
+					}
+				});
+			});
+		});
+		tree.addListener(SWT.Dispose, e -> dispose());
+	}
+
+	private static List<Object> visibleElementsOf(Tree tree) {
+		var elements = new ArrayList<>();
+		int height = tree.getItemHeight();
+		if (height <= 0)
+			return elements;
+		int count = tree.getClientArea().height / height + 1;
+		var item = tree.getTopItem();
+		for (int i = 0; i < count && item != null; i++) {
+			var data = item.getData();
+			if (data != null) {
+				elements.add(data);
+			}
+			item = nextVisible(tree, item);
+		}
+		return elements;
+	}
+
+	private static TreeItem nextVisible(Tree tree, TreeItem item) {
+		if (item.getExpanded() && item.getItemCount() > 0)
+			return item.getItem(0);
+		while (item != null) {
+			var parent = item.getParentItem();
+			int pos = parent != null
+					? parent.indexOf(item)
+					: tree.indexOf(item);
+			int count = parent != null
+					? parent.getItemCount()
+					: tree.getItemCount();
+			if (pos + 1 < count)
+				return parent != null
+						? parent.getItem(pos + 1)
+						: tree.getItem(pos + 1);
+			item = parent;
+		}
+		return null;
+	}
+
+	/**
+	 * Cancels a running prefetch job; later requests are ignored.
+	 */
+	public void dispose() {
+		synchronized (this) {
+			disposed = true;
+			pending.clear();
+			callbacks.clear();
+			if (job != null) {
+				job.cancel();
+				job = null;
+			}
+		}
+	}
+
+	private class PrefetchJob extends Job {
+
+		private final Display display;
+
+		PrefetchJob(Display display) {
+			super("Calculate result columns");
+			this.display = display;
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			var provider = result.provider();
+			while (true) {
+				int[] columns;
+				List<Runnable> fns;
+				synchronized (LazyPrefetch.this) {
+					if (pending.isEmpty() || monitor.isCanceled()) {
+						if (job == this) {
+							job = null;
+						}
+						return monitor.isCanceled()
+								? Status.CANCEL_STATUS
+								: Status.OK_STATUS;
+					}
+					columns = pending.toArray();
+					pending.clear();
+					fns = new ArrayList<>(callbacks);
+					callbacks.clear();
+				}
+
+				try {
+					for (int column : columns) {
+						if (monitor.isCanceled())
+							break;
+						synchronized (provider) {
+							provider.solutionOfOne(column);
+							if (provider.hasFlows()) {
+								provider.totalFlowsOfOne(column);
+							}
+							if (provider.hasImpacts()) {
+								provider.totalImpactsOfOne(column);
+							}
+						}
+						synchronized (LazyPrefetch.this) {
+							ready.add(column);
+						}
+					}
+				} catch (Exception e) {
+					ErrorReporter.on("Failed to calculate result columns", e);
+					synchronized (LazyPrefetch.this) {
+						job = null;
+					}
+					return Status.CANCEL_STATUS;
+				}
+
+				if (monitor.isCanceled() || display == null || display.isDisposed())
+					continue;
+				display.asyncExec(() -> {
+					for (var fn : fns) {
+						fn.run();
+					}
+				});
+			}
+		}
+	}
+}
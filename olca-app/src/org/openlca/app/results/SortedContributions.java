@@ -0,0 +1,173 @@
+package org.openlca.app.results;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Supplier;
+
+import gnu.trove.procedure.TIntDoubleProcedure;
+
+/**
+ * The non-zero values of a result row, e.g. the direct contributions of all
+ * technosphere flows to an inventory or impact result, sorted in descending
+ * order. The row is evaluated and sorted once; the values above a cutoff are
+ * then selected with a binary search, so that changing the cutoff does not
+ * touch the complete row again.
+ */
+public final class SortedContributions {
+
+	/** The positions of the non-zero values in the row, in sorted order. */
+	private final int[] indices;
+	private final double[] values;
+
+	private SortedContributions(int[] indices, double[] values) {
+		this.indices = indices;
+		this.values = values;
+	}
+
+	/**
+	 * Evaluates the given function for each position of a row with the given
+	 * size and sorts the non-zero values.
+	 */
+	public static SortedContributions of(int size, IntToDoubleFunction fn) {
+		var row = new double[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			row[i] = fn.applyAsDouble(i);
+			if (row[i] != 0) {
+				count++;
+			}
+		}
+		var indices = new int[count];
+		int k = 0;
+		for (int i = 0; i < size; i++) {
+			if (row[i] != 0) {
+				indices[k++] = i;
+			}
+		}
+		sort(indices, row);
+		var values = new double[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = row[indices[i]];
+		}
+		return new SortedContributions(indices, values);
+	}
+
+	/**
+	 * Returns the number of non-zero values of the row.
+	 */
+	public int size() {
+		return indices.length;
+	}
+
+	/**
+	 * Calls the given function with the row position and value of each
+	 * non-zero value with an absolute value that is greater or equal than the
+	 * given threshold, in descending order of the values. The iteration stops
+	 * when the function returns false, so that the top K values can be
+	 * selected.
+	 */
+	public void forEachAbove(double threshold, TIntDoubleProcedure fn) {
+		double t = Math.abs(threshold);
+		int n = values.length;
+
+		// the positive values >= t are a prefix, the negative values <= -t a
+		// suffix of the sorted values
+		int prefixEnd = firstIndexWhere(v -> v < t);
+		int suffixStart = t > 0
+				? firstIndexWhere(v -> v <= -t)
+				: prefixEnd;
+		for (int i = 0; i < prefixEnd; i++) {
+			if (!fn.execute(indices[i], values[i]))
+				return;
+		}
+		for (int i = Math.max(prefixEnd, suffixStart); i < n; i++) {
+			if (!fn.execute(indices[i], values[i]))
+				return;
+		}
+	}
+
+	/**
+	 * Returns the first index of the sorted values for which the given
+	 * condition is true; the condition must be monotone over the values.
+	 */
+	private int firstIndexWhere(DoublePredicate condition) {
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (condition.test(values[mid])) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Sorts the given row positions by their values in descending order, using
+	 * a heap sort on primitive arrays.
+	 */
+	private static void sort(int[] indices, double[] row) {
+		int n = indices.length;
+		for (int i = n / 2 - 1; i >= 0; i--) {
+			siftDown(indices, row, i, n);
+		}
+		for (int end = n - 1; end > 0; end--) {
+			swap(indices, 0, end);
+			siftDown(indices, row, 0, end);
+		}
+	}
+
+	/** Sift-down of a min-heap; the heap sort thus sorts descending. */
+	private static void siftDown(int[] indices, double[] row, int i, int n) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= n)
+				return;
+			if (child + 1 < n && row[indices[child + 1]] < row[indices[child]]) {
+				child++;
+			}
+			if (row[indices[child]] >= row[indices[i]])
+				return;
+			swap(indices, i, child);
+			i = child;
+		}
+	}
+
+	private static void swap(int[] a, int i, int j) {
+		int tmp = a[i];
+		a[i] = a[j];
+		a[j] = tmp;
+	}
+
+	/**
+	 * A cache of sorted rows with a fixed capacity; the least recently used
+	 * rows are removed first.
+	 */
+	public static class Cache<K> {
+
+		private final Map<K, SortedContributions> map;
+
+		public Cache(int capacity) {
+			map = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<K, SortedContributions> eldest) {
+					return size() > capacity;
+				}
+			};
+		}
+
+		public SortedContributions get(K key, Supplier<SortedContributions> fn) {
+			var sorted = map.get(key);
+			if (sorted == null) {
+				sorted = fn.get();
+				map.put(key, sorted);
+			}
+			return sorted;
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package org.openlca.app.results.analysis.sankey.model;
 
+import java.util.Objects;
+
 import org.openlca.app.results.analysis.sankey.SankeyConfig;
 import org.openlca.app.results.analysis.sankey.SankeyEditor;
 import org.openlca.app.tools.graphics.model.BaseComponent;
@@ -11,6 +13,7 @@ public class Diagram extends BaseComponent {
 	public final SankeyEditor editor;
 	public final int orientation;
 	private SankeyNode referenceNode;
+	private Sankey<?> sankey;
 
 	public Diagram(SankeyEditor editor, int orientation) {
 		this.editor = editor;
@@ -21,10 +24,15 @@ public class Diagram extends BaseComponent {
 		return editor;
 	}
 
+	/**
+	 * Returns the diagram node of the product of the given Sankey node. The
+	 * diagram nodes are kept when the diagram is updated with a new result of
+	 * the same selection, so they are identified by their product.
+	 */
 	public SankeyNode getNode(Sankey.Node node) {
 		for (var child : getChildren()) {
 			if (child instanceof SankeyNode sankeyNode) {
-				if (sankeyNode.node.equals(node))
+				if (Objects.equals(sankeyNode.product, node.product))
 					return sankeyNode;
 			}
 		}
@@ -32,12 +40,24 @@ public class Diagram extends BaseComponent {
 	}
 
 	public SankeyNode getReferenceNode() {
-		if (referenceNode == null) {
-			referenceNode = getNode(editor.getSankey().root);
+		if (referenceNode == null && sankey != null) {
+			referenceNode = getNode(sankey.root);
 		}
 		return referenceNode;
 	}
 
+	/**
+	 * Returns the Sankey result that is shown in this diagram.
+	 */
+	public Sankey<?> getSankey() {
+		return sankey;
+	}
+
+	void setSankey(Sankey<?> sankey) {
+		this.sankey = sankey;
+		referenceNode = null;
+	}
+
 	public boolean isReferenceNode(SankeyNode node) {
 		return getReferenceNode().equals(node);
 	}
@@ -53,7 +73,7 @@ public class Diagram extends BaseComponent {
 
 	@Override
 	public Component getFocusComponent() {
-		return (editor != null && editor.getSankey() != null)
+		return sankey != null
 				? getReferenceNode()
 				: null;
 	}
@@ -1,59 +1,242 @@
 package org.openlca.app.results.analysis.sankey.model;
 
-import org.openlca.app.App;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.gef.GraphicalViewer;
+import org.eclipse.swt.widgets.Display;
+import org.openlca.app.results.LazyPrefetch;
 import org.openlca.app.results.analysis.sankey.SankeyEditor;
+import org.openlca.app.tools.graphics.model.Component;
+import org.openlca.app.util.ErrorReporter;
+import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.results.Sankey;
 
+import static org.openlca.app.tools.graphics.model.Component.CHILDREN_PROP;
+
+/**
+ * Creates and updates the diagrams of a Sankey editor. The Sankey results are
+ * calculated in a background job; a running calculation is canceled when the
+ * configuration changes again. The results are cached per selection, cutoff,
+ * and maximum node count, so that switching back to a previous configuration
+ * (e.g. via undo) does not calculate them again. When the diagram is updated,
+ * only the nodes and links that changed are removed or added.
+ */
 public class SankeyFactory {
 
+	/** The maximum number of cached Sankey results. */
+	private static final int CACHE_SIZE = 16;
+
 	private final SankeyEditor editor;
+	private final Map<Key, Sankey<?>> cache = new LinkedHashMap<>(
+			CACHE_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Sankey<?>> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private int generation;
+	private BuildJob job;
 
 	public SankeyFactory(SankeyEditor editor) {
 		this.editor = editor;
 	}
 
+	/**
+	 * Creates a new diagram for the current configuration of the editor. The
+	 * nodes and links of the diagram are added when the Sankey results are
+	 * available.
+	 */
 	public Diagram createDiagram() {
+		var diagram = new Diagram(editor, editor.config.orientation());
+		update(diagram);
+		return diagram;
+	}
+
+	/**
+	 * Updates the given diagram to the current configuration of the editor.
+	 * This method must be called from the UI thread.
+	 */
+	public void update(Diagram diagram) {
+		int gen = ++generation;
+		if (job != null) {
+			job.cancel();
+			job = null;
+		}
+
 		var config = editor.config;
 		if (config.selection() == null
 				|| config.cutoff() < 0d
 				|| config.cutoff() > 1d
 				|| config.maxCount() < 0)
-			return new Diagram(editor, config.orientation());
-
-		var diagram = new Diagram(editor, config.orientation());
-		App.runWithProgress("Calculate sankey results",
-				() -> editor.setSankey(Sankey.of(
-						config.selection(), editor.result.provider())
-						.withMinimumShare(config.cutoff())
-						.withMaximumNodeCount(config.maxCount())
-						.build()),
-				() -> {
-					if (editor.getSankey() == null)
-						return;
-
-					// create the nodes
-					editor.getSankey().traverse(n -> {
-						var node = new SankeyNode(n, editor.getSankey());
-						diagram.addChild(node);
-					});
-
-					// create the links
-					editor.getSankey().traverse(n -> {
-						var target = diagram.getNode(n);
-						if (target == null)
-							return;
-						for (var provider : n.providers) {
-							var source = diagram.getNode(provider);
-							if (source == null)
-								continue;
-							var linkShare = editor.getSankey().getLinkShare(provider, n);
-							var ratio = linkShare * provider.share;
-							new SankeyLink(source, target, ratio);
-						}
-					});
-				});
+			return;
 
-		return diagram;
+		var key = new Key(config.selection(), config.cutoff(), config.maxCount());
+		var cached = cached(key);
+		if (cached != null) {
+			apply(gen, diagram, cached);
+			return;
+		}
+
+		job = new BuildJob(gen, key, diagram, Display.getCurrent());
+		job.schedule();
+	}
+
+	private Sankey<?> cached(Key key) {
+		synchronized (cache) {
+			return cache.get(key);
+		}
 	}
 
+	private void apply(int gen, Diagram diagram, Sankey<?> sankey) {
+		if (gen != generation)
+			return;
+		job = null;
+		editor.setSankey(sankey);
+		var viewer = (GraphicalViewer) editor.getAdapter(GraphicalViewer.class);
+		if (viewer == null
+				|| viewer.getControl() == null
+				|| viewer.getControl().isDisposed())
+			return;
+		update(diagram, sankey);
+	}
+
+	/**
+	 * Applies the nodes and links of the given Sankey result to the diagram. If
+	 * the diagram shows a result of the same selection, the nodes that are
+	 * contained in both results are kept, as their values do not depend on the
+	 * cutoff and maximum node count. The children of the diagram are refreshed
+	 * only once.
+	 */
+	private void update(Diagram diagram, Sankey<?> sankey) {
+		var previous = diagram.getSankey();
+		boolean reuse = previous != null
+				&& Objects.equals(previous.reference, sankey.reference);
+		diagram.setSankey(sankey);
+
+		var oldNodes = new HashMap<TechFlow, SankeyNode>();
+		for (var child : new ArrayList<>(diagram.getChildren())) {
+			if (child instanceof SankeyNode node && reuse)
+				oldNodes.put(node.product, node);
+			else {
+				disconnect(child);
+				diagram.removeChildQuietly(child);
+			}
+		}
+
+		// create the nodes that are not in the diagram yet
+		var nodes = new HashMap<TechFlow, SankeyNode>();
+		sankey.traverse(n -> {
+			var node = oldNodes.remove(n.product);
+			if (node == null) {
+				node = new SankeyNode(n, sankey);
+				diagram.addChildQuietly(node);
+			}
+			nodes.put(n.product, node);
+		});
+
+		// remove the nodes that are not in the result anymore
+		for (var node : oldNodes.values()) {
+			disconnect(node);
+			diagram.removeChildQuietly(node);
+		}
+
+		// keep the links that did not change and create the others
+		var oldLinks = new HashMap<LinkKey, SankeyLink>();
+		for (var node : nodes.values()) {
+			for (var link : node.getSourceConnections()) {
+				if (link instanceof SankeyLink l
+						&& l.getTarget() instanceof SankeyNode target) {
+					oldLinks.put(new LinkKey(node.product, target.product), l);
+				}
+			}
+		}
+		sankey.traverse(n -> {
+			var target = nodes.get(n.product);
+			if (target == null)
+				return;
+			for (var provider : n.providers) {
+				var source = nodes.get(provider.product);
+				if (source == null)
+					continue;
+				var linkShare = sankey.getLinkShare(provider, n);
+				var ratio = linkShare * provider.share;
+				var old = oldLinks.remove(new LinkKey(source.product, target.product));
+				if (old != null && old.ratio == ratio)
+					continue;
+				if (old != null) {
+					old.disconnect();
+				}
+				new SankeyLink(source, target, ratio);
+			}
+		});
+		for (var link : oldLinks.values()) {
+			link.disconnect();
+		}
+
+		diagram.firePropertyChange(CHILDREN_PROP, null, null);
+	}
+
+	private void disconnect(Component component) {
+		for (var link : new ArrayList<>(component.getAllLinks())) {
+			link.disconnect();
+		}
+	}
+
+	private record Key(Object selection, double cutoff, int maxCount) {
+	}
+
+	private record LinkKey(TechFlow source, TechFlow target) {
+	}
+
+	private class BuildJob extends Job {
+
+		private final int gen;
+		private final Key key;
+		private final Diagram diagram;
+		private final Display display;
+
+		BuildJob(int gen, Key key, Diagram diagram, Display display) {
+			super("Calculate sankey results");
+			this.gen = gen;
+			this.key = key;
+			this.diagram = diagram;
+			this.display = display;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+			try {
+				// the result provider is shared with the other result pages
+				var sankey = LazyPrefetch.sync(editor.result,
+						() -> Sankey.of(key.selection, editor.result.provider())
+								.withMinimumShare(key.cutoff)
+								.withMaximumNodeCount(key.maxCount)
+								.build());
+				synchronized (cache) {
+					cache.put(key, sankey);
+				}
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				if (display != null && !display.isDisposed()) {
+					display.asyncExec(() -> apply(gen, diagram, sankey));
+				}
+				return Status.OK_STATUS;
+			} catch (Exception e) {
+				ErrorReporter.on("Failed to calculate sankey results", e);
+				return Status.CANCEL_STATUS;
+			} finally {
+				monitor.done();
+			}
+		}
+	}
 }
@@ -22,7 +22,7 @@ public class EditConfigCommand extends Command {
 	private final Diagram oldDiagram;
 
 	/**
-	 * Create a command that can reset the Graph model to use the new config.
+	 * Create a command that updates the diagram to use the new config.
 	 */
 	public EditConfigCommand(Diagram diagram, SankeyConfig newConfig) {
 		if (diagram == null) {
@@ -45,29 +45,36 @@ public class EditConfigCommand extends Command {
 	@Override
 	public void execute() {
 		newConfig.copyTo(editor.config);
-		// Create new nodes with the new config.
-		newDiagram = editor.getSankeyFactory().createDiagram();
-
-		editor.setModel(newDiagram);
+		// A new diagram is only required when the orientation changed; otherwise,
+		// the existing diagram is updated with the nodes of the new config.
+		newDiagram = newConfig.orientation() != oldDiagram.orientation
+				? new Diagram(editor, newConfig.orientation())
+				: oldDiagram;
+		show(newDiagram);
 		if (editor.getHeader() != null) {
 			editor.getHeader().setModel(newDiagram);
 			newDiagram.firePropertyChange(CONFIG_PROP, null, newDiagram.getConfig());
 		}
-		viewer.setContents(newDiagram);
 	}
 
 	@Override
 	public void redo() {
 		newConfig.copyTo(editor.config);
-		editor.setModel(newDiagram);
-		viewer.setContents(newDiagram);
+		show(newDiagram);
 	}
 
 	@Override
 	public void undo() {
 		oldConfig.copyTo(editor.config);
-		editor.setModel(oldDiagram);
-		viewer.setContents(oldConfig);
+		show(oldDiagram);
+	}
+
+	private void show(Diagram diagram) {
+		if (editor.getModel() != diagram) {
+			editor.setModel(diagram);
+			viewer.setContents(diagram);
+		}
+		editor.getSankeyFactory().update(diagram);
 	}
 
 }
@@ -1,5 +1,8 @@
 package org.openlca.app.results.contributions;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.jface.viewers.BaseLabelProvider;
 import org.eclipse.jface.viewers.ITableLabelProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
@@ -18,6 +21,7 @@ import org.openlca.app.components.ContributionImage;
 import org.openlca.app.components.ResultItemSelector;
 import org.openlca.app.rcp.images.Icon;
 import org.openlca.app.rcp.images.Images;
+import org.openlca.app.results.LazyPrefetch;
 import org.openlca.app.results.ResultEditor;
 import org.openlca.app.util.Actions;
 import org.openlca.app.util.CostResultDescriptor;
@@ -29,6 +33,7 @@ import org.openlca.app.viewers.Viewers;
 import org.openlca.app.viewers.trees.TreeClipboard;
 import org.openlca.app.viewers.trees.Trees;
 import org.openlca.core.matrix.index.EnviFlow;
+import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.model.CalculationSetup;
 import org.openlca.core.model.descriptors.ImpactDescriptor;
 import org.openlca.core.results.LcaResult;
@@ -37,11 +42,15 @@ import org.openlca.core.results.UpstreamNode;
 import org.openlca.core.results.UpstreamTree;
 import org.openlca.util.Strings;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
+
 public class ContributionTreePage extends FormPage {
 
 	private final LcaResult result;
 	private final CalculationSetup setup;
 	private final ResultItemOrder items;
+	private final LazyPrefetch prefetch;
+	private final TIntObjectHashMap<List<TechFlow>> columns = new TIntObjectHashMap<>();
 
 	private TreeViewer tree;
 	private Object selection;
@@ -52,6 +61,7 @@ public class ContributionTreePage extends FormPage {
 		this.result = editor.result();
 		this.setup = editor.setup();
 		this.items = editor.items();
+		this.prefetch = LazyPrefetch.of(result);
 	}
 
 	@Override
@@ -89,6 +99,7 @@ public class ContributionTreePage extends FormPage {
 		tree.setAutoExpandLevel(2);
 		tree.getTree().setLinesVisible(false);
 		tree.setContentProvider(new ContentProvider());
+		prefetch.watch(tree, this::columnsOf);
 		tk.adapt(tree.getTree(), false, false);
 
 		tk.paintBordersFor(tree.getTree());
@@ -109,7 +120,7 @@ public class ContributionTreePage extends FormPage {
 		var onExport = Actions.create(M.ExportToExcel,
 				Images.descriptor(FileType.EXCEL), () -> {
 					if (tree.getInput() instanceof UpstreamTree uTree) {
-						TreeExportDialog.open(uTree);
+						TreeExportDialog.open(uTree, prefetch);
 					}
 				});
 
@@ -159,7 +170,33 @@ public class ContributionTreePage extends FormPage {
 		}
 	}
 
-	private static class ContentProvider implements ITreeContentProvider {
+	/**
+	 * Returns the technosphere flows of which the matrix columns are required
+	 * to calculate the child nodes of the given node, which are the providers
+	 * that are linked to the process of the node.
+	 */
+	private List<TechFlow> columnsOf(Object obj) {
+		if (!(obj instanceof UpstreamNode node) || node.provider() == null)
+			return List.of();
+		var index = result.techIndex();
+		int j = index.of(node.provider());
+		if (j < 0)
+			return List.of();
+		var cached = columns.get(j);
+		if (cached != null)
+			return cached;
+		var column = prefetch.sync(() -> result.provider().techColumnOf(j));
+		var providers = new ArrayList<TechFlow>();
+		for (int i = 0; i < column.length; i++) {
+			if (i != j && column[i] != 0) {
+				providers.add(index.at(i));
+			}
+		}
+		columns.put(j, providers);
+		return providers;
+	}
+
+	private class ContentProvider implements ITreeContentProvider {
 
 		private UpstreamTree tree;
 
@@ -169,7 +206,7 @@ public class ContributionTreePage extends FormPage {
 				return null;
 			if (tree == null)
 				return null;
-			return tree.childs(node).toArray();
+			return prefetch.sync(() -> tree.childs(node).toArray());
 		}
 
 		@Override
@@ -188,7 +225,11 @@ public class ContributionTreePage extends FormPage {
 		public boolean hasChildren(Object elem) {
 			if (!(elem instanceof UpstreamNode node))
 				return false;
-			return !tree.childs(node).isEmpty();
+			// for lazy results, the children are calculated when the columns
+			// of the node were prefetched or when the node is expanded
+			if (!prefetch.isReady(columnsOf(node)))
+				return true;
+			return prefetch.sync(() -> !tree.childs(node).isEmpty());
 		}
 
 		@Override
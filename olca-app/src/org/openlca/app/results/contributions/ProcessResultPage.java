@@ -1,6 +1,7 @@
 package org.openlca.app.results.contributions;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.jface.viewers.BaseLabelProvider;
 import org.eclipse.jface.viewers.ITableLabelProvider;
@@ -18,6 +19,7 @@ import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.openlca.app.M;
 import org.openlca.app.components.ContributionImage;
 import org.openlca.app.rcp.images.Icon;
+import org.openlca.app.results.LazyPrefetch;
 import org.openlca.app.results.ResultEditor;
 import org.openlca.app.util.Actions;
 import org.openlca.app.util.Controls;
@@ -44,6 +46,7 @@ public class ProcessResultPage extends FormPage {
 	private final CalculationSetup setup;
 	private final LcaResult result;
 	private final ResultItemOrder items;
+	private final LazyPrefetch prefetch;
 	private final ResultProvider flowResult;
 	private final ResultProvider impactResult;
 	private final ContributionImage image = new ContributionImage();
@@ -64,12 +67,14 @@ public class ProcessResultPage extends FormPage {
 		this.result = editor.result();
 		this.setup = editor.setup();
 		this.items = editor.items();
-		this.flowResult = new ResultProvider(result);
-		this.impactResult = new ResultProvider(result);
+		this.prefetch = LazyPrefetch.of(result);
+		this.flowResult = new ResultProvider(result, prefetch);
+		this.impactResult = new ResultProvider(result, prefetch);
 	}
 
 	@Override
 	public void dispose() {
+		prefetch.dispose();
 		image.dispose();
 		super.dispose();
 	}
@@ -104,6 +109,28 @@ public class ProcessResultPage extends FormPage {
 			impactCombo.select(refFlow);
 			impactTable.setInput(items.impacts());
 		}
+		prefetch(refFlow, () -> {
+			refresh(inputTable, outputTable);
+			refresh(impactTable);
+		});
+	}
+
+	/**
+	 * For lazy results, the upstream results of the given technosphere flow
+	 * are calculated in the background; until then, placeholders are shown.
+	 */
+	private void prefetch(TechFlow techFlow, Runnable onReady) {
+		if (techFlow != null && !prefetch.isReady(techFlow)) {
+			prefetch.request(List.of(techFlow), onReady);
+		}
+	}
+
+	private void refresh(TableViewer... tables) {
+		for (var table : tables) {
+			if (table != null && !table.getTable().isDisposed()) {
+				table.refresh();
+			}
+		}
 	}
 
 	private void fillFlows(TableViewer table) {
@@ -132,6 +159,7 @@ public class ProcessResultPage extends FormPage {
 		flowProcessViewer.setInput(items.techFlows());
 		flowProcessViewer.addSelectionChangedListener((selection) -> {
 			flowResult.setTechFlow(selection);
+			prefetch(selection, () -> refresh(inputTable, outputTable));
 			inputTable.refresh();
 			outputTable.refresh();
 		});
@@ -195,6 +223,7 @@ public class ProcessResultPage extends FormPage {
 		impactCombo.setInput(items.techFlows());
 		impactCombo.addSelectionChangedListener((selection) -> {
 			impactResult.setTechFlow(selection);
+			prefetch(selection, () -> refresh(impactTable));
 			impactTable.refresh();
 		});
 		UI.label(container, tk, M.DontShowSmallerThen);
@@ -268,10 +297,14 @@ public class ProcessResultPage extends FormPage {
 			if (!(o instanceof EnviFlow flow))
 				return null;
 			return switch (col) {
-				case 0 -> Numbers.percent(flowResult.getTotalContribution(flow));
+				case 0 -> flowResult.isReady()
+						? Numbers.percent(flowResult.getTotalContribution(flow))
+						: "...";
 				case 1 -> Labels.name(flow);
 				case 2 -> Labels.category(flow);
-				case 3 -> Numbers.format(flowResult.getTotalResult(flow));
+				case 3 -> flowResult.isReady()
+						? Numbers.format(flowResult.getTotalResult(flow))
+						: "...";
 				case 4 -> Numbers.format(flowResult.getDirectResult(flow));
 				case 5 -> Labels.refUnit(flow);
 				default -> null;
@@ -296,9 +329,13 @@ public class ProcessResultPage extends FormPage {
 			if (!(o instanceof ImpactDescriptor d))
 				return null;
 			return switch (col) {
-				case 0 -> Numbers.percent(impactResult.getTotalContribution(d));
+				case 0 -> impactResult.isReady()
+						? Numbers.percent(impactResult.getTotalContribution(d))
+						: "...";
 				case 1 -> d.name;
-				case 2 -> Numbers.format(impactResult.getTotalResult(d));
+				case 2 -> impactResult.isReady()
+						? Numbers.format(impactResult.getTotalResult(d))
+						: "...";
 				case 3 -> Numbers.format(impactResult.getDirectResult(d));
 				case 4 -> d.referenceUnit;
 				default -> null;
@@ -315,7 +352,8 @@ public class ProcessResultPage extends FormPage {
 				return false;
 			boolean forFlow = o instanceof EnviFlow;
 			double cutoff = forFlow ? flowCutOff : impactCutOff;
-			if (cutoff == 0)
+			var provider = forFlow ? flowResult : impactResult;
+			if (cutoff == 0 || !provider.isReady())
 				return true;
 			double c = forFlow
 					? flowResult.getTotalContribution((EnviFlow) o)
@@ -327,55 +365,73 @@ public class ProcessResultPage extends FormPage {
 	private static class ResultProvider {
 
 		private final LcaResult result;
+		private final LazyPrefetch prefetch;
 		private TechFlow techFlow;
 
-		public ResultProvider(LcaResult result) {
+		public ResultProvider(LcaResult result, LazyPrefetch prefetch) {
 			this.techFlow = result.demand().techFlow();
 			this.result = result;
+			this.prefetch = prefetch;
 		}
 
 		public void setTechFlow(TechFlow techFlow) {
 			this.techFlow = techFlow;
 		}
 
+		/**
+		 * Returns true if the upstream results of the selected technosphere
+		 * flow are available; for lazy results they are calculated in the
+		 * background and are 0 until then.
+		 */
+		private boolean isReady() {
+			return prefetch.isReady(techFlow);
+		}
+
 		private double getTotalContribution(EnviFlow flow) {
 			if (techFlow == null || flow == null)
 				return 0;
+			if (!isReady())
+				return 0;
 			double total = result.getTotalFlowValueOf(flow);
-			double value = result.getTotalFlowOf(flow, techFlow);
+			double value = prefetch.syncDouble(
+					() -> result.getTotalFlowOf(flow, techFlow));
 			return Contribution.shareOf(value, total);
 		}
 
 		private double getDirectResult(EnviFlow flow) {
 			return techFlow == null || flow == null
 					? 0
-					: result.getDirectFlowOf(flow, techFlow);
+					: prefetch.syncDouble(() -> result.getDirectFlowOf(flow, techFlow));
 		}
 
 		private double getTotalResult(EnviFlow flow) {
-			return techFlow == null || flow == null
+			return techFlow == null || flow == null || !isReady()
 					? 0
-					: result.getTotalFlowOf(flow, techFlow);
+					: prefetch.syncDouble(() -> result.getTotalFlowOf(flow, techFlow));
 		}
 
 		private double getTotalContribution(ImpactDescriptor impact) {
 			if (techFlow == null || impact == null)
 				return 0;
+			if (!isReady())
+				return 0;
 			double total = result.getTotalImpactValueOf(impact);
-			double val = result.getTotalImpactOf(impact, techFlow);
+			double val = prefetch.syncDouble(
+					() -> result.getTotalImpactOf(impact, techFlow));
 			return Contribution.shareOf(val, total);
 		}
 
 		private double getDirectResult(ImpactDescriptor impact) {
 			return techFlow == null || impact == null
 					? 0
-					: result.getDirectImpactOf(impact, techFlow);
+					: prefetch.syncDouble(
+							() -> result.getDirectImpactOf(impact, techFlow));
 		}
 
 		private double getTotalResult(ImpactDescriptor impact) {
-			return techFlow == null || impact == null
+			return techFlow == null || impact == null || !isReady()
 					? 0
-					: result.getTotalImpactOf(impact, techFlow);
+					: prefetch.syncDouble(() -> result.getTotalImpactOf(impact, techFlow));
 		}
 	}
 
@@ -1,6 +1,7 @@
 package org.openlca.app.results.contributions;
 
 import java.io.File;
+import java.lang.reflect.InvocationTargetException;
 
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.window.Window;
@@ -10,12 +11,14 @@ import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.forms.FormDialog;
+import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.forms.IManagedForm;
-import org.openlca.app.App;
 import org.openlca.app.M;
 import org.openlca.app.components.FileChooser;
+import org.openlca.app.results.LazyPrefetch;
 import org.openlca.app.util.Colors;
 import org.openlca.app.util.Controls;
+import org.openlca.app.util.ErrorReporter;
 import org.openlca.app.util.MsgBox;
 import org.openlca.app.util.UI;
 import org.openlca.core.results.UpstreamTree;
@@ -23,22 +26,29 @@ import org.openlca.core.results.UpstreamTree;
 class TreeExportDialog extends FormDialog {
 
 	private final UpstreamTree tree;
+	private final LazyPrefetch prefetch;
 	private File file;
 
 	private Text maxDepthText;
 	private Text minContrText;
 	private Text maxRecurText;
 
-	public static int open(UpstreamTree tree) {
-		if (tree == null)
+	/**
+	 * Opens the export dialog for the given tree. The given prefetcher of the
+	 * tree's result is used to synchronize the export with the other readers
+	 * of the result.
+	 */
+	public static int open(UpstreamTree tree, LazyPrefetch prefetch) {
+		if (tree == null || prefetch == null)
 			return Window.CANCEL;
-		return new TreeExportDialog(tree).open();
+		return new TreeExportDialog(tree, prefetch).open();
 	}
 
-	TreeExportDialog(UpstreamTree tree) {
+	TreeExportDialog(UpstreamTree tree, LazyPrefetch prefetch) {
 		super(UI.shell());
 		setBlockOnOpen(true);
 		this.tree = tree;
+		this.prefetch = prefetch;
 	}
 
 	@Override
@@ -123,7 +133,7 @@ class TreeExportDialog extends FormDialog {
 			return;
 		}
 
-		var export = new UpstreamTreeExport(file, tree);
+		var export = new UpstreamTreeExport(file, tree, prefetch);
 
 		if (maxDepthText.isEnabled()) {
 
@@ -190,7 +200,11 @@ class TreeExportDialog extends FormDialog {
 
 		// close the dialog and start the export
 		super.okPressed();
-		App.runWithProgress("Exporting contribution tree ...", export);
+		try {
+			PlatformUI.getWorkbench().getProgressService().run(true, true, export);
+		} catch (InvocationTargetException | InterruptedException e) {
+			ErrorReporter.on("Failed to export contribution tree", e);
+		}
 	}
 
 }
@@ -1,8 +1,12 @@
 package org.openlca.app.results.contributions;
 
-import gnu.trove.list.array.TDoubleArrayList;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.openlca.app.results.LazyPrefetch;
 import org.openlca.app.util.CostResultDescriptor;
 import org.openlca.app.util.Labels;
 import org.openlca.core.matrix.index.EnviFlow;
@@ -21,8 +25,15 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.util.Objects;
+import java.util.function.Consumer;
 
-class UpstreamTreeExport implements Runnable {
+/**
+ * Exports an upstream tree to an Excel file. The rows are streamed to the
+ * file while the tree is traversed, so that only a small window of rows is
+ * kept in memory. The export runs in a forked thread; the child nodes are
+ * thus calculated synchronized with the prefetcher of the result.
+ */
+class UpstreamTreeExport implements IRunnableWithProgress {
 
 	/**
 	 * The maximum number of levels that should be exported. A value < 0 means
@@ -45,46 +56,66 @@ class UpstreamTreeExport implements Runnable {
 	 */
 	public int maxRecursionDepth = 10;
 
+	/** The number of rows that are kept in memory. */
+	private static final int ROW_WINDOW = 500;
+
+	/** 1048575 is the maximum row number of an Excel sheet. */
+	private static final int MAX_ROW = 1048574;
+
 	private final File file;
 	private final UpstreamTree tree;
+	private final LazyPrefetch prefetch;
 
+	private IProgressMonitor monitor;
 	private Sheet sheet;
 	private int row;
-	private int maxColumn;
+	private int resultColumn;
+	/** Stops the depth pass when the maximum depth was reached. */
+	private boolean stopped;
 	private double totalResult;
-	private final TDoubleArrayList results = new TDoubleArrayList(100);
-	private final TDoubleArrayList direct = new TDoubleArrayList(100);
 
-	UpstreamTreeExport(File file, UpstreamTree tree) {
+	UpstreamTreeExport(File file, UpstreamTree tree, LazyPrefetch prefetch) {
 		this.file = file;
 		this.tree = tree;
+		this.prefetch = prefetch;
 	}
 
 	@Override
-	public void run() {
+	public void run(IProgressMonitor monitor) {
 		Logger log = LoggerFactory.getLogger(getClass());
 		if (file == null || tree == null) {
 			log.error("invalid input, file or tree is null");
 			return;
 		}
-		try (var wb = new XSSFWorkbook()) {
-			sheet = wb.createSheet("Upstream tree");
+		this.monitor = monitor;
+		monitor.beginTask("Export upstream tree", IProgressMonitor.UNKNOWN);
+		totalResult = tree.root.result();
+
+		// the result values are written next to the deepest level of the tree
+		// that is exported; the tree is traversed once to find that level,
+		// which is capped by the maximum depth
+		monitor.subTask("Calculate tree depth");
+		int[] depth = {0};
+		row = 1;
+		traverse(new Path(tree.root), path -> {
+			depth[0] = Math.max(depth[0], path.length);
+			if (maxDepth > 0 && depth[0] >= maxDepth) {
+				stopped = true;
+			}
+		});
+		stopped = false;
+		resultColumn = depth[0] + 1;
+		if (monitor.isCanceled())
+			return;
 
+		var wb = new SXSSFWorkbook(ROW_WINDOW);
+		try {
+			sheet = wb.createSheet("Upstream tree");
 			var bold = Excel.createBoldStyle(wb);
-			Excel.cell(sheet, 0, 0,
-							"Upstream contributions to: " + refName())
-					.ifPresent(c -> c.setCellStyle(bold));
-			Excel.cell(sheet, 1, 0, "Processes")
-					.ifPresent(c -> c.setCellStyle(bold));
+			cell(sheet.createRow(0), 0, "Upstream contributions to: " + refName())
+					.setCellStyle(bold);
 
-			// write the tree
-			row = 1;
-			maxColumn = 0;
-			totalResult = tree.root.result();
-			Path path = new Path(tree.root);
-			traverse(path);
-
-			// write the result values
+			// the header row
 			var unit = unit();
 			var resultHeader = Strings.nullOrEmpty(unit)
 					? "Result"
@@ -92,27 +123,27 @@ class UpstreamTreeExport implements Runnable {
 			var directHeader = Strings.notEmpty(unit)
 					? "Direct contribution [" + unit + "]"
 					: "Direct contribution";
-			Excel.cell(sheet, 1, maxColumn + 1, resultHeader)
-					.ifPresent(c -> c.setCellStyle(bold));
-			Excel.cell(sheet, 1, maxColumn + 2, directHeader)
-					.ifPresent(c -> c.setCellStyle(bold));
-			for (int i = 0; i < results.size(); i++) {
-				Excel.cell(sheet, i + 2, maxColumn + 1, results.get(i));
-				var d = direct.get(i);
-				if (d != 0) {
-					Excel.cell(sheet, i + 2, maxColumn + 2, d);
-				}
-			}
+			var header = sheet.createRow(1);
+			cell(header, 0, "Processes").setCellStyle(bold);
+			cell(header, resultColumn, resultHeader).setCellStyle(bold);
+			cell(header, resultColumn + 1, directHeader).setCellStyle(bold);
+
+			// write the tree
+			row = 1;
+			traverse(new Path(tree.root), this::write);
+			if (monitor.isCanceled())
+				return;
 
 			// set the column widths
-			for (int col = 0; col < maxColumn; col++) {
+			for (int col = 0; col < resultColumn - 1; col++) {
 				sheet.setColumnWidth(col, 750);
 			}
-			sheet.setColumnWidth(maxColumn, 50 * 255);
-			sheet.setColumnWidth(maxColumn + 1, 25 * 255);
-			sheet.setColumnWidth(maxColumn + 2, 25 * 255);
+			sheet.setColumnWidth(resultColumn - 1, 50 * 255);
+			sheet.setColumnWidth(resultColumn, 25 * 255);
+			sheet.setColumnWidth(resultColumn + 1, 25 * 255);
 
 			// write the file
+			monitor.subTask("Write file");
 			try (var fout = new FileOutputStream(file);
 					 var buff = new BufferedOutputStream(fout)) {
 				wb.write(buff);
@@ -120,9 +151,19 @@ class UpstreamTreeExport implements Runnable {
 		} catch (Exception e) {
 			log.error("Tree export failed", e);
 			throw new RuntimeException(e);
+		} finally {
+			// deletes the temporary files of the streamed rows
+			wb.dispose();
+			monitor.done();
 		}
 	}
 
+	private static Cell cell(Row row, int col, String value) {
+		var cell = row.createCell(col);
+		cell.setCellValue(value);
+		return cell;
+	}
+
 	private String refName() {
 		var ref = tree.ref;
 		if (ref == null)
@@ -154,13 +195,10 @@ class UpstreamTreeExport implements Runnable {
 		return "";
 	}
 
-	private void traverse(Path path) {
+	private void traverse(Path path, Consumer<Path> fn) {
 
-		if (row >= 1048574) {
-			// 1048575 is the maximum row number of an
-			// Excel sheet.
+		if (stopped || row >= MAX_ROW || monitor.isCanceled())
 			return;
-		}
 
 		var node = path.node;
 		double result = path.node.result();
@@ -182,25 +220,31 @@ class UpstreamTreeExport implements Runnable {
 			}
 		}
 
-		// write the node and expand the child nodes
-		write(path);
-		for (var child : tree.childs(node)) {
-			traverse(path.append(child));
+		// handle the node and expand the child nodes
+		row++;
+		if (row % 10_000 == 0) {
+			monitor.subTask(row + " rows");
+		}
+		fn.accept(path);
+		// the tree and its result are shared with the contribution tree page
+		var childs = prefetch.sync(() -> tree.childs(node));
+		for (var child : childs) {
+			traverse(path.append(child), fn);
 		}
 	}
 
 	private void write(Path path) {
-		row++;
-		results.add(path.node.result());
-		direct.add(path.node.directContribution());
-		int col = path.length;
-		maxColumn = Math.max(col, maxColumn);
+		var r = sheet.createRow(row);
 		var node = path.node;
-		if (node.provider() == null
-				|| node.provider().provider() == null)
-			return;
-		var label = Labels.name(node.provider().provider());
-		Excel.cell(sheet, row, col, label);
+		if (node.provider() != null && node.provider().provider() != null) {
+			var label = Labels.name(node.provider().provider());
+			cell(r, path.length, label);
+		}
+		r.createCell(resultColumn).setCellValue(node.result());
+		var d = node.directContribution();
+		if (d != 0) {
+			r.createCell(resultColumn + 1).setCellValue(d);
+		}
 	}
 
 	private static class Path {
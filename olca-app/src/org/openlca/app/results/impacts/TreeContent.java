@@ -3,12 +3,15 @@ package org.openlca.app.results.impacts;
 import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.openlca.app.results.ContributionCutoff;
+import org.openlca.app.results.SortedContributions;
 
 class TreeContent extends ArrayContentProvider
 		implements ITreeContentProvider, ContributionCutoff.CutoffContentProvider {
 
 	private double cutoff;
 	private final ImpactTreePage page;
+	private final SortedContributions.Cache<TreeItem.Key> cache =
+			new SortedContributions.Cache<>(256);
 
 	TreeContent(ImpactTreePage page) {
 		this.page = page;
@@ -27,13 +30,13 @@ class TreeContent extends ArrayContentProvider
 			return null;
 		if (item.isRoot()) {
 			var childs = page.flowsFirst
-					? item.enviNodesOf(page.items.enviFlows(), cutoff)
-					: item.techNodesOf(page.items.techFlows(), cutoff);
+					? item.enviNodesOf(page.items.enviFlows(), cutoff, cache)
+					: item.techNodesOf(page.items.techFlows(), cutoff, cache);
 			return childs.toArray();
 		}
 		var childs = item.isTechItem()
-				? item.enviLeafsOf(page.items.enviFlows(), cutoff)
-				: item.techLeafsOf(page.items.techFlows(), cutoff);
+				? item.enviLeafsOf(page.items.enviFlows(), cutoff, cache)
+				: item.techLeafsOf(page.items.techFlows(), cutoff, cache);
 		return childs.toArray();
 	}
 
@@ -1,9 +1,11 @@
 package org.openlca.app.results.impacts;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.BiFunction;
 
+import org.openlca.app.results.SortedContributions;
 import org.openlca.core.matrix.index.EnviFlow;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.model.descriptors.ImpactDescriptor;
@@ -70,41 +72,61 @@ record TreeItem(
 				.toList();
 	}
 
-	List<TreeItem> techNodesOf(List<TechFlow> techFlows, double cutoff) {
+	List<TreeItem> techNodesOf(
+			List<TechFlow> techFlows, double cutoff, SortedContributions.Cache<Key> cache) {
 		return isRoot()
-				? collect(techFlows, cutoff, TreeItem::techNodeOf)
+				? collect(techFlows, cutoff, cache, TreeItem::techNodeOf)
 				: Collections.emptyList();
 	}
 
-	List<TreeItem> techLeafsOf(List<TechFlow> techFlows, double cutoff) {
+	List<TreeItem> techLeafsOf(
+			List<TechFlow> techFlows, double cutoff, SortedContributions.Cache<Key> cache) {
 		return isEnviItem()
-				? collect(techFlows, cutoff, TreeItem::techLeafOf)
+				? collect(techFlows, cutoff, cache, TreeItem::techLeafOf)
 				: Collections.emptyList();
 	}
 
-	List<TreeItem> enviNodesOf(List<EnviFlow> enviFlows, double cutoff) {
+	List<TreeItem> enviNodesOf(
+			List<EnviFlow> enviFlows, double cutoff, SortedContributions.Cache<Key> cache) {
 		return isRoot()
-				? collect(enviFlows, cutoff, TreeItem::enviNodeOf)
+				? collect(enviFlows, cutoff, cache, TreeItem::enviNodeOf)
 				: Collections.emptyList();
 	}
 
-	List<TreeItem> enviLeafsOf(List<EnviFlow> enviFlows, double cutoff) {
+	List<TreeItem> enviLeafsOf(
+			List<EnviFlow> enviFlows, double cutoff, SortedContributions.Cache<Key> cache) {
 		return isTechItem()
-				? collect(enviFlows, cutoff, TreeItem::enviLeafOf)
+				? collect(enviFlows, cutoff, cache, TreeItem::enviLeafOf)
 				: Collections.emptyList();
 	}
 
+	/**
+	 * Collects the child items of this item with a result above the cutoff.
+	 * The sorted results of all possible child items are cached, so that only
+	 * the items above the cutoff are created when the cutoff changes.
+	 */
 	private <E> List<TreeItem> collect(
-			List<E> elements, double cutoff, BiFunction<TreeItem, E, TreeItem> fn) {
-		double absMax = cutoff != 0
-				? Math.abs(result.getTotalImpactValueOf(impact) * cutoff)
-				: 0;
-		return elements.stream()
-				.map(e -> fn.apply(this, e))
-				.filter(item -> item.impactResult != 0
-						&& (cutoff == 0 || Math.abs(item.impactResult) >= absMax))
-				.sorted((i1, i2) -> Double.compare(i2.impactResult, i1.impactResult))
-				.toList();
+			List<E> elements, double cutoff, SortedContributions.Cache<Key> cache,
+			BiFunction<TreeItem, E, TreeItem> fn) {
+		var key = new Key(this, !elements.isEmpty()
+				&& elements.get(0) instanceof EnviFlow);
+		var sorted = cache.get(key, () -> SortedContributions.of(
+				elements.size(),
+				i -> fn.apply(this, elements.get(i)).impactResult));
+		double threshold = result.getTotalImpactValueOf(impact) * cutoff;
+		var items = new ArrayList<TreeItem>();
+		sorted.forEachAbove(threshold, (i, value) -> {
+			items.add(fn.apply(this, elements.get(i)));
+			return true;
+		});
+		return items;
+	}
+
+	/**
+	 * The key of the sorted child results of an item; the children of a root
+	 * can be technosphere or intervention flows.
+	 */
+	record Key(TreeItem item, boolean enviChilds) {
 	}
 
 	boolean isRoot() {
@@ -0,0 +1,189 @@
+package org.openlca.app.results.simulation;
+
+import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.openlca.app.App;
+import org.openlca.app.db.Database;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.math.Simulator;
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.ParameterTable;
+import org.openlca.core.matrix.solvers.JavaSolver;
+import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.matrix.solvers.NativeSolver;
+import org.openlca.core.matrix.solvers.mkl.MKLSolver;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.descriptors.ProcessDescriptor;
+import org.openlca.core.results.LcaResult;
+import org.openlca.core.results.ResultProviders;
+import org.openlca.core.results.SolverContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the iterations of a Monte Carlo simulation on a pool of worker threads.
+ * The matrix data with the uncertainty distributions are built once and are
+ * shared by all workers; they are only read. For each run, a worker copies the
+ * matrices, samples new values into the copies with its own parameter table
+ * and random number generators, and solves them with its own solver. The runs
+ * are taken from a continuous queue: as soon as a run is finished, the next
+ * one is started. The results are appended to the result of the editor's
+ * simulator in the order in which they are finished.
+ */
+class ParallelSimulation {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final IDatabase db;
+	private final Simulator target;
+	private final MatrixData data;
+	private final ThreadLocal<Worker> workers;
+	private final ExecutorService pool;
+	private final int threads;
+
+	private ParallelSimulation(
+			IDatabase db, Simulator target, MatrixData data,
+			ThreadLocal<Worker> workers, int threads) {
+		this.db = db;
+		this.target = target;
+		this.data = data;
+		this.workers = workers;
+		this.threads = threads;
+		this.pool = Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Creates the parallel simulation for the given editor. Returns null when
+	 * the simulation cannot be calculated in parallel, e.g. when product
+	 * systems are linked as sub-systems or when costs are included, because
+	 * their uncertainties are only handled by the core simulator.
+	 */
+	static ParallelSimulation of(SimulationEditor editor, int threads) {
+		var db = Database.get();
+		var setup = editor.setup;
+		var techIndex = editor.simulator.getResult().techIndex();
+		for (var techFlow : techIndex) {
+			if (!(techFlow.provider() instanceof ProcessDescriptor))
+				return null;
+		}
+		var data = MatrixData.of(db, techIndex)
+				.withSetup(setup)
+				.withUncertainties(true)
+				.build();
+		if (data.costVector != null)
+			return null;
+
+		var contexts = new HashSet<Long>();
+		techIndex.each((i, techFlow) -> contexts.add(techFlow.providerId()));
+		if (data.impactIndex != null) {
+			data.impactIndex.each((i, impact) -> contexts.add(impact.id));
+		}
+		ThreadLocal<Worker> workers = ThreadLocal.withInitial(
+				() -> Worker.of(db, setup, contexts));
+		return new ParallelSimulation(
+				db, editor.simulator, data, workers, Math.max(1, threads));
+	}
+
+	/**
+	 * Creates a new solver instance of the same type as the solver of the
+	 * application so that the workers do not share a solver.
+	 */
+	private static MatrixSolver newSolver() {
+		var solver = App.getSolver();
+		if (solver instanceof MKLSolver)
+			return new MKLSolver();
+		if (solver instanceof NativeSolver)
+			return new NativeSolver();
+		return new JavaSolver();
+	}
+
+	/**
+	 * Calculates the given number of runs and appends the results to the
+	 * target simulator. Each successful run is passed to the given function
+	 * after it was appended and before it is disposed. Failed runs are not counted and
+	 * are replaced by new runs, up to the given number of runs in total.
+	 * Returns the number of successful runs.
+	 */
+	int run(int runs, IProgressMonitor monitor, Consumer<LcaResult> onRun)
+			throws InterruptedException {
+		var queue = new ExecutorCompletionService<LcaResult>(pool);
+		var result = target.getResult();
+		int running = 0;
+		int succeeded = 0;
+		int failed = 0;
+		while (true) {
+			while (!monitor.isCanceled()
+					&& running < threads
+					&& succeeded + running < runs
+					&& failed < runs) {
+				queue.submit(this::nextRun);
+				running++;
+			}
+			if (running == 0)
+				return succeeded;
+			var future = queue.take();
+			running--;
+			try {
+				var r = future.get();
+				result.append(r);
+				onRun.accept(r);
+				r.dispose();
+				succeeded++;
+			} catch (ExecutionException e) {
+				failed++;
+				log.error("simulation run failed", e.getCause());
+			}
+		}
+	}
+
+	private LcaResult nextRun() {
+		var worker = workers.get();
+		var interpreter = worker.parameters().simulate();
+		var run = new MatrixData();
+		run.techIndex = data.techIndex;
+		run.enviIndex = data.enviIndex;
+		run.impactIndex = data.impactIndex;
+		run.demand = data.demand;
+		run.techMatrix = data.techMatrix.copy();
+		if (data.techUncertainties != null) {
+			data.techUncertainties.generate(run.techMatrix, interpreter);
+		}
+		if (data.enviMatrix != null) {
+			run.enviMatrix = data.enviMatrix.copy();
+			if (data.enviUncertainties != null) {
+				data.enviUncertainties.generate(run.enviMatrix, interpreter);
+			}
+		}
+		if (data.impactMatrix != null) {
+			run.impactMatrix = data.impactMatrix.copy();
+			if (data.impactUncertainties != null) {
+				data.impactUncertainties.generate(run.impactMatrix, interpreter);
+			}
+		}
+		var context = SolverContext.of(db, run)
+				.withSolver(worker.solver());
+		return new LcaResult(ResultProviders.solve(context));
+	}
+
+	void dispose() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * The thread-confined state of a worker: the parameter table with its
+	 * random number generators and the solver.
+	 */
+	private record Worker(ParameterTable parameters, MatrixSolver solver) {
+
+		static Worker of(IDatabase db, CalculationSetup setup, HashSet<Long> contexts) {
+			var parameters = ParameterTable.forSimulation(
+					db, contexts, new HashSet<>(setup.parameters()));
+			return new Worker(parameters, newSolver());
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package org.openlca.app.results.simulation;
+
+import org.openlca.core.matrix.index.EnviFlow;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.model.descriptors.ImpactDescriptor;
+import org.openlca.core.results.LcaResult;
+import org.openlca.core.results.SimulationResult;
+
+import gnu.trove.list.array.TDoubleArrayList;
+
+/**
+ * Collects the values of the selected result item from the simulation runs,
+ * so that the statistics on the page can be updated with the new runs only,
+ * without copying the values of all runs from the simulation result on each
+ * refresh. The values of all previous runs are only read once when the
+ * selection changes. While a simulation is running, this is done in the
+ * simulation thread after a run, so that no run is counted twice or missed.
+ */
+class RunFeed {
+
+	private final SimulationResult result;
+
+	// guarded by this
+	private final TDoubleArrayList pending = new TDoubleArrayList();
+	private Selection selection;
+	private boolean running;
+	private boolean reload;
+	private boolean reset;
+
+	RunFeed(SimulationResult result) {
+		this.result = result;
+	}
+
+	/**
+	 * Sets the selected result item: an environmental flow or impact category
+	 * with an optional pinned product.
+	 */
+	synchronized void select(TechFlow pin, Object item) {
+		selection = item != null
+				? new Selection(pin, item)
+				: null;
+		pending.clear();
+		reload = selection != null;
+		reset = true;
+	}
+
+	synchronized void start() {
+		running = true;
+	}
+
+	synchronized void finish() {
+		running = false;
+	}
+
+	/**
+	 * Must be called in the simulation thread after the given run was
+	 * appended to the simulation result.
+	 */
+	synchronized void accept(LcaResult run) {
+		if (selection == null)
+			return;
+		if (reload) {
+			// the values of all runs, including the new one
+			pending.add(allOf(selection));
+			reload = false;
+			return;
+		}
+		pending.add(valueOf(run, selection));
+	}
+
+	/**
+	 * Returns the values that were collected since the last call. Returns null
+	 * if there are no new values.
+	 */
+	synchronized Update drain() {
+		if (reload && !running) {
+			pending.add(allOf(selection));
+			reload = false;
+		}
+		if (pending.isEmpty() && !reset)
+			return null;
+		var update = new Update(reset, pending.toArray());
+		pending.clear();
+		reset = false;
+		return update;
+	}
+
+	private double[] allOf(Selection s) {
+		if (s.item instanceof EnviFlow flow)
+			return s.pin != null
+					? result.getAllUpstream(s.pin, flow)
+					: result.getAll(flow);
+		if (s.item instanceof ImpactDescriptor impact)
+			return s.pin != null
+					? result.getAllUpstream(s.pin, impact)
+					: result.getAll(impact);
+		return new double[0];
+	}
+
+	private double valueOf(LcaResult run, Selection s) {
+		if (s.item instanceof EnviFlow flow)
+			return s.pin != null
+					? run.getTotalFlowOf(flow, s.pin)
+					: run.getTotalFlowValueOf(flow);
+		if (s.item instanceof ImpactDescriptor impact)
+			return s.pin != null
+					? run.getTotalImpactOf(impact, s.pin)
+					: run.getTotalImpactValueOf(impact);
+		return 0;
+	}
+
+	/**
+	 * The new values of the selected item. If reset is true, the selection
+	 * has changed and the values replace the current statistics.
+	 */
+	record Update(boolean reset, double[] values) {
+	}
+
+	private record Selection(TechFlow pin, Object item) {
+	}
+}
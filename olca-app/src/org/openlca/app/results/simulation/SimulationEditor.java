@@ -12,6 +12,7 @@ import org.openlca.app.db.Cache;
 import org.openlca.app.db.Database;
 import org.openlca.app.editors.Editors;
 import org.openlca.app.editors.SimpleFormEditor;
+import org.openlca.app.preferences.Preferences;
 import org.openlca.app.rcp.images.Icon;
 import org.openlca.app.util.Labels;
 import org.openlca.core.math.Simulator;
@@ -27,6 +28,10 @@ public class SimulationEditor extends SimpleFormEditor {
 	CalculationSetup setup;
 	Simulator simulator;
 
+	/** The number of threads that are used to calculate the runs. */
+	int threads = Preferences.getInt(Preferences.SIMULATION_THREADS,
+			Runtime.getRuntime().availableProcessors());
+
 	/**
 	 * Initializes the Monte Carlo simulation of a product system and opens the
 	 * editor.
@@ -15,6 +15,7 @@ import org.eclipse.ui.forms.widgets.ScrolledForm;
 import org.eclipse.ui.forms.widgets.Section;
 import org.openlca.app.M;
 import org.openlca.app.components.ResultFlowCombo;
+import org.openlca.app.preferences.Preferences;
 import org.openlca.app.results.Sort;
 import org.openlca.app.util.Actions;
 import org.openlca.app.util.Labels;
@@ -40,6 +41,7 @@ class SimulationPage extends FormPage {
 	private final Simulator simulator;
 	private final SimulationResult result;
 	private final ResultItemOrder items;
+	final RunFeed feed;
 
 	private StatisticsCanvas statisticsCanvas;
 	private ProgressBar progressBar;
@@ -59,6 +61,7 @@ class SimulationPage extends FormPage {
 		this.simulator = editor.simulator;
 		this.result = editor.simulator.getResult();
 		this.items = ResultItemOrder.of(result);
+		this.feed = new RunFeed(result);
 		Sort.sort(this.items);
 	}
 
@@ -89,6 +92,7 @@ class SimulationPage extends FormPage {
 		Text processText = UI.labeledText(settings, toolkit, M.Process);
 		Text qRefText = UI.labeledText(settings, toolkit, M.QuantitativeReference);
 		Text simCountText = UI.labeledText(settings, toolkit, M.NumberOfSimulations);
+		createThreadSpinner(toolkit, settings);
 		if (editor.setup != null) {
 			var setup = editor.setup;
 			systemText.setText(Labels.name(setup.target()));
@@ -102,6 +106,19 @@ class SimulationPage extends FormPage {
 		simCountText.setEditable(false);
 	}
 
+	private void createThreadSpinner(FormToolkit tk, Composite comp) {
+		UI.label(comp, tk, "Number of threads");
+		var spinner = UI.spinner(comp, tk, SWT.BORDER);
+		int max = Runtime.getRuntime().availableProcessors();
+		spinner.setValues(Math.min(editor.threads, max), 1, max, 0, 1, 1);
+		spinner.setToolTipText("Runs are only calculated in parallel when"
+			+ " no products are pinned");
+		spinner.addModifyListener($ -> {
+			editor.threads = spinner.getSelection();
+			Preferences.set(Preferences.SIMULATION_THREADS, editor.threads);
+		});
+	}
+
 	private String getQRefText() {
 		var setup = editor.setup;
 		double amount = setup.amount();
@@ -171,29 +188,43 @@ class SimulationPage extends FormPage {
 			var flow = flowViewer.getSelected();
 			if (flow == null)
 				return;
-			double[] vals = resultPin != null
-				? result.getAllUpstream(resultPin, flow)
-				: result.getAll(flow);
-			statisticsCanvas.setValues(vals);
+			feed.select(resultPin, flow);
 		} else {
 			ImpactDescriptor cat = impactViewer.getSelected();
 			if (cat == null)
 				return;
-			double[] vals = resultPin != null
-				? result.getAllUpstream(resultPin, cat)
-				: result.getAll(cat);
-			statisticsCanvas.setValues(vals);
+			feed.select(resultPin, cat);
 		}
+		updateStatistics();
 	}
 
-	void updateProgress() {
+	/**
+	 * Adds the values of the new runs to the statistics.
+	 */
+	private void updateStatistics() {
+		if (statisticsCanvas == null || statisticsCanvas.isDisposed())
+			return;
+		var update = feed.drain();
+		if (update == null)
+			return;
+		if (update.reset()) {
+			statisticsCanvas.setValues(update.values());
+		} else {
+			statisticsCanvas.addAll(update.values());
+		}
+	}
+
+	void updateProgress(int finishedRuns) {
 		if (result == null)
 			return;
-		updateSelection();
-		progressBar.setSelection(progressBar.getSelection() + 1);
+		updateStatistics();
+		if (!progressBar.isDisposed()) {
+			progressBar.setSelection(finishedRuns);
+		}
 	}
 
 	void progressDone() {
+		updateStatistics();
 		progressSection.dispose();
 		form.reflow(true);
 	}
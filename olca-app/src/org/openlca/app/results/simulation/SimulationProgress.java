@@ -7,21 +7,42 @@ import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.swt.widgets.Display;
 import org.openlca.app.M;
 import org.openlca.core.math.Simulator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The progress that runs the simulations. This should not be executed in the
- * UI-thread.
+ * UI-thread. If more than one thread is configured in the editor, no
+ * products are pinned, and the system can be simulated in parallel (see
+ * {@link ParallelSimulation#of}), the runs are calculated in parallel;
+ * otherwise they are calculated one after another with the simulator of the
+ * editor. In parallel mode, a small sample of the runs is calculated one after
+ * another first, so that the throughput of both modes can be compared in the
+ * log.
  */
 class SimulationProgress implements IRunnableWithProgress {
 
+	/** The minimum time in milliseconds between two updates of the UI. */
+	private static final long UPDATE_INTERVAL = 100;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
 	private final Display display;
+	private final SimulationEditor editor;
 	private final int numberOfRuns;
 	private final Simulator solver;
 	private final SimulationPage page;
 
+	private int finishedRuns;
+	private long lastUpdate;
+
+	/** The number and time of the runs of the serial sample in parallel mode. */
+	private int serialRuns;
+	private long serialMillis;
+
 	public SimulationProgress(Display display, SimulationEditor editor,
 			SimulationPage page) {
 		this.display = display;
+		this.editor = editor;
 		this.solver = editor.simulator;
 		this.numberOfRuns = editor.setup.simulationRuns().orElse(1);
 		this.page = page;
@@ -31,19 +52,96 @@ class SimulationProgress implements IRunnableWithProgress {
 	public void run(IProgressMonitor monitor)
 			throws InvocationTargetException, InterruptedException {
 		monitor.beginTask(M.MonteCarloSimulation + "...", numberOfRuns);
-		for (int i = 0; i < numberOfRuns; i++) {
-			if (monitor.isCanceled()) {
-				display.asyncExec(page::progressDone);
-				break;
-			}
-			var result = solver.nextRun();
-			if (result != null) {
-				result.dispose();
+		long start = System.currentTimeMillis();
+		int threads = editor.threads;
+		page.feed.start();
+		try {
+			if (threads > 1 && solver.pinnedProducts.isEmpty()) {
+				runParallel(monitor, threads);
+			} else {
+				threads = 1;
+				runSerial(monitor, numberOfRuns);
 			}
-			display.asyncExec(page::updateProgress);
-			Thread.sleep(10);
+		} finally {
+			page.feed.finish();
 		}
+		logThroughput(threads, System.currentTimeMillis() - start);
 		monitor.done();
 		display.asyncExec(page::progressDone);
 	}
+
+	private void runSerial(IProgressMonitor monitor, int runs) {
+		for (int i = 0; i < runs; i++) {
+			if (monitor.isCanceled())
+				break;
+			var result = solver.nextRun();
+			if (result == null)
+				continue;
+			page.feed.accept(result);
+			result.dispose();
+			finishedRuns++;
+			updateProgress(false);
+		}
+		updateProgress(true);
+	}
+
+	private void runParallel(IProgressMonitor monitor, int threads)
+			throws InterruptedException {
+		var simulation = ParallelSimulation.of(editor, threads);
+		if (simulation == null) {
+			runSerial(monitor, numberOfRuns);
+			return;
+		}
+		try {
+			// the serial sample is only taken when it is small compared to the
+			// total number of runs
+			int sample = Math.min(threads, numberOfRuns / 10);
+			if (sample > 0) {
+				long start = System.currentTimeMillis();
+				runSerial(monitor, sample);
+				serialMillis = System.currentTimeMillis() - start;
+				serialRuns = finishedRuns;
+			}
+			simulation.run(numberOfRuns - sample, monitor, result -> {
+				page.feed.accept(result);
+				finishedRuns++;
+				updateProgress(false);
+			});
+		} finally {
+			simulation.dispose();
+		}
+		updateProgress(true);
+	}
+
+	/**
+	 * Sends the number of finished runs to the page. Unless forced, this is
+	 * only done when the last update is longer ago than the update interval so
+	 * that fast simulations do not flood the UI thread with repaints.
+	 */
+	private void updateProgress(boolean force) {
+		long now = System.currentTimeMillis();
+		if (!force && now - lastUpdate < UPDATE_INTERVAL)
+			return;
+		lastUpdate = now;
+		int runs = finishedRuns;
+		display.asyncExec(() -> page.updateProgress(runs));
+	}
+
+	private void logThroughput(int threads, long millis) {
+		double seconds = Math.max(millis, 1) / 1000.0;
+		log.info("calculated {} simulation runs with {} thread(s) in {} ms;"
+						+ " {} runs/s", finishedRuns, threads, millis,
+				String.format("%.2f", finishedRuns / seconds));
+		if (threads < 2 || serialRuns == 0)
+			return;
+		int parallelRuns = finishedRuns - serialRuns;
+		double serialRate = serialRuns / (Math.max(serialMillis, 1) / 1000.0);
+		double parallelRate = parallelRuns
+				/ (Math.max(millis - serialMillis, 1) / 1000.0);
+		log.info("serial: {} runs/s ({} runs); parallel: {} runs/s ({} runs);"
+						+ " speedup: {}",
+				String.format("%.2f", serialRate), serialRuns,
+				String.format("%.2f", parallelRate), parallelRuns,
+				String.format("%.2f", parallelRate / serialRate));
+	}
 }
@@ -8,16 +8,13 @@ import org.eclipse.draw2d.Label;
 import org.eclipse.draw2d.LineBorder;
 import org.eclipse.draw2d.geometry.Point;
 import org.openlca.app.util.Numbers;
-import org.openlca.core.results.Statistics;
-import org.openlca.core.results.Statistics.Histogram;
 
 /**
  * Draws a chart with a frequency distribution and statistic parameters.
  */
 public class StatisticFigure extends Figure {
 
-	private Histogram hist = Statistics.hist(
-			new double[0], 100);
+	private StreamingStatistics stats = new StreamingStatistics(0);
 
 	private int marginLeft = 35;
 	private int marginBottom = 35;
@@ -57,8 +54,8 @@ public class StatisticFigure extends Figure {
 		return valueLabel;
 	}
 
-	void setData(double[] values) {
-		hist = Statistics.hist(values, 100);
+	void setData(StreamingStatistics stats) {
+		this.stats = stats;
 		repaint();
 	}
 
@@ -74,17 +71,25 @@ public class StatisticFigure extends Figure {
 		graphics.popState();
 	}
 
+	/**
+	 * Paints a bar for each bin of the histogram. The bar heights are scaled to
+	 * the maximum frequency, so the painting costs do not depend on the number
+	 * of values.
+	 */
 	private void paintBoxes(Graphics graphics, Point boxSize) {
+		long maxFreq = stats.maxFrequency();
+		int bottom = getSize().height - marginBottom;
+		int chartHeight = bottom - marginTop;
+		if (maxFreq <= 0 || chartHeight <= 0 || boxSize.x <= 0)
+			return;
 		graphics.setBackgroundColor(ColorConstants.lightGray);
-		int height = getSize().height - marginBottom;
-		for (int interval = 0; interval < 100; interval++) {
-			int frequency = hist.getAbsoluteFrequency(interval);
-			for (int block = 1; block <= frequency; block++) {
-				int x = marginLeft + interval * boxSize.x;
-				int y = height - block * boxSize.y;
-				if (y >= marginTop)
-					drawBox(graphics, boxSize, new Point(x, y));
-			}
+		for (int interval = 0; interval < StreamingStatistics.BINS; interval++) {
+			long frequency = stats.frequency(interval);
+			if (frequency == 0)
+				continue;
+			int h = (int) Math.max(1, frequency * chartHeight / maxFreq);
+			int x = marginLeft + interval * boxSize.x;
+			drawBox(graphics, new Point(boxSize.x, h), new Point(x, bottom - h));
 		}
 		graphics.setBackgroundColor(ColorConstants.white);
 	}
@@ -96,12 +101,12 @@ public class StatisticFigure extends Figure {
 	}
 
 	private void paintParameterLabels() {
-		numberLabel.setText(Integer.toString(hist.statistics.count));
-		setLabelValue(perc5Label, hist.statistics.getPercentileValue(5));
-		setLabelValue(perc95Label, hist.statistics.getPercentileValue(95));
-		setLabelValue(medianLabel, hist.statistics.median);
-		setLabelValue(meanLabel, hist.statistics.mean);
-		setLabelValue(standardDevLabel, hist.statistics.standardDeviation);
+		numberLabel.setText(Long.toString(stats.count()));
+		setLabelValue(perc5Label, stats.percentile5());
+		setLabelValue(perc95Label, stats.percentile95());
+		setLabelValue(medianLabel, stats.median());
+		setLabelValue(meanLabel, stats.mean());
+		setLabelValue(standardDevLabel, stats.standardDeviation());
 	}
 
 	private void paintChartFrame(Graphics graphics) {
@@ -109,13 +114,13 @@ public class StatisticFigure extends Figure {
 				getSize().width - marginRight, getSize().height - marginBottom);
 		graphics.drawLine(marginLeft, marginTop, marginLeft, getSize().height
 				- marginBottom);
-		graphics.drawText(Numbers.format(hist.statistics.min, 3),
+		graphics.drawText(Numbers.format(stats.rangeStart(), 3),
 				marginLeft, getSize().height - marginBottom + 10);
-		graphics.drawText(Numbers.format(hist.statistics.max, 3),
+		graphics.drawText(Numbers.format(stats.rangeEnd(), 3),
 				getSize().width - marginRight - 40, getSize().height
 						- marginBottom + 10);
 		graphics.drawText(
-				Integer.toString(hist.getMaxAbsoluteFrequency()), 15,
+				Long.toString(stats.maxFrequency()), 15,
 				marginTop + 5);
 		graphics.drawText("0", 15, getSize().height - marginBottom - 15);
 	}
@@ -129,33 +134,24 @@ public class StatisticFigure extends Figure {
 			size.y = 0;
 			return size;
 		}
-		int intervalCount = 100;
-		int maxFreq = hist.getMaxAbsoluteFrequency();
-		if (maxFreq > height) {
-			double factor = (double) maxFreq / (double) height;
-			maxFreq /= factor;
-		}
-		maxFreq = maxFreq == 0 ? 1 : maxFreq;
-		size.x = width / intervalCount;
-		size.y = height / maxFreq;
+		size.x = width / StreamingStatistics.BINS;
+		size.y = height;
 		if (size.x < 1)
 			size.x = 1;
-		if (size.y < 1)
-			size.y = 1;
 		return size;
 	}
 
 	private void paintLines(Graphics g, Point box) {
 		g.setForegroundColor(ColorConstants.red);
-		drawLine(g, hist.statistics.getPercentileValue(5), box);
-		drawLine(g, hist.statistics.median, box);
-		drawLine(g, hist.statistics.getPercentileValue(95), box);
-		drawLine(g, hist.statistics.mean, box);
+		drawLine(g, stats.percentile5(), box);
+		drawLine(g, stats.median(), box);
+		drawLine(g, stats.percentile95(), box);
+		drawLine(g, stats.mean(), box);
 		g.setForegroundColor(ColorConstants.black);
 	}
 
 	private void drawLine(Graphics g, double val, Point box) {
-		int interval = hist.getInterval(val);
+		int interval = stats.binOf(val);
 		int x = box.x * interval + marginLeft + box.x / 2;
 		g.drawLine(x, getSize().height - marginBottom, x, marginTop);
 	}
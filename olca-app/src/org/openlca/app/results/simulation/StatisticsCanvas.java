@@ -4,19 +4,48 @@ import org.eclipse.draw2d.FigureCanvas;
 import org.eclipse.swt.widgets.Composite;
 
 /**
- * A canvas for displaying uncertainty statistics.
+ * A canvas for displaying uncertainty statistics. The statistics are updated
+ * incrementally: new values, e.g. of new simulation runs, are added to the
+ * current statistics.
  */
 public class StatisticsCanvas extends FigureCanvas {
 
-	private StatisticFigure plot;
+	/**
+	 * The maximum number of raw values that are kept for the statistics of a
+	 * result item. The percentiles are exact up to this number of values and
+	 * estimated beyond it.
+	 */
+	static final int SAMPLE_CAP = 10_000;
+
+	private final StatisticFigure plot;
+	private StreamingStatistics stats;
 
 	public StatisticsCanvas(Composite parent) {
 		super(parent);
 		plot = new StatisticFigure();
 		setContents(plot);
+		stats = new StreamingStatistics(SAMPLE_CAP);
 	}
 
 	public void setValues(double[] values) {
-		plot.setData(values);
+		stats = new StreamingStatistics(SAMPLE_CAP);
+		addAll(values);
+	}
+
+	/**
+	 * Adds a single value to the current statistics.
+	 */
+	public void add(double value) {
+		stats.add(value);
+		plot.setData(stats);
+	}
+
+	/**
+	 * Adds the given values, e.g. of new simulation runs, to the current
+	 * statistics.
+	 */
+	public void addAll(double[] values) {
+		stats.addAll(values, 0);
+		plot.setData(stats);
 	}
 }
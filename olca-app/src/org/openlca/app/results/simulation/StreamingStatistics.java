@@ -0,0 +1,364 @@
+package org.openlca.app.results.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of simulation values that are updated incrementally with a
+ * bounded memory footprint. The mean and variance are calculated with
+ * Welford's online algorithm, the percentiles with the P² algorithm (Jain &
+ * Chlamtac, 1985), and the frequency distribution is stored in a histogram with
+ * a fixed number of bins whose range is doubled when a value falls outside of
+ * it. Up to `sampleCap` raw values are kept so that the percentiles are exact
+ * for short simulations.
+ */
+class StreamingStatistics {
+
+	static final int BINS = 100;
+
+	private final int sampleCap;
+	private final double[] samples;
+
+	private long count;
+	private double mean;
+	private double m2;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+
+	private final P2Quantile p5 = new P2Quantile(0.05);
+	private final P2Quantile p50 = new P2Quantile(0.5);
+	private final P2Quantile p95 = new P2Quantile(0.95);
+
+	/**
+	 * As long as all values fit into the sample buffer, the histogram is
+	 * rebuilt from the samples on demand so that its range matches the value
+	 * range. After this, it is updated incrementally. It is `null` as long as
+	 * all values are equal.
+	 */
+	private long[] bins;
+	private double binStart;
+	private double binWidth;
+	private long maxFrequency;
+	private boolean dirty;
+
+	StreamingStatistics(int sampleCap) {
+		this.sampleCap = Math.max(0, sampleCap);
+		this.samples = new double[this.sampleCap];
+	}
+
+	/**
+	 * Adds the values of the given array, starting at the given index.
+	 */
+	void addAll(double[] values, int from) {
+		if (values == null)
+			return;
+		for (int i = Math.max(0, from); i < values.length; i++) {
+			add(values[i]);
+		}
+	}
+
+	void add(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			return;
+		if (count < sampleCap) {
+			samples[(int) count] = value;
+		}
+		count++;
+
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+
+		p5.add(value);
+		p50.add(value);
+		p95.add(value);
+
+		if (count == 1) {
+			min = value;
+			max = value;
+			return;
+		}
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		addToHistogram(value);
+	}
+
+	private void addToHistogram(double value) {
+		if (count <= sampleCap) {
+			dirty = true;
+			return;
+		}
+		if (dirty) {
+			// the sample buffer just overflowed; continue with its histogram
+			rebuild();
+		}
+		if (bins == null) {
+			if (min == max)
+				return;
+			// all values before this one were equal
+			bins = new long[BINS];
+			binStart = min;
+			binWidth = (max - min) / BINS;
+			increment(binOf(value == min ? max : min), count - 1);
+			increment(binOf(value), 1);
+			return;
+		}
+		while (value < binStart) {
+			growLeft();
+		}
+		while (value > rangeEnd()) {
+			growRight();
+		}
+		increment(binOf(value), 1);
+	}
+
+	/**
+	 * Rebuilds the histogram from the stored samples. This is only valid when
+	 * all values, except the one that is currently added, are stored in the
+	 * sample buffer.
+	 */
+	private void rebuild() {
+		dirty = false;
+		maxFrequency = 0;
+		if (min == max) {
+			bins = null;
+			return;
+		}
+		bins = new long[BINS];
+		binStart = min;
+		binWidth = (max - min) / BINS;
+		int n = (int) Math.min(count, sampleCap);
+		for (int i = 0; i < n; i++) {
+			increment(binOf(samples[i]), 1);
+		}
+	}
+
+	private void sync() {
+		if (dirty && count <= sampleCap) {
+			rebuild();
+		}
+	}
+
+	private void increment(int bin, long n) {
+		bins[bin] += n;
+		maxFrequency = Math.max(maxFrequency, bins[bin]);
+	}
+
+	/**
+	 * Doubles the bin width and extends the range to the right: the current
+	 * bins are merged pairwise into the lower half.
+	 */
+	private void growRight() {
+		int half = BINS / 2;
+		for (int i = 0; i < half; i++) {
+			bins[i] = bins[2 * i] + bins[2 * i + 1];
+		}
+		Arrays.fill(bins, half, BINS, 0);
+		binWidth *= 2;
+		updateMaxFrequency();
+	}
+
+	/**
+	 * Doubles the bin width and extends the range to the left: the current
+	 * bins are merged pairwise into the upper half.
+	 */
+	private void growLeft() {
+		int half = BINS / 2;
+		for (int i = BINS - 1; i >= half; i--) {
+			int j = 2 * (i - half);
+			bins[i] = bins[j] + bins[j + 1];
+		}
+		Arrays.fill(bins, 0, half, 0);
+		binStart -= BINS * binWidth;
+		binWidth *= 2;
+		updateMaxFrequency();
+	}
+
+	private void updateMaxFrequency() {
+		maxFrequency = 0;
+		for (long f : bins) {
+			maxFrequency = Math.max(maxFrequency, f);
+		}
+	}
+
+	long count() {
+		return count;
+	}
+
+	double mean() {
+		return count == 0 ? 0 : mean;
+	}
+
+	double standardDeviation() {
+		return count < 2 ? 0 : Math.sqrt(m2 / (count - 1));
+	}
+
+	double min() {
+		return count == 0 ? 0 : min;
+	}
+
+	double max() {
+		return count == 0 ? 0 : max;
+	}
+
+	double percentile5() {
+		return percentile(p5);
+	}
+
+	double median() {
+		return percentile(p50);
+	}
+
+	double percentile95() {
+		return percentile(p95);
+	}
+
+	private double percentile(P2Quantile q) {
+		if (count == 0)
+			return 0;
+		if (count > sampleCap)
+			return q.get();
+		var sorted = Arrays.copyOf(samples, (int) count);
+		Arrays.sort(sorted);
+		int idx = (int) Math.round(q.p * (sorted.length - 1));
+		return sorted[idx];
+	}
+
+	/**
+	 * Returns the absolute frequency of the given bin.
+	 */
+	long frequency(int bin) {
+		sync();
+		if (bin < 0 || bin >= BINS)
+			return 0;
+		if (bins == null)
+			return bin == 0 ? count : 0;
+		return bins[bin];
+	}
+
+	long maxFrequency() {
+		sync();
+		return bins == null ? count : maxFrequency;
+	}
+
+	/**
+	 * Returns the index of the bin in which the given value falls. Values
+	 * outside of the histogram range are mapped to the first or last bin.
+	 */
+	int binOf(double value) {
+		sync();
+		if (bins == null || binWidth == 0)
+			return 0;
+		int bin = (int) ((value - binStart) / binWidth);
+		if (bin < 0)
+			return 0;
+		return Math.min(bin, BINS - 1);
+	}
+
+	double rangeStart() {
+		sync();
+		return bins == null ? min() : binStart;
+	}
+
+	double rangeEnd() {
+		sync();
+		return bins == null ? max() : binStart + BINS * binWidth;
+	}
+
+	/**
+	 * A P² estimator of a single quantile that uses five markers instead of
+	 * storing the observations.
+	 */
+	private static class P2Quantile {
+
+		private final double p;
+		private final double[] heights = new double[5];
+		private final int[] positions = new int[5];
+		private final double[] desired = new double[5];
+		private final double[] increments;
+		private int count;
+
+		P2Quantile(double p) {
+			this.p = p;
+			this.increments = new double[]{0, p / 2, p, (1 + p) / 2, 1};
+		}
+
+		void add(double x) {
+			if (count < 5) {
+				heights[count] = x;
+				count++;
+				if (count == 5) {
+					Arrays.sort(heights);
+					for (int i = 0; i < 5; i++) {
+						positions[i] = i;
+					}
+					desired[0] = 0;
+					desired[1] = 2 * p;
+					desired[2] = 4 * p;
+					desired[3] = 2 + 2 * p;
+					desired[4] = 4;
+				}
+				return;
+			}
+			count++;
+
+			// find the cell k with heights[k] <= x < heights[k + 1]
+			int k;
+			if (x < heights[0]) {
+				heights[0] = x;
+				k = 0;
+			} else if (x >= heights[4]) {
+				heights[4] = x;
+				k = 3;
+			} else {
+				k = 0;
+				while (x >= heights[k + 1]) {
+					k++;
+				}
+			}
+			for (int i = k + 1; i < 5; i++) {
+				positions[i]++;
+			}
+			for (int i = 0; i < 5; i++) {
+				desired[i] += increments[i];
+			}
+
+			// adjust the heights of the inner markers
+			for (int i = 1; i < 4; i++) {
+				double d = desired[i] - positions[i];
+				if ((d >= 1 && positions[i + 1] - positions[i] > 1)
+						|| (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+					int s = d >= 0 ? 1 : -1;
+					double h = parabolic(i, s);
+					heights[i] = heights[i - 1] < h && h < heights[i + 1]
+							? h
+							: linear(i, s);
+					positions[i] += s;
+				}
+			}
+		}
+
+		private double parabolic(int i, int s) {
+			double n0 = positions[i - 1];
+			double n1 = positions[i];
+			double n2 = positions[i + 1];
+			return heights[i] + s / (n2 - n0)
+					* ((n1 - n0 + s) * (heights[i + 1] - heights[i]) / (n2 - n1)
+					+ (n2 - n1 - s) * (heights[i] - heights[i - 1]) / (n1 - n0));
+		}
+
+		private double linear(int i, int s) {
+			return heights[i] + s * (heights[i + s] - heights[i])
+					/ (positions[i + s] - positions[i]);
+		}
+
+		double get() {
+			if (count >= 5)
+				return heights[2];
+			if (count == 0)
+				return 0;
+			var sorted = Arrays.copyOf(heights, count);
+			Arrays.sort(sorted);
+			return sorted[(int) Math.round(p * (count - 1))];
+		}
+	}
+}
@@ -2,21 +2,60 @@ package org.openlca.app.results.slca;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.database.NativeSql;
-import org.openlca.core.matrix.format.Matrix;
-import org.openlca.core.matrix.format.MatrixBuilder;
 import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.model.RiskLevel;
 import org.openlca.util.Strings;
 
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.Arrays;
 import java.util.Optional;
 
-record SocialMatrixData(
-		TechIndex techIndex,
-		SocialIndex socialIndex,
-		Matrix activityData,
-		Matrix rawData,
-		SocialLevelMatrix levelData
-) {
+/**
+ * The social aspects of the processes of a tech index, stored column-wise in
+ * compressed sparse column (CSC) format: the entries of column j, the tech
+ * flow with index j, are stored at the positions columnPointers[j] until
+ * columnPointers[j + 1] (exclusive) and are sorted by their row, the index of
+ * the social indicator. For each entry the activity value, raw value (NaN if
+ * there is no numeric raw value), and the ordinal of the risk level (-1 if
+ * there is no risk level) are stored.
+ */
+final class SocialMatrixData {
+
+	/** The number of process IDs per query. */
+	private static final int BATCH_SIZE = 1000;
+
+	private static final RiskLevel[] LEVELS = RiskLevel.values();
+
+	private final TechIndex techIndex;
+	private final SocialIndex socialIndex;
+
+	final int[] columnPointers;
+	final int[] rows;
+	final double[] activityValues;
+	final double[] rawValues;
+	final byte[] riskLevels;
+
+	private SocialMatrixData(
+			TechIndex techIndex,
+			SocialIndex socialIndex,
+			int[] columnPointers,
+			int[] rows,
+			double[] activityValues,
+			double[] rawValues,
+			byte[] riskLevels
+	) {
+		this.techIndex = techIndex;
+		this.socialIndex = socialIndex;
+		this.columnPointers = columnPointers;
+		this.rows = rows;
+		this.activityValues = activityValues;
+		this.rawValues = rawValues;
+		this.riskLevels = riskLevels;
+	}
 
 	static Optional<SocialMatrixData> fetch(
 			IDatabase db, TechIndex techIndex, SocialIndex socialIndex
@@ -31,36 +70,88 @@ record SocialMatrixData(
 		return Optional.of(builder.build());
 	}
 
+	TechIndex techIndex() {
+		return techIndex;
+	}
+
+	SocialIndex socialIndex() {
+		return socialIndex;
+	}
+
+	/**
+	 * Returns the position of the entry with the given row and column, or -1
+	 * if there is no such entry.
+	 */
+	int positionOf(int row, int column) {
+		if (column < 0 || column >= techIndex.size())
+			return -1;
+		int pos = Arrays.binarySearch(
+				rows, columnPointers[column], columnPointers[column + 1], row);
+		return pos >= 0 ? pos : -1;
+	}
+
+	double rawValueAt(int pos) {
+		if (pos < 0)
+			return 0;
+		double v = rawValues[pos];
+		return Double.isNaN(v) ? 0 : v;
+	}
+
+	RiskLevel riskLevelAt(int pos) {
+		if (pos < 0)
+			return null;
+		int level = riskLevels[pos];
+		return level >= 0 ? LEVELS[level] : null;
+	}
+
 	private static class Builder {
 
 		private final IDatabase db;
 		private final TechIndex techIndex;
 		private final SocialIndex socialIndex;
 
-		private final MatrixBuilder activityData;
-		private final MatrixBuilder rawData;
-		private final SocialLevelMatrix levelData;
+		// the entries in the order of the query, as triplets
+		private final TIntArrayList rows = new TIntArrayList();
+		private final TIntArrayList columns = new TIntArrayList();
+		private final TDoubleArrayList activityValues = new TDoubleArrayList();
+		private final TDoubleArrayList rawValues = new TDoubleArrayList();
+		private final TByteArrayList riskLevels = new TByteArrayList();
 
 		Builder(IDatabase db, TechIndex techIndex, SocialIndex socialIndex) {
 			this.db = db;
 			this.techIndex = techIndex;
 			this.socialIndex = socialIndex;
-
-			activityData = new MatrixBuilder();
-			activityData.minSize(socialIndex.size(), techIndex.size());
-			rawData = new MatrixBuilder();
-			rawData.minSize(socialIndex.size(), techIndex.size());
-			levelData = new SocialLevelMatrix();
 		}
 
 		SocialMatrixData build() {
+			// only the social aspects of the processes in the tech index are
+			// loaded, joined via the process IDs
+			var processIds = new TLongHashSet();
+			techIndex.each((j, techFlow) -> processIds.add(techFlow.providerId()));
+			var ids = processIds.toArray();
+			Arrays.sort(ids);
+			for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+				int to = Math.min(ids.length, from + BATCH_SIZE);
+				var list = new StringBuilder();
+				for (int i = from; i < to; i++) {
+					if (i > from) {
+						list.append(',');
+					}
+					list.append(ids[i]);
+				}
+				load(list.toString());
+			}
+			return compress();
+		}
 
+		private void load(String processIds) {
 			var q = "select " +
 					"f_process, " +
 					"f_indicator, " +
 					"activity_value, " +
 					"raw_amount, " +
-					"risk_level from tbl_social_aspects";
+					"risk_level from tbl_social_aspects " +
+					"where f_process in (" + processIds + ")";
 			NativeSql.on(db).query(q, r -> {
 
 				long processId = r.getLong(1);
@@ -73,43 +164,110 @@ record SocialMatrixData(
 				var i = socialIndex.of(indicator);
 
 				var activityValue = r.getDouble(3);
-				var rawValue = r.getString(4);
+				var rawValue = rawValueOf(r.getString(4));
 				var riskLevel = riskLevelOf(r.getString(5));
 
 				for (var techFlow : techFlows) {
+					rows.add(i);
+					columns.add(techIndex.of(techFlow));
+					activityValues.add(activityValue);
+					rawValues.add(rawValue);
+					riskLevels.add(riskLevel);
+				}
+				return true;
+			});
+		}
 
-					int j = techIndex.of(techFlow);
-					activityData.set(i, j, activityValue);
+		/**
+		 * Sorts the entries by column and row into the CSC format. When there
+		 * are multiple entries for the same cell, the last one is taken.
+		 */
+		private SocialMatrixData compress() {
+			int n = techIndex.size();
+			int count = rows.size();
 
-					if (Strings.notEmpty(rawValue)) {
-						try {
-							double v = Double.parseDouble(rawValue);
-							rawData.set(i, j, v);
-						} catch (Exception ignored) {
-						}
-					}
+			// a stable two-pass counting sort: first by row, then by column;
+			// thus, the entries are sorted by column and row and duplicates
+			// keep the query order
+			int m = 0;
+			for (int k = 0; k < count; k++) {
+				m = Math.max(m, rows.getQuick(k) + 1);
+			}
+			var rowPointers = new int[m + 1];
+			for (int k = 0; k < count; k++) {
+				rowPointers[rows.getQuick(k) + 1]++;
+			}
+			for (int i = 0; i < m; i++) {
+				rowPointers[i + 1] += rowPointers[i];
+			}
+			var byRow = new int[count];
+			for (int k = 0; k < count; k++) {
+				byRow[rowPointers[rows.getQuick(k)]++] = k;
+			}
+
+			var pointers = new int[n + 1];
+			for (int k = 0; k < count; k++) {
+				pointers[columns.getQuick(k) + 1]++;
+			}
+			for (int j = 0; j < n; j++) {
+				pointers[j + 1] += pointers[j];
+			}
+			var next = Arrays.copyOf(pointers, n);
+			var order = new int[count];
+			for (int k : byRow) {
+				order[next[columns.getQuick(k)]++] = k;
+			}
 
-					if (riskLevel != null) {
-						levelData.put(indicator, techFlow, riskLevel);
+			// copy the entries and drop duplicates
+			var csPointers = new int[n + 1];
+			var csRows = new int[count];
+			var csActivity = new double[count];
+			var csRaw = new double[count];
+			var csLevels = new byte[count];
+			int pos = 0;
+			for (int j = 0; j < n; j++) {
+				csPointers[j] = pos;
+				for (int a = pointers[j]; a < pointers[j + 1]; a++) {
+					int k = order[a];
+					int row = rows.getQuick(k);
+					if (pos > csPointers[j] && csRows[pos - 1] == row) {
+						pos--;
 					}
+					csRows[pos] = row;
+					csActivity[pos] = activityValues.getQuick(k);
+					csRaw[pos] = rawValues.getQuick(k);
+					csLevels[pos] = riskLevels.getQuick(k);
+					pos++;
 				}
-				return true;
-			});
+			}
+			csPointers[n] = pos;
 
 			return new SocialMatrixData(
 					techIndex,
 					socialIndex,
-					activityData.finish(),
-					rawData.finish(),
-					levelData
+					csPointers,
+					Arrays.copyOf(csRows, pos),
+					Arrays.copyOf(csActivity, pos),
+					Arrays.copyOf(csRaw, pos),
+					Arrays.copyOf(csLevels, pos)
 			);
 		}
 
-		private RiskLevel riskLevelOf(String name) {
+		private double rawValueOf(String s) {
+			if (Strings.nullOrEmpty(s))
+				return Double.NaN;
+			try {
+				return Double.parseDouble(s);
+			} catch (Exception e) {
+				return Double.NaN;
+			}
+		}
+
+		private byte riskLevelOf(String name) {
 			try {
-				return RiskLevel.valueOf(name);
+				return (byte) RiskLevel.valueOf(name).ordinal();
 			} catch (Exception e) {
-				return null;
+				return -1;
 			}
 		}
 	}
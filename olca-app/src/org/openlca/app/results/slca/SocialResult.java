@@ -2,39 +2,41 @@ package org.openlca.app.results.slca;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.database.SocialIndicatorDao;
-import org.openlca.core.matrix.format.MatrixReader;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.index.TechIndex;
-import org.openlca.core.matrix.solvers.MatrixSolver;
 import org.openlca.core.model.RiskLevel;
 import org.openlca.core.model.descriptors.SocialIndicatorDescriptor;
 import org.openlca.core.results.providers.ResultProvider;
 
 import java.util.Optional;
+import java.util.stream.IntStream;
 
+/**
+ * The social LCA result of a product system. The social aspects of the
+ * processes are stored in a sparse matrix; the direct activity values are
+ * calculated on demand by scaling these aspects with the scaling vector.
+ */
 public class SocialResult {
 
 	private final SocialMatrixData data;
 	private final SocialRiskIndex riskIndex;
+	private final double[] scalingVector;
 	private final double[] totalActivityValues;
 	private final double[] totalRiskActivityValues;
-	private final MatrixReader directActivityValues;
 	private final double[] weightedRawValues;
 
 	private SocialResult(
 			SocialMatrixData data,
 			SocialRiskIndex riskIndex,
-			double[] totalActivityValues,
-			double[] totalRiskActivityValues,
-			MatrixReader directActivityValues,
-			double[] weightedRawValues
+			double[] scalingVector,
+			Totals totals
 	) {
 		this.data = data;
 		this.riskIndex = riskIndex;
-		this.totalActivityValues = totalActivityValues;
-		this.totalRiskActivityValues = totalRiskActivityValues;
-		this.directActivityValues = directActivityValues;
-		this.weightedRawValues = weightedRawValues;
+		this.scalingVector = scalingVector;
+		this.totalActivityValues = totals.activityValues;
+		this.totalRiskActivityValues = totals.riskActivityValues;
+		this.weightedRawValues = totals.rawValues;
 	}
 
 	public static Optional<SocialResult> calculate(
@@ -55,36 +57,15 @@ public class SocialResult {
 		if (data == null)
 			return Optional.empty();
 
-		// scale the activity values
-		var solver = MatrixSolver.get();
+		// scale the activity values and aggregate them by risk level
 		var s = p.scalingVector();
-		var totalActivityValues = solver.multiply(data.activityData(), s);
-		var directActivityValues = data.activityData().copy();
-		directActivityValues.scaleColumns(s);
-
-		// aggregate the activity values by risk-level
 		var riskIndex = SocialRiskIndex.of(indicators);
-		var totalRiskActivityValues = new double[riskIndex.size()];
-		directActivityValues.iterate((i, j, v) -> {
-			var indicator = socialIndex.at(i);
-			var techFlow = data.techIndex().at(j);
-			var level = data.levelData().get(indicator, techFlow);
-			if (level == null)
-				return;
-			int k = riskIndex.of(indicator, level);
-			if (k < 0)
-				return;
-			totalRiskActivityValues[k] += v;
-		});
+		var totals = Totals.of(data, riskIndex, s);
 
 		// calculate the weighted raw data
-		var weightedRawValues = new double[socialIndex.size()];
-		data.rawData().iterate((i, j, r) -> {
-			double av = directActivityValues.get(i, j);
-			weightedRawValues[i] += (r * av);
-		});
+		var weightedRawValues = totals.rawValues;
 		for (int i = 0; i < weightedRawValues.length; i++) {
-			double tav = totalActivityValues[i];
+			double tav = totals.activityValues[i];
 			if (tav == 0) {
 				weightedRawValues[i] = 0;
 			} else {
@@ -92,14 +73,7 @@ public class SocialResult {
 			}
 		}
 
-		var r = new SocialResult(
-				data,
-				riskIndex,
-				totalActivityValues,
-				totalRiskActivityValues,
-				directActivityValues,
-				weightedRawValues
-		);
+		var r = new SocialResult(data, riskIndex, s, totals);
 		return Optional.of(r);
 	}
 
@@ -134,14 +108,21 @@ public class SocialResult {
 			return 0;
 		int i = socialIndex().of(d);
 		int j = techIndex().of(techFlow);
-		return i >= 0 && j >= 0
-				? directActivityValues.get(i, j)
+		if (i < 0 || j < 0)
+			return 0;
+		int pos = data.positionOf(i, j);
+		return pos >= 0
+				? data.activityValues[pos] * scalingVector[j]
 				: 0;
 	}
 
 	public RiskLevel riskLevelOf(SocialIndicatorDescriptor d, TechFlow techFlow) {
-		return d != null || techFlow != null
-				? data.levelData().get(d, techFlow)
+		if (d == null || techFlow == null)
+			return null;
+		int i = socialIndex().of(d);
+		int j = techIndex().of(techFlow);
+		return i >= 0 && j >= 0
+				? data.riskLevelAt(data.positionOf(i, j))
 				: null;
 	}
 
@@ -151,7 +132,7 @@ public class SocialResult {
 		int i = socialIndex().of(d);
 		int j = techIndex().of(techFlow);
 		return i >= 0 && j >= 0
-				? data.rawData().get(i, j)
+				? data.rawValueAt(data.positionOf(i, j))
 				: 0;
 	}
 
@@ -164,4 +145,107 @@ public class SocialResult {
 				: 0;
 	}
 
+	/**
+	 * The total activity values, activity values per risk level, and the sums
+	 * of the raw values weighted by the activity values. They are calculated
+	 * in a single pass over the columns of the social matrix, in parallel
+	 * chunks of columns that are merged at the end.
+	 */
+	private record Totals(
+			double[] activityValues,
+			double[] riskActivityValues,
+			double[] rawValues
+	) {
+
+		/** The minimum number of columns per chunk. */
+		private static final int MIN_CHUNK_SIZE = 1000;
+
+		static Totals of(
+				SocialMatrixData data, SocialRiskIndex riskIndex, double[] s
+		) {
+			var positions = riskPositionsOf(data.socialIndex(), riskIndex);
+			int n = data.techIndex().size();
+			int chunks = Math.max(1, Math.min(
+					Runtime.getRuntime().availableProcessors(),
+					n / MIN_CHUNK_SIZE));
+			int chunkSize = (n + chunks - 1) / chunks;
+			return IntStream.range(0, chunks)
+					.parallel()
+					.mapToObj(c -> {
+						var totals = empty(data.socialIndex().size(), riskIndex.size());
+						int end = Math.min(n, (c + 1) * chunkSize);
+						for (int j = c * chunkSize; j < end; j++) {
+							totals.add(data, positions, j, s[j]);
+						}
+						return totals;
+					})
+					.reduce(Totals::merge)
+					.orElseGet(() -> empty(
+							data.socialIndex().size(), riskIndex.size()));
+		}
+
+		private static Totals empty(int indicators, int riskEntries) {
+			return new Totals(
+					new double[indicators],
+					new double[riskEntries],
+					new double[indicators]);
+		}
+
+		/**
+		 * Maps the indicator rows and risk level ordinals to the positions in
+		 * the risk index: position of row i and level l is stored at
+		 * i * levels + l, -1 if there is no such entry.
+		 */
+		private static int[] riskPositionsOf(
+				SocialIndex socialIndex, SocialRiskIndex riskIndex
+		) {
+			var levels = RiskLevel.values();
+			var positions = new int[socialIndex.size() * levels.length];
+			for (int i = 0; i < socialIndex.size(); i++) {
+				var indicator = socialIndex.at(i);
+				for (var level : levels) {
+					positions[i * levels.length + level.ordinal()] =
+							riskIndex.of(indicator, level);
+				}
+			}
+			return positions;
+		}
+
+		private void add(
+				SocialMatrixData data, int[] riskPositions, int j, double s
+		) {
+			if (s == 0)
+				return;
+			int levels = RiskLevel.values().length;
+			for (int k = data.columnPointers[j]; k < data.columnPointers[j + 1]; k++) {
+				int i = data.rows[k];
+				double av = data.activityValues[k] * s;
+				activityValues[i] += av;
+				double raw = data.rawValues[k];
+				if (!Double.isNaN(raw)) {
+					rawValues[i] += raw * av;
+				}
+				int level = data.riskLevels[k];
+				if (level < 0)
+					continue;
+				int pos = riskPositions[i * levels + level];
+				if (pos >= 0) {
+					riskActivityValues[pos] += av;
+				}
+			}
+		}
+
+		private Totals merge(Totals other) {
+			sum(activityValues, other.activityValues);
+			sum(riskActivityValues, other.riskActivityValues);
+			sum(rawValues, other.rawValues);
+			return this;
+		}
+
+		private static void sum(double[] target, double[] source) {
+			for (int i = 0; i < target.length; i++) {
+				target[i] += source[i];
+			}
+		}
+	}
 }
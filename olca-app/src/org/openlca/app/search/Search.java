@@ -12,9 +12,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 class Search implements Runnable {
 
@@ -23,8 +22,8 @@ class Search implements Runnable {
 
 	private ModelType typeFilter;
 	private final String rawTerm;
-	private final List<String> words = new ArrayList<>();
-	private final List<String> tags = new ArrayList<>();
+	final List<String> words = new ArrayList<>();
+	final List<String> tags = new ArrayList<>();
 	private final List<Descriptor> result = new ArrayList<>();
 
 	Search(IDatabase db, String term) {
@@ -49,6 +48,10 @@ class Search implements Runnable {
 		return this;
 	}
 
+	ModelType typeFilter() {
+		return typeFilter;
+	}
+
 	public List<Descriptor> getResult() {
 		return result;
 	}
@@ -60,6 +63,34 @@ class Search implements Runnable {
 			return;
 
 		log.trace("run search with term {}", rawTerm);
+		long start = System.nanoTime();
+		var index = SearchIndex.getReady(db);
+		var matches = index != null
+				? index.find(this)
+				: scan();
+
+		matches.stream()
+				.sorted((m1, m2) -> {
+					int c = Double.compare(m2.factor, m1.factor);
+					return c == 0
+							? Strings.compare(
+							Labels.name(m1.descriptor),
+							Labels.name(m2.descriptor))
+							: c;
+				})
+				.map(Match::descriptor)
+				.forEach(result::add);
+
+		log.debug("search for '{}' found {} results in {} ms (indexed={})",
+				rawTerm, result.size(), (System.nanoTime() - start) / 1_000_000,
+				index != null);
+	}
+
+	/**
+	 * Loads all descriptors from the database and matches them against the
+	 * search terms. This is used when the search index is not ready yet.
+	 */
+	private List<Match> scan() {
 		var types = typeFilter == null
 				? ModelTypeOrder.getOrderedTypes()
 				: new ModelType[]{typeFilter};
@@ -75,23 +106,49 @@ class Search implements Runnable {
 				}
 			}
 		}
+		return matches;
+	}
 
-		matches.stream()
-				.sorted((m1, m2) -> {
-					int c = Double.compare(m2.factor, m1.factor);
-					return c == 0
-							? Strings.compare(
-							Labels.name(m1.descriptor),
-							Labels.name(m2.descriptor))
-							: c;
-				})
-				.map(Match::descriptor)
-				.forEach(result::add);
+	/**
+	 * Returns true if the given reference ID matches the search term.
+	 */
+	boolean isRefIdMatch(String refId) {
+		return words.size() == 1
+				&& refId != null
+				&& refId.equalsIgnoreCase(words.get(0));
+	}
+
+	/**
+	 * Calculates the match factor of the given name and tags. The name and
+	 * tags must be already in lower case. Returns a negative value if they do
+	 * not match.
+	 */
+	double factorOf(String name, String tags, Set<String> tagSet) {
+		for (var tag : this.tags) {
+			if (!tagSet.contains(tag))
+				return -1;
+		}
+		double factor = 0;
+		for (var word : words) {
+			var nameMatch = wordMatch(name, word);
+			var tagMatch = wordMatch(tags, word);
+			if (nameMatch == 0 && tagMatch == 0)
+				return -1;
+			factor += nameMatch + tagMatch;
+		}
+		return factor;
+	}
 
-		log.trace("{} results found", result.size());
+	private static double wordMatch(String phrase, String word) {
+		if (Strings.nullOrEmpty(phrase))
+			return 0;
+		double pos = phrase.indexOf(word);
+		return pos >= 0
+				? word.length() * Math.sqrt(1.0 / (42.0 + pos))
+				: 0;
 	}
 
-	private record Match(Descriptor descriptor, double factor) {
+	record Match(Descriptor descriptor, double factor) {
 
 		private static final Match _empty = new Match(null, 0);
 
@@ -104,45 +161,21 @@ class Search implements Runnable {
 				return _empty;
 
 			// matching ref-ids
-			if (s.words.size() == 1
-					&& d.refId != null
-					&& d.refId.equalsIgnoreCase(s.words.get(0)))
+			if (s.isRefIdMatch(d.refId))
 				return new Match(d, 1e7);
 
 			// filter by tags
-			if (!s.tags.isEmpty()) {
-				if (Strings.nullOrEmpty(d.tags))
-					return _empty;
-
-				var tags = Arrays.stream(d.tags.split(","))
-						.map(tag -> tag.strip().toLowerCase())
-						.filter(Strings::notEmpty)
-						.collect(Collectors.toSet());
-				for (var tag : s.tags) {
-					if (!tags.contains(tag))
-						return _empty;
-				}
-			}
-
-			double factor = 0;
-			for (var word : s.words) {
-				var nameMatch = wordMatch(Labels.name(d), word);
-				var tagMatch = wordMatch(d.tags, word);
-				if (nameMatch == 0 && tagMatch == 0)
-					return _empty;
-				factor += nameMatch + tagMatch ;
-			}
-
-			return new Match(d, factor);
-		}
+			if (!s.tags.isEmpty() && Strings.nullOrEmpty(d.tags))
+				return _empty;
 
-		private static double wordMatch(String phrase, String word) {
-			if (Strings.nullOrEmpty(phrase))
-				return 0;
-			double pos = phrase.toLowerCase().indexOf(word);
-			return pos >= 0
-					? word.length() * Math.sqrt(1.0 / (42.0 + pos))
-					: 0;
+			var name = Labels.name(d).toLowerCase();
+			var tags = d.tags != null
+					? d.tags.toLowerCase()
+					: null;
+			double factor = s.factorOf(name, tags, SearchIndex.tagsOf(tags));
+			return factor >= 0
+					? new Match(d, factor)
+					: _empty;
 		}
 	}
 }
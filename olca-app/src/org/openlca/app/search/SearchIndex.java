@@ -0,0 +1,637 @@
+package org.openlca.app.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openlca.app.db.DatabaseDir;
+import org.openlca.app.navigation.ModelTypeOrder;
+import org.openlca.app.util.Labels;
+import org.openlca.core.database.Daos;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.database.ParameterDao;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+import jakarta.persistence.Table;
+
+/**
+ * An inverted index of the names and tags of the data sets in the active
+ * database. The index maps the trigrams of the (lower case) names and tags and
+ * the single tags to the slots of the indexed data sets. A search then only
+ * needs to intersect the posting lists of the search terms and to verify the
+ * remaining candidates with the same ranking as the full scan in
+ * {@link Search}.
+ * <p>
+ * The index is built in a background thread when a database is activated and
+ * stored in the file storage folder of the database. It is reused in the next
+ * session when the change stamp of the database tables did not change. Data
+ * sets that are saved or deleted are updated via the hooks in
+ * {@link org.openlca.app.db.Cache}. A rebuild creates a new index structure
+ * that replaces the current one when it is complete; searches use the
+ * current structure in the meantime.
+ */
+public final class SearchIndex {
+
+	private static final String FILE = "search.index";
+	private static final int VERSION = 1;
+
+	private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+	private static final ExecutorService executor =
+			Executors.newSingleThreadExecutor(r -> {
+				var thread = new Thread(r, "search-index");
+				thread.setDaemon(true);
+				return thread;
+			});
+	private static volatile SearchIndex current;
+
+	private final IDatabase db;
+
+	/** The last complete index structure; `null` until it is ready. */
+	private volatile Data data;
+
+	/** The number of updates that are queued but not applied yet. */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private volatile boolean closed;
+	private volatile boolean dirty;
+
+	private SearchIndex(IDatabase db) {
+		this.db = db;
+	}
+
+	/**
+	 * Loads or builds the search index of the given database in the
+	 * background. An index of a previously activated database is closed.
+	 */
+	public static void open(IDatabase db) {
+		close();
+		if (db == null)
+			return;
+		var index = new SearchIndex(db);
+		current = index;
+		executor.execute(index::init);
+	}
+
+	/**
+	 * Closes the current index. A running rebuild and queued updates are
+	 * canceled and not waited for. If the index was updated since it was
+	 * written and all updates were applied, it is written again so that it
+	 * can be reused in the next session; otherwise the stored index is
+	 * deleted.
+	 */
+	public static void close() {
+		var index = current;
+		current = null;
+		if (index == null)
+			return;
+		index.closed = true;
+		if (index.data == null || !index.dirty)
+			return;
+		if (index.pending.get() > 0) {
+			index.file().delete();
+			return;
+		}
+		index.write();
+	}
+
+	/**
+	 * Updates the entry of the given data set in the index. Descriptors without
+	 * a model type are ignored; use {@link #invalidate()} in this case.
+	 */
+	public static void update(Descriptor d) {
+		var index = current;
+		if (index == null || d == null || d.type == null)
+			return;
+		index.pending.incrementAndGet();
+		executor.execute(() -> {
+			try {
+				index.reload(d.type, d.id);
+			} finally {
+				index.pending.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * Rebuilds the index in the background, e.g. after an import of many data
+	 * sets. Until the rebuild is finished, searches use the previous index.
+	 */
+	public static void invalidate() {
+		var index = current;
+		if (index == null)
+			return;
+		index.pending.incrementAndGet();
+		executor.execute(() -> {
+			try {
+				index.rebuild();
+			} finally {
+				index.pending.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * Returns the index of the given database if it is ready to use, otherwise
+	 * `null`.
+	 */
+	static SearchIndex getReady(IDatabase db) {
+		var index = current;
+		return index != null && index.data != null && index.db == db
+				? index
+				: null;
+	}
+
+	/**
+	 * Splits the given tag string into a set of trimmed, non-empty tags.
+	 */
+	static Set<String> tagsOf(String tags) {
+		if (Strings.nullOrEmpty(tags))
+			return Collections.emptySet();
+		var set = new HashSet<String>();
+		for (var tag : tags.split(",")) {
+			var t = tag.strip();
+			if (!t.isEmpty()) {
+				set.add(t);
+			}
+		}
+		return set;
+	}
+
+	private void init() {
+		try {
+			var stored = read();
+			if (stored != null) {
+				data = stored;
+				log.info("loaded search index with {} entries", stored.size());
+				return;
+			}
+			rebuild();
+			if (data != null && !closed) {
+				write();
+			}
+		} catch (Exception e) {
+			log.error("failed to initialize search index", e);
+		}
+	}
+
+	private void rebuild() {
+		long start = System.currentTimeMillis();
+		var next = new Data();
+		for (var type : ModelTypeOrder.getOrderedTypes()) {
+			if (closed)
+				return;
+			var all = type == ModelType.PARAMETER
+					? new ParameterDao(db).getGlobalDescriptors()
+					: Daos.root(db, type).getDescriptors();
+			for (var d : all) {
+				next.add(Entry.of(type, d));
+			}
+		}
+		data = next;
+		dirty = true;
+		log.info("built search index with {} entries in {} ms",
+				next.size(), System.currentTimeMillis() - start);
+	}
+
+	private void reload(ModelType type, long id) {
+		var current = data;
+		if (closed || current == null || !isIndexed(type))
+			return;
+		Descriptor d;
+		if (type == ModelType.PARAMETER) {
+			d = new ParameterDao(db).getGlobalDescriptors()
+					.stream()
+					.filter(p -> p.id == id)
+					.findAny()
+					.orElse(null);
+		} else {
+			d = Daos.root(db, type).getDescriptor(id);
+		}
+		synchronized (current) {
+			current.remove(type, id);
+			if (d != null) {
+				current.add(Entry.of(type, d));
+			}
+		}
+		dirty = true;
+	}
+
+	private static boolean isIndexed(ModelType type) {
+		for (var t : ModelTypeOrder.getOrderedTypes()) {
+			if (t == type)
+				return true;
+		}
+		return false;
+	}
+
+	private static long gramOf(String s, int i) {
+		return ((long) s.charAt(i) << 32)
+				| ((long) s.charAt(i + 1) << 16)
+				| s.charAt(i + 2);
+	}
+
+	/**
+	 * Returns the matches of the given search. The candidates are selected
+	 * from the posting lists of the tags and trigrams of the search words and
+	 * then verified and ranked with the rules of the search.
+	 */
+	List<Search.Match> find(Search search) {
+		var current = data;
+		if (current == null)
+			return Collections.emptyList();
+		var typeFilter = search.typeFilter();
+		var factors = new HashMap<Entry, Double>();
+		synchronized (current) {
+
+			// matching ref-ids
+			if (search.words.size() == 1) {
+				var slot = current.refIds.get(search.words.get(0));
+				if (slot != null) {
+					var e = current.entries.get(slot);
+					if (e != null && (typeFilter == null || e.type == typeFilter)) {
+						factors.put(e, 1e7);
+					}
+				}
+			}
+
+			var candidates = current.candidatesOf(search);
+			int n = candidates != null
+					? candidates.size()
+					: current.entries.size();
+			for (int i = 0; i < n; i++) {
+				int slot = candidates != null ? candidates.get(i) : i;
+				var e = current.entries.get(slot);
+				if (e == null
+						|| factors.containsKey(e)
+						|| (typeFilter != null && e.type != typeFilter))
+					continue;
+				double factor = search.factorOf(e.name, e.tags, e.tagSet);
+				if (factor >= 0) {
+					factors.put(e, factor);
+				}
+			}
+		}
+		return load(factors);
+	}
+
+	/**
+	 * Loads the descriptors of the matched entries with one query per type.
+	 */
+	private List<Search.Match> load(Map<Entry, Double> factors) {
+		var ids = new EnumMap<ModelType, Map<Long, Double>>(ModelType.class);
+		for (var f : factors.entrySet()) {
+			var e = f.getKey();
+			ids.computeIfAbsent(e.type, $ -> new HashMap<>())
+					.put(e.id, f.getValue());
+		}
+		var matches = new ArrayList<Search.Match>(factors.size());
+		for (var typeIds : ids.entrySet()) {
+			var type = typeIds.getKey();
+			var map = typeIds.getValue();
+			var descriptors = type == ModelType.PARAMETER
+					? new ParameterDao(db).getDescriptors(map.keySet())
+					: Daos.root(db, type).getDescriptors(map.keySet());
+			for (var d : descriptors) {
+				var factor = map.get(d.id);
+				if (factor != null) {
+					matches.add(new Search.Match(d, factor));
+				}
+			}
+		}
+		return matches;
+	}
+
+	private File file() {
+		return new File(DatabaseDir.getFileStorageLocation(db), FILE);
+	}
+
+	/**
+	 * A stamp of the indexed tables that changes when data sets are added,
+	 * deleted, or modified outside of this index.
+	 */
+	private String stamp() {
+		var b = new StringBuilder();
+		for (var type : ModelTypeOrder.getOrderedTypes()) {
+			var clazz = type.getModelClass();
+			if (clazz == null || !clazz.isAnnotationPresent(Table.class))
+				continue;
+			var table = clazz.getAnnotation(Table.class).name();
+			var sql = "select count(*), max(last_change) from " + table;
+			NativeSql.on(db).query(sql, r -> {
+				b.append(table)
+						.append(':').append(r.getLong(1))
+						.append(':').append(r.getLong(2))
+						.append(';');
+				return false;
+			});
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Writes the current index structure to the file storage folder. The
+	 * entries are copied first, so that searches are not blocked while the
+	 * file is written.
+	 */
+	private synchronized void write() {
+		var current = data;
+		if (current == null)
+			return;
+		var file = file();
+		try {
+			var dir = file.getParentFile();
+			if (!dir.exists()) {
+				dir.mkdirs();
+			}
+			var stamp = stamp();
+			dirty = false;
+			List<Entry> entries;
+			synchronized (current) {
+				entries = new ArrayList<>(current.size());
+				for (var e : current.entries) {
+					if (e != null) {
+						entries.add(e);
+					}
+				}
+			}
+			try (var out = new DataOutputStream(new BufferedOutputStream(
+					new GZIPOutputStream(new FileOutputStream(file))))) {
+				out.writeInt(VERSION);
+				writeString(out, stamp);
+				out.writeInt(entries.size());
+				for (var e : entries) {
+					writeString(out, e.type.name());
+					out.writeLong(e.id);
+					writeString(out, e.refId);
+					writeString(out, e.name);
+					writeString(out, e.tags);
+				}
+			}
+		} catch (Exception e) {
+			log.error("failed to write search index " + file, e);
+			dirty = true;
+			file.delete();
+		}
+	}
+
+	/**
+	 * Reads the index from the file storage folder. Returns `null` if there
+	 * is no valid stored index.
+	 */
+	private synchronized Data read() {
+		var file = file();
+		if (!file.exists())
+			return null;
+		try (var in = new DataInputStream(new BufferedInputStream(
+				new GZIPInputStream(new FileInputStream(file))))) {
+			if (in.readInt() != VERSION)
+				return null;
+			if (!stamp().equals(readString(in)))
+				return null;
+			int count = in.readInt();
+			var stored = new Data();
+			for (int i = 0; i < count; i++) {
+				var type = ModelType.valueOf(readString(in));
+				long id = in.readLong();
+				var refId = readString(in);
+				var name = readString(in);
+				var tags = readString(in);
+				stored.add(new Entry(type, id, refId, name, tags, tagsOf(tags)));
+			}
+			dirty = false;
+			return stored;
+		} catch (Exception e) {
+			log.warn("failed to read search index " + file, e);
+			return null;
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s)
+			throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+			return;
+		}
+		var bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		var bytes = in.readNBytes(length);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The index structure. The slots of removed entries are reused by new
+	 * entries and the posting lists are kept sorted by slot. Access to an
+	 * instance that is set as current index is synchronized on it.
+	 */
+	private static final class Data {
+
+		final List<Entry> entries = new ArrayList<>();
+		final TIntArrayList freeSlots = new TIntArrayList();
+		final EnumMap<ModelType, TLongIntHashMap> slots =
+				new EnumMap<>(ModelType.class);
+		final TLongObjectHashMap<TIntArrayList> grams =
+				new TLongObjectHashMap<>();
+		final Map<String, TIntArrayList> tagPostings = new HashMap<>();
+		final Map<String, Integer> refIds = new HashMap<>();
+
+		int size() {
+			return entries.size() - freeSlots.size();
+		}
+
+		void add(Entry e) {
+			int slot;
+			if (freeSlots.isEmpty()) {
+				slot = entries.size();
+				entries.add(e);
+			} else {
+				slot = freeSlots.removeAt(freeSlots.size() - 1);
+				entries.set(slot, e);
+			}
+			slots.computeIfAbsent(e.type, $ -> new TLongIntHashMap())
+					.put(e.id, slot);
+			if (e.refId != null) {
+				refIds.put(e.refId.toLowerCase(), slot);
+			}
+			gramsOf(e).forEach(gram -> {
+				var postings = grams.get(gram);
+				if (postings == null) {
+					postings = new TIntArrayList();
+					grams.put(gram, postings);
+				}
+				insert(postings, slot);
+				return true;
+			});
+			for (var tag : e.tagSet) {
+				insert(tagPostings.computeIfAbsent(tag, $ -> new TIntArrayList()),
+						slot);
+			}
+		}
+
+		/**
+		 * Removes the entry of the given data set from the posting lists and
+		 * frees its slot.
+		 */
+		void remove(ModelType type, long id) {
+			var map = slots.get(type);
+			if (map == null || !map.containsKey(id))
+				return;
+			int slot = map.remove(id);
+			var e = entries.get(slot);
+			entries.set(slot, null);
+			freeSlots.add(slot);
+			if (e == null)
+				return;
+			if (e.refId != null) {
+				refIds.remove(e.refId.toLowerCase(), slot);
+			}
+			gramsOf(e).forEach(gram -> {
+				var postings = grams.get(gram);
+				if (postings != null && delete(postings, slot)) {
+					grams.remove(gram);
+				}
+				return true;
+			});
+			for (var tag : e.tagSet) {
+				var postings = tagPostings.get(tag);
+				if (postings != null && delete(postings, slot)) {
+					tagPostings.remove(tag);
+				}
+			}
+		}
+
+		private static TLongHashSet gramsOf(Entry e) {
+			var text = e.tags != null
+					? e.name + "\n" + e.tags
+					: e.name;
+			var set = new TLongHashSet();
+			for (int i = 0; i + 3 <= text.length(); i++) {
+				set.add(gramOf(text, i));
+			}
+			return set;
+		}
+
+		private static void insert(TIntArrayList postings, int slot) {
+			int n = postings.size();
+			if (n == 0 || postings.getQuick(n - 1) < slot) {
+				postings.add(slot);
+				return;
+			}
+			int pos = postings.binarySearch(slot);
+			if (pos < 0) {
+				postings.insert(-(pos + 1), slot);
+			}
+		}
+
+		/**
+		 * Removes the slot from the posting list and returns true if the list
+		 * is empty then.
+		 */
+		private static boolean delete(TIntArrayList postings, int slot) {
+			int pos = postings.binarySearch(slot);
+			if (pos >= 0) {
+				postings.removeAt(pos);
+			}
+			return postings.isEmpty();
+		}
+
+		/**
+		 * Intersects the posting lists of the tags and word trigrams of the
+		 * search. Returns `null` when the search contains no terms that can be
+		 * used for selecting candidates; all entries are candidates then.
+		 */
+		TIntArrayList candidatesOf(Search search) {
+			TIntArrayList candidates = null;
+			for (var tag : search.tags) {
+				var postings = tagPostings.get(tag);
+				if (postings == null)
+					return new TIntArrayList(0);
+				candidates = intersect(candidates, postings);
+			}
+			for (var word : search.words) {
+				for (int i = 0; i + 3 <= word.length(); i++) {
+					var postings = grams.get(gramOf(word, i));
+					if (postings == null)
+						return new TIntArrayList(0);
+					candidates = intersect(candidates, postings);
+				}
+			}
+			return candidates;
+		}
+
+		private static TIntArrayList intersect(TIntArrayList a, TIntArrayList b) {
+			if (a == null)
+				return b;
+			var r = new TIntArrayList(Math.min(a.size(), b.size()));
+			int i = 0, j = 0;
+			while (i < a.size() && j < b.size()) {
+				int x = a.get(i);
+				int y = b.get(j);
+				if (x == y) {
+					r.add(x);
+					i++;
+					j++;
+				} else if (x < y) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+			return r;
+		}
+	}
+
+	/**
+	 * An indexed data set; the name and tags are stored in lower case.
+	 */
+	private record Entry(
+			ModelType type,
+			long id,
+			String refId,
+			String name,
+			String tags,
+			Set<String> tagSet) {
+
+		static Entry of(ModelType type, Descriptor d) {
+			var name = Labels.name(d).toLowerCase();
+			var tags = d.tags != null
+					? d.tags.toLowerCase()
+					: null;
+			return new Entry(type, d.id, d.refId, name, tags, tagsOf(tags));
+		}
+	}
+}
@@ -52,8 +52,10 @@ public class Connection extends SelectableConnection {
 	@Override
 	protected void outlineShape(Graphics g) {
 		g.setInterpolation(HIGH);
-		// When the graphical interface is too packed, ROUTER_NULL is used.
-		var accelerate = base.getChildren().size() > CHILDREN_LIMIT;
+		// When the graphical interface is too packed or painted at a low level
+		// of detail, ROUTER_NULL is used.
+		var accelerate = base.getChildren().size() > CHILDREN_LIMIT
+				|| LevelOfDetail.isReduced(g);
 
 		if (Objects.equals(type, ROUTER_MANHATTAN)) {
 			g.drawPolyline(getPoints());
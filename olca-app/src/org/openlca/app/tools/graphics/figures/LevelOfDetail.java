@@ -0,0 +1,84 @@
+package org.openlca.app.tools.graphics.figures;
+
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Viewport;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Decides how detailed the figures of large graphs are painted and routed.
+ * Below a zoom of {@link #MIN_ZOOM} and while a thumbnail of a graph is
+ * rendered, figures with many children (like the exchanges of a maximized
+ * node) are painted as simple placeholders. Figures that are outside of the
+ * visible area of their viewport, extended by a margin, can be handled
+ * lazily (e.g. by connection routers).
+ * <p>
+ * All methods must be called from the UI thread.
+ */
+public final class LevelOfDetail {
+
+	/** The zoom below which figures are painted as placeholders. */
+	public static final double MIN_ZOOM = 0.4;
+
+	/** The margin around the visible area in pixels. */
+	public static final int MARGIN = 200;
+
+	private static int thumbnailDepth;
+
+	private LevelOfDetail() {
+	}
+
+	/**
+	 * Returns true if figures should be painted as placeholders with the given
+	 * graphics.
+	 */
+	public static boolean isReduced(Graphics g) {
+		return thumbnailDepth > 0
+				|| (g != null && g.getAbsoluteScale() < MIN_ZOOM);
+	}
+
+	/**
+	 * Paints the given source figure into a thumbnail; the figures of the
+	 * source are painted as placeholders.
+	 */
+	public static void paintThumbnail(IFigure source, Graphics g) {
+		thumbnailDepth++;
+		try {
+			source.paint(g);
+		} finally {
+			thumbnailDepth--;
+		}
+	}
+
+	/**
+	 * Returns the visible area of the viewport that contains the given figure,
+	 * extended by the margin, in absolute coordinates. Returns `null` if the
+	 * figure is not contained in a viewport.
+	 */
+	public static Rectangle visibleArea(IFigure figure) {
+		var parent = figure != null ? figure.getParent() : null;
+		while (parent != null && !(parent instanceof Viewport)) {
+			parent = parent.getParent();
+		}
+		if (!(parent instanceof Viewport viewport))
+			return null;
+		var area = new Rectangle(
+				viewport.getViewLocation(), viewport.getClientArea().getSize());
+		viewport.translateToParent(area);
+		viewport.translateToAbsolute(area);
+		return area.expand(MARGIN, MARGIN);
+	}
+
+	/**
+	 * Returns true if the given figure is outside of the given visible area
+	 * (in absolute coordinates, see {@link #visibleArea(IFigure)}).
+	 */
+	public static boolean isOffScreen(IFigure figure, Rectangle visibleArea) {
+		if (figure == null || visibleArea == null)
+			return false;
+		var bounds = figure.getBounds().getCopy();
+		figure.translateToAbsolute(bounds);
+		return !bounds.intersects(visibleArea);
+	}
+
+}
@@ -202,6 +202,16 @@ public class MinimapThumbnail extends Thumbnail {
 		initialize();
 	}
 
+	/**
+	 * Changes of the source figure (including hover effects and scrolling)
+	 * are collected so that the cached image is not repainted from the full
+	 * figure tree for each of them.
+	 */
+	@Override
+	protected int getUpdateDelay() {
+		return 500;
+	}
+
 	@Override
 	protected void paintFigure(Graphics graphics) {
 		var thumbnail = getThumbnailImage();
@@ -27,6 +27,7 @@ import org.eclipse.draw2d.ScaledGraphics;
 import org.eclipse.draw2d.UpdateListener;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.openlca.app.tools.graphics.figures.LevelOfDetail;
 
 /**
  * <i>This class is a copy of {@link org.eclipse.draw2d.parts.Thumbnail}
@@ -195,7 +196,7 @@ public class Thumbnail extends Figure implements UpdateListener {
 			tileGraphics.translate(-p.x * getScaleX() - sx1, -p.y * getScaleY()
 					- sy1);
 			tileGraphics.scale(getScaleX());
-			sourceFigure.paint(tileGraphics);
+			LevelOfDetail.paintThumbnail(sourceFigure, tileGraphics);
 			tileGraphics.popState();
 
 			// Copy the painted tile image into the thumbnail image.
@@ -214,7 +215,7 @@ public class Thumbnail extends Figure implements UpdateListener {
 
 			if (getCurrentHTile() != 0 || getCurrentVTile() != 0) {
 				Display.getCurrent().asyncExec(this);
-			} else if (isDirty()) {
+			} else if (isDirty() && getUpdateDelay() <= 0) {
 				setDirty(false);
 				Display.getCurrent().asyncExec(this);
 				repaint();
@@ -363,6 +364,7 @@ public class Thumbnail extends Figure implements UpdateListener {
 	}
 
 	private boolean isDirty;
+	private boolean isUpdateScheduled;
 	private float scaleX;
 	private float scaleY;
 
@@ -502,7 +504,7 @@ public class Thumbnail extends Figure implements UpdateListener {
 		setScales(targetSize.width / (float) getSourceRectangle().width,
 				targetSize.height / (float) getSourceRectangle().height);
 		if ((isDirty()) && !updater.isRunning())
-			updater.start();
+			scheduleUpdate();
 		else if (oldSize != null && !targetSize.equals(oldSize)) {
 			revalidate();
 			updater.restart();
@@ -511,6 +513,32 @@ public class Thumbnail extends Figure implements UpdateListener {
 		return thumbnailImage;
 	}
 
+	/**
+	 * Returns the delay in milliseconds after which a dirty thumbnail image is
+	 * updated. Changes of the source figure within this delay are collected
+	 * into a single update. Returns 0 by default, which means that the update
+	 * is started immediately.
+	 */
+	protected int getUpdateDelay() {
+		return 0;
+	}
+
+	private void scheduleUpdate() {
+		int delay = getUpdateDelay();
+		if (delay <= 0) {
+			updater.start();
+			return;
+		}
+		if (isUpdateScheduled)
+			return;
+		isUpdateScheduled = true;
+		Display.getCurrent().timerExec(delay, () -> {
+			isUpdateScheduled = false;
+			if (updater.isActive() && !updater.isRunning())
+				updater.start();
+		});
+	}
+
 	/**
 	 * Returns <code>true</code> if the source figure has changed.
 	 *
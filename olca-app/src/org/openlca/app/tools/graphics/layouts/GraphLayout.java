@@ -10,6 +10,7 @@ import org.eclipse.swt.SWT;
 import org.openlca.app.tools.graphics.BasicGraphicalEditor;
 import org.openlca.app.tools.graphics.figures.ComponentFigure;
 import org.openlca.app.tools.graphics.model.Component;
+import org.openlca.app.tools.graphics.model.Link;
 
 import java.util.*;
 
@@ -33,6 +34,15 @@ public abstract class GraphLayout extends FreeformLayout implements
 	private Map<Figure, Point> mapFigureToLocation = new HashMap<>();
 	/** A map keeping track of nodes laid out by the TreeLayout. */
 	final Map<Component, Vertex> mapNodeToVertex = new HashMap<>();
+	/** The figures that were laid out by the TreeLayout (not stacked). */
+	private final Set<IFigure> treeFigures = new HashSet<>();
+	/**
+	 * Sizes and links of the components that are cached during the
+	 * computation of a layout, as they are queried several times per node.
+	 */
+	private final Map<IFigure, Dimension> sizes = new HashMap<>();
+	private final Map<Component, List<Link>> inputLinks = new HashMap<>();
+	private final Map<Component, List<Link>> outputLinks = new HashMap<>();
 	private IFigure parentFigure;
 	/**
 	 * Figures are usually laid out in two times as children are laid out first.
@@ -59,7 +69,8 @@ public abstract class GraphLayout extends FreeformLayout implements
 		for (var child : parent.getChildren())
 			if (child instanceof ComponentFigure figure)
 				childrenSet.add(figure);
-		if (!childrenSet.equals(mapFigureToLocation.keySet())) {
+		if (!childrenSet.equals(mapFigureToLocation.keySet())
+				&& !restack(childrenSet)) {
 			clear();
 		}
 
@@ -115,21 +126,73 @@ public abstract class GraphLayout extends FreeformLayout implements
 	}
 
 	protected Dimension getConstrainedSize(IFigure figure) {
-		return calculateSize(figure, (Rectangle) getConstraint(figure));
+		return sizes.computeIfAbsent(figure,
+				f -> calculateSize(f, (Rectangle) getConstraint(f)));
+	}
+
+	/**
+	 * Returns the input (target) or output (source) links of the given
+	 * component and its children.
+	 */
+	List<Link> linksOf(Component node, boolean inputs) {
+		return inputs
+				? inputLinks.computeIfAbsent(node, Component::getAllTargetConnections)
+				: outputLinks.computeIfAbsent(node, Component::getAllSourceConnections);
 	}
 
 	private Point calculatePreferredLocation(Figure figure) {
 		if (mapFigureToLocation == null || mapFigureToLocation.isEmpty()) {
+			clearCaches();
 			layoutAsTree();
+			for (var vertex : mapNodeToVertex.values())
+				treeFigures.add(vertex.figure);
 			layoutRestAsStack();
 			if (mapFigureToLocation == null)
 				mapFigureToLocation = new HashMap<>();
 			mapFigureToLocation.clear();
 			mapFigureToLocation = getLocationMap();
+			clearCaches();
 		}
 		return mapFigureToLocation.get(figure);
 	}
 
+	/**
+	 * Updates the layout when only figures that are not part of the trees were
+	 * added or removed (e.g. sticky notes or nodes without links). In this case,
+	 * the locations of the trees are kept, and only the remaining figures are
+	 * stacked again. Returns false if the trees are affected by the change and
+	 * a complete relayout is required.
+	 */
+	private boolean restack(Set<ComponentFigure> children) {
+		if (mapFigureToLocation.isEmpty() || treeFigures.isEmpty())
+			return false;
+		for (var figure : mapFigureToLocation.keySet()) {
+			if (!children.contains(figure) && treeFigures.contains(figure))
+				return false;
+		}
+		for (var figure : children) {
+			if (mapFigureToLocation.containsKey(figure))
+				continue;
+			var node = figure.getComponent();
+			if (!node.getAllSourceConnections().isEmpty()
+					|| !node.getAllTargetConnections().isEmpty())
+				return false;
+		}
+
+		mapNodeToVertex.values().removeIf(v -> !treeFigures.contains(v.figure));
+		clearCaches();
+		layoutRestAsStack();
+		mapFigureToLocation = getLocationMap();
+		clearCaches();
+		return true;
+	}
+
+	private void clearCaches() {
+		sizes.clear();
+		inputLinks.clear();
+		outputLinks.clear();
+	}
+
 	private void layoutAsTree() {
 		var inputLayout =
 				new TreeLayout(this, orientation, getReferenceNode(), true);
@@ -179,6 +242,8 @@ public abstract class GraphLayout extends FreeformLayout implements
 	public void clear() {
 		mapFigureToLocation.clear();
 		mapNodeToVertex.clear();
+		treeFigures.clear();
+		clearCaches();
 	}
 
 	protected IFigure getParentFigure() {
@@ -2,8 +2,7 @@ package org.openlca.app.tools.graphics.layouts;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Objects;
 
 import org.eclipse.draw2d.geometry.Point;
@@ -67,8 +66,8 @@ public class TreeLayout {
 	 * The index in this array is the depth of the vertex (the root is at depth
 	 * 0).
 	 */
-	private final List<Double> levelSizes;
-	private final List<Double> mistletoeSizes;
+	private final double[] levelSizes;
+	private final double[] mistletoeSizes;
 	private final GraphLayout manager;
 	private final boolean forInputs;
 	/**
@@ -76,7 +75,7 @@ public class TreeLayout {
 	 * node).
 	 */
 	private int maxDepth = -1;
-	private List<Double> levels;
+	private double[] levels;
 
 	TreeLayout(GraphLayout manager, int orientation, Component apex,
 						 boolean forInputs) {
@@ -86,8 +85,8 @@ public class TreeLayout {
 		apexVertex = createApexVertex(apex);
 		createTree(apexVertex);
 		createMistletoes(apexVertex);
-		levelSizes = new ArrayList<>(Collections.nCopies(maxDepth + 2, 0.0));
-		mistletoeSizes = new ArrayList<>(Collections.nCopies(maxDepth + 2, 0.0));
+		levelSizes = new double[maxDepth + 2];
+		mistletoeSizes = new double[maxDepth + 2];
 	}
 
 	private Vertex createApexVertex(Component apex) {
@@ -180,14 +179,14 @@ public class TreeLayout {
 	 * Determine the size of each level of the tree.
 	 * Return the size of the last level for convenience.
 	 */
-	private Double determineLevels() {
-		levels = new ArrayList<>(Collections.nCopies(maxDepth + 1, 0.0));
+	private double determineLevels() {
+		levels = new double[maxDepth + 1];
 		for (int i = 1; i <= maxDepth; ++i)
-			levels.set(i, levels.get(i - 1)
-					+ (levelSizes.get(i + 1) + levelSizes.get(i)) / 2
+			levels[i] = levels[i - 1]
+					+ (levelSizes[i + 1] + levelSizes[i]) / 2
 					+ manager.distanceLevel
-					+ mistletoeSizes.get(i + 1));
-		return levels.get(levels.size() - 1);
+					+ mistletoeSizes[i + 1];
+		return levels[levels.length - 1];
 	}
 
 	private void firstWalkMistletoes(Vertex vertex, int depth) {
@@ -197,8 +196,8 @@ public class TreeLayout {
 
 			// First walk on the mistletoe.
 			vertex.mistletoe.firstWalk(vertex.mistletoe.apexVertex, 0, 1);
-			mistletoeSizes.set(depth, Math.max(
-					mistletoeSizes.get(depth), vertex.mistletoe.determineLevels()));
+			mistletoeSizes[depth] = Math.max(
+					mistletoeSizes[depth], vertex.mistletoe.determineLevels());
 		}
 
 		for (var child : vertex.children) {
@@ -208,7 +207,8 @@ public class TreeLayout {
 
 	/**
 	 * Create the vertices of a tree which root is <code>parent</code>.
-	 * It works by doing a breadth-first search.
+	 * It works by doing a breadth-first search in which every node and link is
+	 * visited once.
 	 * @param apex The apex of the tree to be created.
 	 *
 	 */
@@ -224,10 +224,9 @@ public class TreeLayout {
 			while (levelSize-- != 0) {
 				var parent = queue.poll();
 				if (parent != null) {
-					var links = forInputs
-							? parent.node.getAllTargetConnections()
-							: parent.node.getAllSourceConnections();
+					var links = manager.linksOf(parent.node, forInputs);
 					var children = new ArrayList<Component>();
+					var added = new HashSet<Component>();
 
 					// Create the list of children of parent.
 					for (var link : links) {
@@ -237,7 +236,7 @@ public class TreeLayout {
 						// Check if this child has not been already added by a neighbor, an
 						// ancestor or the root of the subtree itself.
 						if (!manager.mapNodeToVertex.containsKey(child)
-								&& !children.contains(child))
+								&& added.add(child))
 							children.add(child);
 					}
 
@@ -245,18 +244,17 @@ public class TreeLayout {
 
 					// Create the vertices of the filtered children.
 					for (var child : children) {
-						var index = children.indexOf(child);
 						var figure = manager.figureOf(child);
+						if (figure == null
+								|| manager.getConstraint(figure) == null)  // see layout()
+							continue;
 						var size = manager.getConstrainedSize(figure);
-						var childVertex = new Vertex(child, figure, size, index);
+						var previousSibling = parent.getLastChild();
+						var childVertex = new Vertex(
+								child, figure, size, parent.getChildCount());
 						childVertex.setParent(parent);
-						if (childVertex.figure == null
-								|| manager.getConstraint(childVertex.figure) == null)  // see layout()
-							continue;
 						childVertex.setStartLocation(calculateStartLocation(childVertex));
-						if (children.indexOf(child) != 0)
-							childVertex.setPreviousSibling(
-									manager.mapNodeToVertex.get(children.get(index - 1)));
+						childVertex.setPreviousSibling(previousSibling);
 
 						manager.mapNodeToVertex.put(child, childVertex);
 						parent.addChild(childVertex);
@@ -407,12 +405,12 @@ public class TreeLayout {
 				? 1 : -1;
 		var x = (orientation & (WEST | EAST)) != 0
 				? (int) (apexVertex.endLocation.x
-				+ Math.round(levels.get(depth)) * levelSign)
+				+ Math.round(levels[depth]) * levelSign)
 				: (int) (apexVertex.endLocation.x + vertex.prelim + modifierSum);
 		var y = (orientation & (WEST | EAST)) != 0
 				? (int) (apexVertex.endLocation.y + vertex.prelim + modifierSum)
 				: (int) (apexVertex.endLocation.y
-				+ Math.round(levels.get(depth)) * levelSign);
+				+ Math.round(levels[depth]) * levelSign);
 		var location = new Point(x, y);
 		vertex.setLocation(location, parent);
 
@@ -457,10 +455,7 @@ public class TreeLayout {
 	}
 
 	private boolean isMistletoe(Vertex vertex) {
-		var links = forInputs
-				? vertex.node.getAllSourceConnections()
-				: vertex.node.getAllTargetConnections();
-		for (var link : links) {
+		for (var link : manager.linksOf(vertex.node, !forInputs)) {
 			if (link.isCloseLoop())
 				continue;
 
@@ -477,7 +472,7 @@ public class TreeLayout {
 		double d = (orientation & (WEST | EAST)) != 0
 				? vertex.size.width()
 				: vertex.size.height();
-		levelSizes.set(depth, Math.max(levelSizes.get(depth), d));
+		levelSizes[depth] = Math.max(levelSizes[depth], d);
 	}
 
 }
@@ -2,7 +2,6 @@ package org.openlca.app.tools.mapping;
 
 import java.util.ArrayList;
 import java.util.Objects;
-import java.util.Set;
 import java.util.function.Function;
 
 import org.eclipse.swt.SWT;
@@ -17,6 +16,7 @@ import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.eclipse.ui.forms.widgets.Hyperlink;
 import org.openlca.app.M;
+import org.openlca.app.db.Cache;
 import org.openlca.app.db.Database;
 import org.openlca.app.tools.mapping.model.DBProvider;
 import org.openlca.app.tools.mapping.model.FlowProvider;
@@ -28,7 +28,6 @@ import org.openlca.app.util.UI;
 import org.openlca.core.database.FlowDao;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.database.LocationDao;
-import org.openlca.core.database.ProcessDao;
 import org.openlca.core.io.maps.FlowMapEntry;
 import org.openlca.core.io.maps.FlowRef;
 import org.openlca.core.io.maps.MappingStatus;
@@ -346,10 +345,10 @@ class MappingDialog extends FormDialog {
 				flowID = flow != null ? flow.id : 0L;
 			}
 			if (flowID > 0L) {
-				Set<Long> ids = ref.flow.flowType == FlowType.WASTE_FLOW
-					? fdao.getWhereInput(flowID)
-					: fdao.getWhereOutput(flowID);
-				providers.addAll(new ProcessDao(db).getDescriptors(ids));
+				var index = Cache.getProviderIndex();
+				providers.addAll(ref.flow.flowType == FlowType.WASTE_FLOW
+					? index.withInput(flowID)
+					: index.withOutput(flowID));
 				providers.sort(
 					(p1, p2) -> Strings.compare(Labels.name(p1), Labels.name(p2)));
 			}
@@ -2,6 +2,7 @@ package org.openlca.app.tools.mapping;
 
 import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.MenuManager;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.ui.part.EditorActionBarContributor;
 import org.openlca.app.App;
 import org.openlca.app.M;
@@ -13,8 +14,10 @@ import org.openlca.app.tools.mapping.model.DBProvider;
 import org.openlca.app.tools.mapping.model.FlowProvider;
 import org.openlca.app.tools.mapping.replacer.Replacer;
 import org.openlca.app.util.Actions;
+import org.openlca.app.util.ErrorReporter;
 import org.openlca.app.util.MsgBox;
 import org.openlca.app.util.Question;
+import org.openlca.app.util.UI;
 import org.openlca.core.io.maps.FlowMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,10 +80,13 @@ public class MappingMenu extends EditorActionBarContributor {
 						+ "unmapped flows of the source system?");
 		if (!b)
 			return;
-		Generator gen = new Generator(source, target, tool.mapping);
-		App.runWithProgress("Generate mappings ...", gen, () -> {
-			tool.refresh();
-		});
+		var gen = new Generator(source, target, tool.mapping);
+		try {
+			new ProgressMonitorDialog(UI.shell()).run(true, true, gen);
+		} catch (Exception e) {
+			ErrorReporter.on("Failed to generate flow mappings", e);
+		}
+		tool.refresh();
 	}
 
 	private void onApply() {
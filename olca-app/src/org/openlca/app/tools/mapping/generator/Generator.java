@@ -3,7 +3,14 @@ package org.openlca.app.tools.mapping.generator;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.openlca.app.tools.mapping.model.DBProvider;
 import org.openlca.app.tools.mapping.model.FlowProvider;
 import org.openlca.core.io.maps.FlowMap;
 import org.openlca.core.io.maps.FlowMapEntry;
@@ -15,9 +22,14 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Try to find matching flows in a target system for the flows in a source
- * system that do not have a mapping assigned.
+ * system that do not have a mapping assigned. The target flows are indexed
+ * once and the source flows are then matched in parallel; only the target
+ * flows that share a word stem with a source flow are scored.
  */
-public class Generator implements Runnable {
+public class Generator implements IRunnableWithProgress {
+
+	/** The number of source flows that are matched in one task. */
+	private static final int CHUNK_SIZE = 64;
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 	private final FlowProvider sourceSystem;
@@ -32,10 +44,11 @@ public class Generator implements Runnable {
 	}
 
 	@Override
-	public void run() {
+	public void run(IProgressMonitor monitor) {
+		ExecutorService pool = null;
 		try {
 			log.info("generate mappings {} -> {}", sourceSystem, targetSystem);
-			log.info("load source flows");
+			long start = System.currentTimeMillis();
 			// we only generate mappings for flows that are not already mapped
 			var sourceFlows = getCandidateFlows();
 			if (sourceFlows.isEmpty()) {
@@ -43,22 +56,75 @@ public class Generator implements Runnable {
 				return;
 			}
 
-			log.info("match unmapped flows");
-			var matcher = new Matcher(targetSystem);
-			for (var sourceFlow : sourceFlows) {
-				var source = sourceFlow.copy();
+			// one unit of work for indexing and one for each source flow
+			int n = sourceFlows.size();
+			monitor.beginTask("Generate mappings", n + 1);
+			monitor.subTask("Index target flows");
+			var index = TargetIndex.of(targetSystem);
+			if (monitor.isCanceled())
+				return;
+			monitor.worked(1);
+
+			// match the source flows in parallel; each worker thread uses
+			// its own matcher on the shared index
+			monitor.subTask("Match unmapped flows");
+			var matches = new int[n];
+			var canceled = new AtomicBoolean(false);
+			var matchers = ThreadLocal.withInitial(() -> new Matcher(index));
+			pool = Executors.newFixedThreadPool(
+					Math.max(1, Runtime.getRuntime().availableProcessors()));
+			var futures = new ArrayList<Future<Integer>>();
+			for (int offset = 0; offset < n; offset += CHUNK_SIZE) {
+				int from = offset;
+				int to = Math.min(n, offset + CHUNK_SIZE);
+				futures.add(pool.submit(() -> {
+					var matcher = matchers.get();
+					for (int i = from; i < to; i++) {
+						if (canceled.get())
+							return i - from;
+						matches[i] = matcher.find(sourceFlows.get(i));
+					}
+					return to - from;
+				}));
+			}
+			for (var future : futures) {
+				if (monitor.isCanceled()) {
+					canceled.set(true);
+					break;
+				}
+				monitor.worked(future.get());
+			}
+			if (canceled.get()) {
+				log.info("flow mapping generation canceled");
+				return;
+			}
+
+			// assign the matches and providers in the order of the source flows
+			var db = targetSystem instanceof DBProvider dbProvider
+					? dbProvider.db()
+					: null;
+			var providers = new ProviderFinder(db);
+			for (int i = 0; i < n; i++) {
+				var source = sourceFlows.get(i).copy();
 				source.status = MappingStatus.ok();
-				FlowRef matched = matcher.find(source);
 				FlowRef target = null;
-				if (matched != null) {
-					target = matched.copy();
+				if (matches[i] >= 0) {
+					target = index.flows[matches[i]].copy();
+					providers.checkAddProvider(source, target);
 					target.status = getStatus(source, target);
 				}
 				mapping.entries.add(new FlowMapEntry(source, target, 1.0));
 			}
+			log.info("matched {} flows against {} target flows in {} ms",
+					n, index.size(), System.currentTimeMillis() - start);
 
 		} catch (Exception e) {
 			log.error("Generation of flow mappings failed", e);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+			monitor.done();
 		}
 	}
 
@@ -0,0 +1,116 @@
+package org.openlca.app.tools.mapping.generator;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openlca.app.db.Cache;
+import org.openlca.app.db.Database;
+import org.openlca.app.util.Labels;
+import org.openlca.core.database.FlowDao;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.LocationDao;
+import org.openlca.core.database.ProcessDao;
+import org.openlca.core.io.maps.FlowRef;
+import org.openlca.core.model.FlowType;
+import org.openlca.core.model.descriptors.ProcessDescriptor;
+import org.openlca.text.PhraseParser;
+import org.openlca.text.PhraseSimilarity;
+import org.openlca.text.WordBuffer;
+import org.openlca.util.Categories;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * Assigns providers to matched product and waste flows of a target database.
+ * If a flow has multiple providers, the provider with the name that is most
+ * similar to the name of the source flow is selected.
+ */
+class ProviderFinder {
+
+	private final IDatabase db;
+	private final PhraseSimilarity similarity = new PhraseSimilarity();
+	private final PhraseParser parser = new PhraseParser();
+	private final WordBuffer phrase1 = new WordBuffer();
+	private final WordBuffer phrase2 = new WordBuffer();
+
+	/** The provider candidates by target flow ID. */
+	private final TLongObjectHashMap<List<ProcessDescriptor>> providers =
+		new TLongObjectHashMap<>();
+
+	// helper structures for collecting provider information
+	private Categories.PathBuilder categories;
+	private Map<Long, String> locations;
+
+	ProviderFinder(IDatabase db) {
+		this.db = db;
+	}
+
+	void checkAddProvider(FlowRef s, FlowRef t) {
+		if (db == null || t == null || t.flow == null)
+			return;
+		if (t.flow.flowType == FlowType.ELEMENTARY_FLOW)
+			return;
+		ProcessDescriptor prov = findProvider(s, t);
+		if (prov == null)
+			return;
+		t.provider = prov;
+		if (categories == null) {
+			categories = Categories.pathsOf(db);
+		}
+		t.providerCategory = categories.pathOf(prov.category);
+		if (locations == null) {
+			locations = new LocationDao(db).getCodes();
+		}
+		if (prov.location != null) {
+			t.providerLocation = locations.get(prov.location);
+		}
+	}
+
+	private ProcessDescriptor findProvider(FlowRef s, FlowRef t) {
+		var candidates = candidatesOf(t);
+		if (candidates.isEmpty())
+			return null;
+		if (candidates.size() == 1)
+			return candidates.get(0);
+
+		ProcessDescriptor cand = null;
+		double score = 0.0;
+		parser.parseInto(phrase1, s.flow.name);
+		for (var d : candidates) {
+			// include possible location codes; location codes are
+			// often added to process names
+			var processName = Labels.name(d);
+			parser.parseInto(phrase2, processName);
+			double sim = similarity.get(phrase1, phrase2);
+			if (cand == null || sim > score) {
+				cand = d;
+				score = sim;
+			}
+		}
+		return cand;
+	}
+
+	private List<ProcessDescriptor> candidatesOf(FlowRef t) {
+		long tid = t.flow.id;
+		var cached = providers.get(tid);
+		if (cached != null)
+			return cached;
+		List<ProcessDescriptor> candidates;
+		if (db == Database.get()) {
+			// use the shared provider index of the active database
+			var index = Cache.getProviderIndex();
+			candidates = t.flow.flowType == FlowType.WASTE_FLOW
+				? index.withInput(tid)
+				: index.withOutput(tid);
+		} else {
+			var processIDs = t.flow.flowType == FlowType.WASTE_FLOW
+				? new FlowDao(db).getWhereInput(tid)
+				: new FlowDao(db).getWhereOutput(tid);
+			candidates = processIDs.isEmpty()
+				? List.of()
+				: new ProcessDao(db).getDescriptors(processIDs);
+		}
+		providers.put(tid, candidates);
+		return candidates;
+	}
+}
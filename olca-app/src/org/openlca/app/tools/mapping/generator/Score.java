@@ -21,22 +21,29 @@ record Score(
 		return this.equals(noMatch) || nameScore == 0;
 	}
 
-	static Score compute(Matcher matcher, FlowRef s, FlowRef t) {
+	/**
+	 * Computes the score of the source flow and the target flow at the given
+	 * position of the index of the matcher. The source flow must be parsed by
+	 * the matcher already.
+	 */
+	static Score compute(Matcher matcher, FlowRef s, int pos) {
+		var index = matcher.index();
+		var t = index.flows[pos];
 		if (s == null
 			|| s.flow == null
 			|| t == null
 			|| t.flow == null)
 			return noMatch;
 
-		double nameScore = s.flow.name != null && t.flow.name != null
-			? matcher.similarityOf(s.flow.name, t.flow.name)
+		double nameScore = s.flow.name != null && index.names[pos] != null
+			? matcher.similarityOf(matcher.sourceName, index.names[pos])
 			: 0;
 		if (nameScore == 0)
 			return noMatch;
 
-		double categoryScore = ofCategories(matcher, s, t);
-		double locationScore = s.flowLocation != null && t.flowLocation != null
-			? matcher.similarityOf(s.flowLocation, t.flowLocation)
+		double categoryScore = ofCategories(matcher, s, t, index.categories[pos]);
+		double locationScore = s.flowLocation != null && index.locations[pos] != null
+			? matcher.similarityOf(matcher.sourceLocation, index.locations[pos])
 			: 0;
 
 		boolean sameType = s.flow.flowType == t.flow.flowType;
@@ -47,14 +54,14 @@ record Score(
 		return new Score(nameScore, categoryScore, locationScore, sameType, sameUnit);
 	}
 
-	private static double ofCategories(Matcher matcher, FlowRef s, FlowRef t) {
+	private static double ofCategories(
+		Matcher matcher, FlowRef s, FlowRef t, String[] stemmed2) {
 		if (s.flow.flowType != FlowType.ELEMENTARY_FLOW
 			|| t.flow.flowType != FlowType.ELEMENTARY_FLOW
-			|| s.flowCategory == null
-			|| t.flowCategory == null)
+			|| matcher.sourceCategory == null
+			|| stemmed2 == null)
 			return 0;
-		var stemmed1 = matcher.compartmentStemmer.stem(s.flowCategory);
-		var stemmed2 = matcher.compartmentStemmer.stem(t.flowCategory);
+		var stemmed1 = matcher.sourceCategory;
 		int minLen = Math.min(stemmed1.length, stemmed2.length);
 		if (minLen == 0)
 			return 0;
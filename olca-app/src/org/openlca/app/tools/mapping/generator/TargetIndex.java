@@ -0,0 +1,207 @@
+package org.openlca.app.tools.mapping.generator;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openlca.app.tools.mapping.model.FlowProvider;
+import org.openlca.core.io.maps.FlowRef;
+import org.openlca.text.CompartmentStemmer;
+import org.openlca.text.PhraseParser;
+import org.openlca.text.WordBuffer;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+/**
+ * The pre-processed flows of a target system. The flow names and locations
+ * are parsed and the flow categories are stemmed once when the index is
+ * created. Additionally, an inverted index from the word stems of the flow
+ * names to the flows is created which is used to select the candidates of a
+ * source flow (token blocking): only the target flows that share at least one
+ * stem with the source flow are scored. An index is read-only after its
+ * creation and can be shared between threads.
+ */
+class TargetIndex {
+
+	/** The maximum number of candidates that are scored for a source flow. */
+	private static final int MAX_CANDIDATES = 2000;
+
+	private static Set<String> stopwords;
+
+	final FlowRef[] flows;
+	final WordBuffer[] names;
+	final WordBuffer[] locations;
+	final String[][] categories;
+
+	/** The number of distinct word stems of the name of each target flow. */
+	private final int[] stemCounts;
+
+	private final Map<String, Integer> refIds;
+	private final Map<String, TIntArrayList> postings = new HashMap<>();
+
+	private TargetIndex(List<FlowRef> refs) {
+		int n = refs.size();
+		flows = refs.toArray(new FlowRef[0]);
+		names = new WordBuffer[n];
+		locations = new WordBuffer[n];
+		categories = new String[n][];
+		stemCounts = new int[n];
+		refIds = new HashMap<>(n);
+	}
+
+	static TargetIndex of(FlowProvider targetSystem) {
+		var refs = new ArrayList<FlowRef>();
+		for (var ref : targetSystem.getFlowRefs()) {
+			if (ref.flow != null && ref.flow.refId != null) {
+				refs.add(ref);
+			}
+		}
+		var index = new TargetIndex(refs);
+		var parser = new PhraseParser();
+		var compartments = new CompartmentStemmer();
+		var stemmedCategories = new HashMap<String, String[]>();
+		for (int i = 0; i < index.flows.length; i++) {
+			var ref = index.flows[i];
+			index.refIds.put(ref.flow.refId, i);
+			if (ref.flow.name != null) {
+				var name = new WordBuffer();
+				parser.parseInto(name, ref.flow.name);
+				index.names[i] = name;
+				var stems = stemsOf(ref.flow.name);
+				index.stemCounts[i] = stems.size();
+				for (var stem : stems) {
+					index.postings
+							.computeIfAbsent(stem, s -> new TIntArrayList())
+							.add(i);
+				}
+			}
+			if (ref.flowLocation != null) {
+				var location = new WordBuffer();
+				parser.parseInto(location, ref.flowLocation);
+				index.locations[i] = location;
+			}
+			if (ref.flowCategory != null) {
+				index.categories[i] = stemmedCategories.computeIfAbsent(
+						ref.flowCategory, compartments::stem);
+			}
+		}
+		return index;
+	}
+
+	int size() {
+		return flows.length;
+	}
+
+	/**
+	 * Returns the position of the target flow with the given reference ID or
+	 * -1 if there is no such flow.
+	 */
+	int positionOf(String refId) {
+		if (refId == null)
+			return -1;
+		var pos = refIds.get(refId);
+		return pos != null ? pos : -1;
+	}
+
+	/**
+	 * Returns the positions of the target flows that share at least one word
+	 * stem with the given name. If there are too many of such flows, the flows
+	 * with the highest stem overlap are returned; the overlap is measured with
+	 * the Dice coefficient of the stem sets, so that short target names with
+	 * a few shared stems are not dropped in favor of long names. Returns
+	 * `null` when the name has no stems or when none of its stems occurs in
+	 * the target flows; in this case all target flows need to be checked.
+	 */
+	TIntArrayList candidatesOf(String name) {
+		var stems = stemsOf(name);
+		if (stems.isEmpty())
+			return null;
+		var counts = new TIntIntHashMap();
+		for (var stem : stems) {
+			var list = postings.get(stem);
+			if (list == null)
+				continue;
+			for (int k = 0; k < list.size(); k++) {
+				counts.adjustOrPutValue(list.get(k), 1, 1);
+			}
+		}
+		if (counts.isEmpty())
+			return null;
+		var candidates = new TIntArrayList(counts.keys());
+		if (candidates.size() <= MAX_CANDIDATES) {
+			candidates.sort();
+			return candidates;
+		}
+
+		// rank the candidates by their overlap; the score is stored in the
+		// upper and the position in the lower bits of a sort key
+		var keys = new long[candidates.size()];
+		for (int k = 0; k < keys.length; k++) {
+			int pos = candidates.get(k);
+			double dice = 2.0 * counts.get(pos)
+					/ (stems.size() + Math.max(1, stemCounts[pos]));
+			long score = Math.round(dice * Integer.MAX_VALUE);
+			keys[k] = (score << 32) | pos;
+		}
+		Arrays.sort(keys);
+		var selected = new TIntArrayList(MAX_CANDIDATES);
+		for (int k = keys.length - MAX_CANDIDATES; k < keys.length; k++) {
+			selected.add((int) keys[k]);
+		}
+		selected.sort();
+		return selected;
+	}
+
+	/**
+	 * Returns the distinct stems of the words of the given phrase without stop
+	 * words.
+	 */
+	static Set<String> stemsOf(String phrase) {
+		var stems = new HashSet<String>();
+		if (phrase == null)
+			return stems;
+		var stops = stopwords();
+		for (var word : phrase.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+			if (word.length() < 2 || stops.contains(word))
+				continue;
+			var stem = Stemmer.stem(word);
+			if (!stem.isEmpty()) {
+				stems.add(stem);
+			}
+		}
+		return stems;
+	}
+
+	private static synchronized Set<String> stopwords() {
+		if (stopwords != null)
+			return stopwords;
+		var words = new HashSet<String>();
+		var stream = TargetIndex.class.getResourceAsStream("stopwords.txt");
+		if (stream != null) {
+			try (var reader = new BufferedReader(
+					new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					var word = line.trim().toLowerCase();
+					if (!word.isEmpty() && !word.startsWith("#")) {
+						words.add(word);
+					}
+				}
+			} catch (Exception e) {
+				LoggerFactory.getLogger(TargetIndex.class)
+						.error("failed to read stop words", e);
+			}
+		}
+		stopwords = words;
+		return stopwords;
+	}
+}
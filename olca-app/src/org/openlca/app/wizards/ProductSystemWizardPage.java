@@ -2,6 +2,7 @@ package org.openlca.app.wizards;
 
 import java.util.UUID;
 
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.IMessageProvider;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
@@ -13,6 +14,7 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Text;
 import org.openlca.app.M;
 import org.openlca.app.db.Database;
+import org.openlca.app.db.LinkingProperties;
 import org.openlca.app.navigation.ModelTextFilter;
 import org.openlca.app.navigation.NavigationTree;
 import org.openlca.app.navigation.Navigator;
@@ -132,6 +134,33 @@ class ProductSystemWizardPage extends AbstractWizardPage<ProductSystem> {
 			boolean b = !checkLinksCheck.getSelection();
 			linkingPanel.setTypeChecksEnabled(b);
 		});
+		showMultiProviderInfo(comp);
+	}
+
+	/**
+	 * Shows the number of flows with multiple providers when the linking
+	 * properties of the database were already checked and are still valid.
+	 * The check itself is not started here.
+	 */
+	private void showMultiProviderInfo(Composite comp) {
+		var db = Database.get();
+		if (db == null)
+			return;
+		var job = Job.create("Get linking properties", monitor -> {
+			var props = LinkingProperties.getCached(db);
+			if (props == null || props.multiProviderFlows.isEmpty())
+				return;
+			int count = props.multiProviderFlows.size();
+			comp.getDisplay().asyncExec(() -> {
+				if (checkLinksCheck.isDisposed())
+					return;
+				checkLinksCheck.setText("Check multi-provider links (experimental; "
+						+ count + " flows with multiple providers)");
+				comp.layout();
+			});
+		});
+		job.setSystem(true);
+		job.schedule();
 	}
 
 	@Override